@@ -14,6 +14,7 @@ import com.google.inject.TypeLiteral;
 import com.joyent.manta.client.MantaClient;
 import com.joyent.manta.exception.MantaClientHttpResponseException;
 import com.joyent.manta.exception.MantaErrorCode;
+import com.joyent.manta.monitor.admin.ChainRunnerRegistry;
 import com.joyent.manta.monitor.chains.ChainRunner;
 import com.joyent.manta.monitor.chains.MantaOperationsChain;
 import com.joyent.manta.monitor.config.Configuration;
@@ -125,6 +126,12 @@ public class Application {
                 injector.getInstance(
                         Key.get(new TypeLiteral<ConcurrentHashMap<String, Histogram>>() { }
                         ));
+        /* Metrics labelled by chain that are shared by all of the chains. */
+        final MantaMonitorMetrics metrics = injector.getInstance(MantaMonitorMetrics.class);
+        metrics.register(CollectorRegistry.defaultRegistry);
+        /* Runners are registered so that the admin API can find them. */
+        final ChainRunnerRegistry registry = injector.getInstance(ChainRunnerRegistry.class);
+
         /* We programmatically load each monitor test chain as specified by the
          * configuration file. */
 
@@ -158,8 +165,9 @@ public class Application {
                 requestPutHistogramsMap.put(chain.getClass().getSimpleName(),
                         requestPutHistogram);
                 ChainRunner chainRunner = new ChainRunner(chain, runner,
-                        client, UNCAUGHT_EXCEPTION_HANDLER, requestPutHistogramsMap, testType);
+                        client, UNCAUGHT_EXCEPTION_HANDLER, requestPutHistogramsMap, testType, metrics);
                 runningChains.add(chainRunner);
+                registry.register(chainRunner);
             } catch (ClassNotFoundException e) {
                 LOG.error("Unable to load class: {}", runner.getChainClassName());
             } catch (IOException e) {
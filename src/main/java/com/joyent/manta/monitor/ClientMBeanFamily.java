@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Enum describing how the MBeans that the Manta client registers are grouped
+ * into metric families. MBeans whose names differ only by what they measure,
+ * such as {@code requests-put} and {@code requests-get}, are exported as one
+ * family with the difference as a label.
+ */
+public enum ClientMBeanFamily {
+    /**
+     * Timers of HTTP requests, one MBean per HTTP method.
+     */
+    REQUESTS("requests-", "client_requests", "operation",
+            "HTTP requests made by the Manta client"),
+
+    /**
+     * Meters of exceptions thrown by HTTP requests, one MBean per exception class.
+     */
+    EXCEPTIONS("exceptions-", "client_exceptions", "exception",
+            "Exceptions thrown by HTTP requests made by the Manta client"),
+
+    /**
+     * Meter of HTTP requests that were retried.
+     */
+    RETRIES("retries", "client_retries", null,
+            "HTTP requests retried by the Manta client");
+
+    private final String mBeanName;
+    private final String metricName;
+    private final String labelName;
+    private final String help;
+
+    ClientMBeanFamily(final String mBeanName,
+                      final String metricName,
+                      @Nullable final String labelName,
+                      final String help) {
+        this.mBeanName = mBeanName;
+        this.metricName = metricName;
+        this.labelName = labelName;
+        this.help = help;
+    }
+
+    /**
+     * @param name name the client gave an MBean
+     * @return the family the MBean belongs to or null if it isn't described
+     */
+    @Nullable
+    public static ClientMBeanFamily forMBeanName(final String name) {
+        for (ClientMBeanFamily family : values()) {
+            if (family.matches(name)) {
+                return family;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean matches(final String name) {
+        if (labelName == null) {
+            return mBeanName.equals(name);
+        }
+
+        return name.startsWith(mBeanName) && name.length() > mBeanName.length();
+    }
+
+    /**
+     * @return name of the metric family, without the monitor's prefix or a unit
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * @return name of the label that distinguishes the family's MBeans or
+     *         null if the family has a single MBean
+     */
+    @Nullable
+    public String getLabelName() {
+        return labelName;
+    }
+
+    /**
+     * @param name name the client gave an MBean of this family
+     * @return value of the family's label for the MBean
+     */
+    public String getLabelValue(final String name) {
+        return name.substring(mBeanName.length());
+    }
+
+    public String getHelp() {
+        return help;
+    }
+}
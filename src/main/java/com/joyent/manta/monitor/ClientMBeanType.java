@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enum describing the kinds of metric that the Manta client exports as MBeans
+ * and the attributes that are read from each of them. The kind of an MBean is
+ * recognised by the attributes it has.
+ */
+public enum ClientMBeanType {
+    /**
+     * Timer with a count, duration quantiles in its duration unit and rates.
+     */
+    TIMER,
+
+    /**
+     * Histogram with a count and quantiles of the values it has recorded.
+     */
+    HISTOGRAM,
+
+    /**
+     * Meter with a count of events and rates.
+     */
+    METER,
+
+    /**
+     * Counter that can be incremented and decremented.
+     */
+    COUNTER,
+
+    /**
+     * Gauge of a single value.
+     */
+    GAUGE;
+
+    public static final String COUNT_ATTRIBUTE = "Count";
+    public static final String VALUE_ATTRIBUTE = "Value";
+    public static final String DURATION_UNIT_ATTRIBUTE = "DurationUnit";
+    private static final String MEAN_RATE_ATTRIBUTE = "MeanRate";
+
+    /**
+     * Quantiles reported by timers and histograms by the attribute they are
+     * read from.
+     */
+    public static final Map<String, String> QUANTILE_ATTRIBUTES = ImmutableMap.<String, String>builder()
+            .put("50thPercentile", "0.5")
+            .put("75thPercentile", "0.75")
+            .put("95thPercentile", "0.95")
+            .put("98thPercentile", "0.98")
+            .put("99thPercentile", "0.99")
+            .put("999thPercentile", "0.999")
+            .build();
+
+    /**
+     * @param attributeNames names of the readable attributes of an MBean
+     * @return the kind of metric the MBean exports or null if it isn't one
+     *         that the client exports
+     */
+    @Nullable
+    public static ClientMBeanType fromAttributeNames(final Set<String> attributeNames) {
+        if (attributeNames.contains(DURATION_UNIT_ATTRIBUTE)) {
+            return TIMER;
+        } else if (attributeNames.contains("50thPercentile")) {
+            return HISTOGRAM;
+        } else if (attributeNames.contains(MEAN_RATE_ATTRIBUTE)) {
+            return METER;
+        } else if (attributeNames.contains(COUNT_ATTRIBUTE)) {
+            return COUNTER;
+        } else if (attributeNames.contains(VALUE_ATTRIBUTE)) {
+            return GAUGE;
+        }
+
+        return null;
+    }
+}
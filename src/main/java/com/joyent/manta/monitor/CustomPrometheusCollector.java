@@ -8,31 +8,73 @@
 package com.joyent.manta.monitor;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import io.prometheus.client.Collector;
-import io.prometheus.client.CounterMetricFamily;
-import io.prometheus.client.GaugeMetricFamily;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class that collects JMX metrics from {@link JMXMetricsCollector} and presents
- * them in Prometheus exposition format.
+ * them in Prometheus exposition format. Every MBean that the Manta client
+ * registers is discovered and exported as a typed metric family, grouped as
+ * described by {@link ClientMBeanFamily} and read as described by
+ * {@link ClientMBeanType}. The metrics that were exported before MBeans were
+ * discovered are still exported under their original names from a table of
+ * {@link LegacyMetric}s.
+ *
+ * <p>The metrics are read once per snapshot interval and the same snapshot is
+ * returned to every scrape within the interval, so that several Prometheus
+ * servers scraping the monitor don't each read every MBean.</p>
  */
 public class CustomPrometheusCollector extends Collector implements CustomPrometheusCollectorInterface {
+    private static final Logger LOG = LoggerFactory.getLogger(CustomPrometheusCollector.class);
+
     private static final String METRIC_PREFIX = "manta_monitor";
+
+    /**
+     * Default time in milliseconds that a snapshot of the client's metrics is
+     * reused for.
+     */
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 1_000L;
+
+    /**
+     * Attributes that aren't exported, because they are arrays or strings.
+     */
+    private static final Set<String> IGNORED_ATTRIBUTES = ImmutableSet.of("Values", "RateUnit");
+
+    private static final List<LegacyMetric> LEGACY_METRICS = buildLegacyMetrics();
+
     private final JMXMetricsCollector jmxMetricsCollector;
     private final String testType;
     private final String name;
+    private final long snapshotIntervalNanos;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
 
     @Inject
     CustomPrometheusCollector(@Named("JMXMetricsCollector") final JMXMetricsCollector jmxMetricsCollector,
+                              @Named("jmxSnapshotIntervalMillis") final long snapshotIntervalMillis,
                               @Assisted final String testType) {
         this.jmxMetricsCollector = jmxMetricsCollector;
         this.testType = testType;
         this.name = String.format("%s_%s_", METRIC_PREFIX, testType);
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMillis);
     }
 
     @Override
@@ -45,233 +87,376 @@ public class CustomPrometheusCollector extends Collector implements CustomPromet
         return this.jmxMetricsCollector;
     }
 
-    private <T extends Number> T retrieveMBeanAttributeValue(final String mBeanObjectName,
-                                                             final String attribute,
-                                                             final Class<T> returnType) {
-        return jmxMetricsCollector.getMBeanAttributeValue(mBeanObjectName, attribute, returnType);
+    @Override
+    public List<MetricFamilySamples> collect() {
+        Snapshot current = snapshot;
+
+        if (current != null && current.isFresh(snapshotIntervalNanos)) {
+            return current.families;
+        }
+
+        /* Only one scrape reads the MBeans; scrapes that arrive while it
+         * does wait for its snapshot. */
+        snapshotLock.lock();
+        try {
+            current = snapshot;
+
+            if (current == null || !current.isFresh(snapshotIntervalNanos)) {
+                current = new Snapshot(System.nanoTime(), buildFamilies());
+                snapshot = current;
+            }
+
+            return current.families;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private List<MetricFamilySamples> buildFamilies() {
+        final Map<String, ClientMBean> mBeans = readClientMBeans();
+        final Map<String, FamilyBuilder> families = new LinkedHashMap<>();
+
+        for (ClientMBean mBean : mBeans.values()) {
+            addSamples(families, mBean);
+        }
+
+        final ImmutableList.Builder<MetricFamilySamples> builder = ImmutableList.builder();
+
+        for (FamilyBuilder family : families.values()) {
+            builder.add(family.build());
+        }
+
+        for (LegacyMetric legacy : LEGACY_METRICS) {
+            final MetricFamilySamples samples = legacy.toSamples(name, mBeans.get(legacy.mBeanName));
+
+            if (samples != null) {
+                builder.add(samples);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads every attribute of every MBean in the client's domain, by the
+     * name the client gave each MBean.
+     */
+    private Map<String, ClientMBean> readClientMBeans() {
+        final Map<String, ClientMBean> mBeans = new LinkedHashMap<>();
+
+        for (ObjectName objectName : jmxMetricsCollector.findClientMBeans()) {
+            final String mBeanName = JMXMetricsCollector.getClientMBeanName(objectName);
+
+            if (mBeanName == null || mBeans.containsKey(mBeanName)) {
+                LOG.debug("Not exporting MBean {} with a missing or duplicate name", objectName);
+                continue;
+            }
+
+            try {
+                final Set<String> attributeNames = jmxMetricsCollector.getMBeanAttributeNames(objectName);
+                final ClientMBeanType type = ClientMBeanType.fromAttributeNames(attributeNames);
+
+                if (type == null) {
+                    continue;
+                }
+
+                final List<String> attributes = new ArrayList<>(attributeNames);
+                attributes.removeAll(IGNORED_ATTRIBUTES);
+
+                final Map<String, Object> values = jmxMetricsCollector.getMBeanAttributes(
+                        objectName, attributes.toArray(new String[0]));
+                mBeans.put(mBeanName, new ClientMBean(mBeanName, type, values));
+            } catch (MBeanServerOperationException e) {
+                // The MBean was unregistered while it was being read
+                LOG.debug("Unable to read MBean {}", objectName, e);
+            }
+        }
+
+        return mBeans;
+    }
+
+    private void addSamples(final Map<String, FamilyBuilder> families, final ClientMBean mBean) {
+        final ClientMBeanFamily family = ClientMBeanFamily.forMBeanName(mBean.name);
+        final String baseName;
+        final String help;
+        final List<String> labelNames;
+        final List<String> labelValues;
+
+        if (family != null) {
+            baseName = name + family.getMetricName();
+            help = family.getHelp();
+        } else {
+            baseName = name + "client_" + toMetricName(mBean.name);
+            help = "Manta client metric " + mBean.name;
+        }
+
+        if (family != null && family.getLabelName() != null) {
+            labelNames = Collections.singletonList(family.getLabelName());
+            labelValues = Collections.singletonList(family.getLabelValue(mBean.name));
+        } else {
+            labelNames = Collections.emptyList();
+            labelValues = Collections.emptyList();
+        }
+
+        final Double count = mBean.getNumber(ClientMBeanType.COUNT_ATTRIBUTE);
+
+        switch (mBean.type) {
+            case TIMER:
+                addQuantiles(families, baseName + "_seconds", help, labelNames, labelValues, mBean,
+                        secondsPerDurationUnit(mBean.values.get(ClientMBeanType.DURATION_UNIT_ATTRIBUTE)));
+                break;
+            case HISTOGRAM:
+                addQuantiles(families, baseName, help, labelNames, labelValues, mBean, 1d);
+                break;
+            case METER:
+            case COUNTER:
+                if (count != null) {
+                    final String familyName = baseName + "_total";
+                    families.computeIfAbsent(familyName, n -> new FamilyBuilder(n, Type.COUNTER, help))
+                            .add(familyName, labelNames, labelValues, count);
+                }
+                break;
+            case GAUGE:
+                final Double value = mBean.getNumber(ClientMBeanType.VALUE_ATTRIBUTE);
+                if (value != null) {
+                    families.computeIfAbsent(baseName, n -> new FamilyBuilder(n, Type.GAUGE, help))
+                            .add(baseName, labelNames, labelValues, value);
+                }
+                break;
+            default:
+                break;
+        }
     }
 
-    private void importRequestsPut(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "requests_put_mean",
-                "Put Requests Mean Value",
-                retrieveMBeanAttributeValue("requests-put",
-                        "Mean", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_count",
-                "Put Requests Count",
-                retrieveMBeanAttributeValue("requests-put",
-                        "Count", Long.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_50thPercentile",
-                "Put Requests 50thPercentile Value",
-                retrieveMBeanAttributeValue("requests-put",
-                        "50thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_75thPercentile",
-                "Put Requests 75thPercentile Value",
-                retrieveMBeanAttributeValue("requests-put",
-                        "75thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_95thPercentile",
-                "Put Requests 95thPercentile Value",
-                retrieveMBeanAttributeValue("requests-put",
-                        "95thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_99thPercentile",
-                "Put Requests 99thPercentile Value",
-                retrieveMBeanAttributeValue("requests-put",
-                        "99thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_FifteenMinuteRate",
-                "Put Requests Fifteen Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-put",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_FiveMinuteRate",
-                "Put Requests Five Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-put",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_put_OneMinuteRate",
-                "Put Requests One Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-put",
-                        "OneMinuteRate", Double.class))));
+    private static void addQuantiles(final Map<String, FamilyBuilder> families,
+                                     final String familyName,
+                                     final String help,
+                                     final List<String> labelNames,
+                                     final List<String> labelValues,
+                                     final ClientMBean mBean,
+                                     final double scale) {
+        final FamilyBuilder family = families.computeIfAbsent(familyName,
+                n -> new FamilyBuilder(n, Type.SUMMARY, help));
+        final List<String> quantileLabelNames = new ArrayList<>(labelNames);
+        quantileLabelNames.add("quantile");
+
+        for (Map.Entry<String, String> quantile : ClientMBeanType.QUANTILE_ATTRIBUTES.entrySet()) {
+            final Double value = mBean.getNumber(quantile.getKey());
+
+            if (value != null) {
+                final List<String> quantileLabelValues = new ArrayList<>(labelValues);
+                quantileLabelValues.add(quantile.getValue());
+                family.add(familyName, quantileLabelNames, quantileLabelValues, value * scale);
+            }
+        }
+
+        final Double count = mBean.getNumber(ClientMBeanType.COUNT_ATTRIBUTE);
+
+        if (count != null) {
+            family.add(familyName + "_count", labelNames, labelValues, count);
+        }
     }
 
-    private void importRequestsGet(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "requests_get_mean",
-                "Get Requests Mean Value",
-                retrieveMBeanAttributeValue("requests-get",
-                        "Mean", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_50thPercentile",
-                "Get Requests 50thPercentile Value",
-                retrieveMBeanAttributeValue("requests-get",
-                        "50thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_75thPercentile",
-                "Get Requests 75thPercentile Value",
-                retrieveMBeanAttributeValue("requests-get",
-                        "75thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_95thPercentile",
-                "Get Requests 95thPercentile Value",
-                retrieveMBeanAttributeValue("requests-get",
-                        "95thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_99thPercentile",
-                "Get Requests 99thPercentile Value",
-                retrieveMBeanAttributeValue("requests-get",
-                        "99thPercentile", Double.class))));
-        builder.add((new CounterMetricFamily(name + "requests_get_count",
-                "Get Requests Count",
-                retrieveMBeanAttributeValue("requests-get",
-                        "Count", Long.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_FifteenMinuteRate",
-                "Get Requests Fifteen Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-get",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_FiveMinuteRate",
-                "Get Requests Five Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-get",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_get_OneMinuteRate",
-                "Get Requests One Minute Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-get",
-                        "OneMinuteRate", Double.class))));
+    /**
+     * Timers report durations in the unit they were configured with, which
+     * is milliseconds unless the client says otherwise.
+     */
+    private static double secondsPerDurationUnit(final Object durationUnit) {
+        TimeUnit unit = TimeUnit.MILLISECONDS;
+
+        if (durationUnit != null) {
+            try {
+                unit = TimeUnit.valueOf(durationUnit.toString().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Unknown timer duration unit {}, assuming milliseconds", durationUnit);
+            }
+        }
+
+        return 1d / unit.convert(1, TimeUnit.SECONDS);
     }
 
-    private void importRequestDelete(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "requests_delete_mean",
-                "Delete Requests Mean Value",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "Mean", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_50thPercentile",
-                "Delete Requests 50thPercentile Value",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "50thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_75thPercentile",
-                "Delete Requests 75thPercentile Value",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "75thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_95thPercentile",
-                "Delete Requests 95thPercentile Value",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "95thPercentile", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_99thPercentile",
-                "Delete Requests 99thPercentile Value",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "99thPercentile", Double.class))));
-        builder.add((new CounterMetricFamily(name + "requests_delete_count",
-                "Delete Requests Count",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "Count", Long.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_FifteenMinuteRate",
-                "Delete Requests Fifteen Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_FiveMinuteRate",
-                "Delete Requests Five Minutes Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "requests_delete_OneMinuteRate",
-                "Delete Requests One Minute Rate in milliseconds",
-                retrieveMBeanAttributeValue("requests-delete",
-                        "OneMinuteRate", Double.class))));
+    private static String toMetricName(final String mBeanName) {
+        return StringUtils.lowerCase(sanitizeMetricName(mBeanName), Locale.ENGLISH);
     }
 
-    private void importRetries(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "retries_count",
-                "Number of Retries",
-                retrieveMBeanAttributeValue("retries",
-                        "Count", Long.class))));
-        builder.add((new GaugeMetricFamily(name + "retries_mean_rate",
-                "Mean rate for number of retries",
-                retrieveMBeanAttributeValue("retries",
-                        "MeanRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "retries_FifteenMinuteRate",
-                "Fifteen Minute rate for number of retries",
-                retrieveMBeanAttributeValue("retries",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "retries_FiveMinuteRate",
-                "Five Minute rate for number of retries",
-                retrieveMBeanAttributeValue("retries",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "retries_OneMinuteRate",
-                "One Minute rate for number of retries",
-                retrieveMBeanAttributeValue("retries",
-                        "OneMinuteRate", Double.class))));
+    /*
+     * The metrics exported before MBeans were discovered, kept under their
+     * original names so that existing dashboards and alerts keep working.
+     */
+    private static List<LegacyMetric> buildLegacyMetrics() {
+        final ImmutableList.Builder<LegacyMetric> metrics = ImmutableList.builder();
+
+        addLegacyTimer(metrics, "requests-put", "requests_put", "Put", Type.GAUGE);
+        addLegacyTimer(metrics, "requests-get", "requests_get", "Get", Type.COUNTER);
+        addLegacyTimer(metrics, "requests-delete", "requests_delete", "Delete", Type.COUNTER);
+
+        metrics.add(new LegacyMetric("retries", "Count", "retries_count",
+                "Number of Retries", Type.GAUGE));
+        metrics.add(new LegacyMetric("retries", "MeanRate", "retries_mean_rate",
+                "Mean rate for number of retries", Type.GAUGE));
+        metrics.add(new LegacyMetric("retries", "FifteenMinuteRate", "retries_FifteenMinuteRate",
+                "Fifteen Minute rate for number of retries", Type.GAUGE));
+        metrics.add(new LegacyMetric("retries", "FiveMinuteRate", "retries_FiveMinuteRate",
+                "Five Minute rate for number of retries", Type.GAUGE));
+        metrics.add(new LegacyMetric("retries", "OneMinuteRate", "retries_OneMinuteRate",
+                "One Minute rate for number of retries", Type.GAUGE));
+
+        addLegacyExceptions(metrics, "SocketTimeoutException", "socket_time_out", "SocketTimeOutExceptions");
+        addLegacyExceptions(metrics, "NoHttpResponseException", "no_http_response", "NoHttpResponseExceptions");
+        addLegacyExceptions(metrics, "ConnectionClosedException", "connection_closed", "ConnectionClosedExceptions");
+
+        return metrics.build();
     }
 
-    private void importSocketTimeOutExceptionMetric(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "exceptions_socket_time_out_FifteenMinuteRate",
-                "Fifteen Minute Rate for SocketTimeOutExceptions",
-                retrieveMBeanAttributeValue("exceptions-SocketTimeoutException",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_socket_time_out_FiveMinuteRate",
-                "Five Minute Rate for SocketTimeOutExceptions",
-                retrieveMBeanAttributeValue("exceptions-SocketTimeoutException",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_socket_time_out_OneMinuteRate",
-                "One Minute Rate for SocketTimeOutExceptions",
-                retrieveMBeanAttributeValue("exceptions-SocketTimeoutException",
-                        "OneMinuteRate", Double.class))));
-        builder.add((new CounterMetricFamily(name + "exceptions_socket_time_out_count",
-                "Number of SocketTimeOutExceptions",
-                retrieveMBeanAttributeValue("exceptions-SocketTimeoutException",
-                        "Count", Long.class))));
+    private static void addLegacyTimer(final ImmutableList.Builder<LegacyMetric> metrics,
+                                       final String mBeanName,
+                                       final String metricName,
+                                       final String operation,
+                                       final Type countType) {
+        final String help = operation + " Requests ";
+
+        metrics.add(new LegacyMetric(mBeanName, "Mean", metricName + "_mean", help + "Mean Value", Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "Count", metricName + "_count", help + "Count", countType));
+
+        for (String percentile : new String[] {"50thPercentile", "75thPercentile", "95thPercentile", "99thPercentile"}) {
+            metrics.add(new LegacyMetric(mBeanName, percentile, metricName + "_" + percentile,
+                    help + percentile + " Value", Type.GAUGE));
+        }
+
+        metrics.add(new LegacyMetric(mBeanName, "FifteenMinuteRate", metricName + "_FifteenMinuteRate",
+                help + "Fifteen Minutes Rate in milliseconds", Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "FiveMinuteRate", metricName + "_FiveMinuteRate",
+                help + "Five Minutes Rate in milliseconds", Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "OneMinuteRate", metricName + "_OneMinuteRate",
+                help + "One Minute Rate in milliseconds", Type.GAUGE));
     }
 
-    private void importNoHttpResponseExceptionMetric(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "exceptions_no_http_response_FifteenMinuteRate",
-                "Fifteen Minute Rate for NoHttpResponseExceptions",
-                retrieveMBeanAttributeValue("exceptions-NoHttpResponseException",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_no_http_response_FiveMinuteRate",
-                "Five Minute Rate for NoHttpResponseExceptions",
-                retrieveMBeanAttributeValue("exceptions-NoHttpResponseException",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_no_http_response_OneMinuteRate",
-                "One Minute Rate for NoHttpResponseExceptions",
-                retrieveMBeanAttributeValue("exceptions-NoHttpResponseException",
-                        "OneMinuteRate", Double.class))));
-        builder.add((new CounterMetricFamily(name + "exceptions_no_http_response_count",
-                "Number of NoHttpResponseExceptions",
-                retrieveMBeanAttributeValue("exceptions-NoHttpResponseException",
-                        "Count", Long.class))));
+    private static void addLegacyExceptions(final ImmutableList.Builder<LegacyMetric> metrics,
+                                            final String exceptionName,
+                                            final String metricName,
+                                            final String description) {
+        final String mBeanName = "exceptions-" + exceptionName;
+        final String prefix = "exceptions_" + metricName;
+
+        metrics.add(new LegacyMetric(mBeanName, "FifteenMinuteRate", prefix + "_FifteenMinuteRate",
+                "Fifteen Minute Rate for " + description, Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "FiveMinuteRate", prefix + "_FiveMinuteRate",
+                "Five Minute Rate for " + description, Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "OneMinuteRate", prefix + "_OneMinuteRate",
+                "One Minute Rate for " + description, Type.GAUGE));
+        metrics.add(new LegacyMetric(mBeanName, "Count", prefix + "_count",
+                "Number of " + description, Type.COUNTER));
     }
 
-    private void importConnectionClosedExceptionMetric(final ImmutableList.Builder<MetricFamilySamples> builder) {
-        builder.add((new GaugeMetricFamily(name + "exceptions_connection_closed_FifteenMinuteRate",
-                "Fifteen Minute Rate for ConnectionClosedExceptions",
-                retrieveMBeanAttributeValue("exceptions-ConnectionClosedException",
-                        "FifteenMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_connection_closed_FiveMinuteRate",
-                "Five Minute Rate for ConnectionClosedExceptions",
-                retrieveMBeanAttributeValue("exceptions-ConnectionClosedException",
-                        "FiveMinuteRate", Double.class))));
-        builder.add((new GaugeMetricFamily(name + "exceptions_connection_closed_OneMinuteRate",
-                "One Minute Rate for ConnectionClosedExceptions",
-                retrieveMBeanAttributeValue("exceptions-ConnectionClosedException",
-                        "OneMinuteRate", Double.class))));
-        builder.add((new CounterMetricFamily(name + "exceptions_connection_closed_count",
-                "Number of ConnectionClosedExceptions",
-                retrieveMBeanAttributeValue("exceptions-ConnectionClosedException",
-                        "Count", Long.class))));
+    /**
+     * Metrics read from the client's MBeans at one point in time.
+     */
+    private static final class Snapshot {
+        private final long createdNanos;
+        private final List<MetricFamilySamples> families;
+
+        private Snapshot(final long createdNanos, final List<MetricFamilySamples> families) {
+            this.createdNanos = createdNanos;
+            this.families = families;
+        }
+
+        private boolean isFresh(final long intervalNanos) {
+            return System.nanoTime() - createdNanos < intervalNanos;
+        }
     }
 
+    /**
+     * The attribute values read from one of the client's MBeans.
+     */
+    private static final class ClientMBean {
+        private final String name;
+        private final ClientMBeanType type;
+        private final Map<String, Object> values;
 
-    @Override
-    public List<MetricFamilySamples> collect() {
-        final ImmutableList.Builder<MetricFamilySamples> metricFamilySamplesBuilder =
-                ImmutableList.builder();
+        private ClientMBean(final String name, final ClientMBeanType type, final Map<String, Object> values) {
+            this.name = name;
+            this.type = type;
+            this.values = values;
+        }
 
-        if (jmxMetricsCollector.validateMbeanObject("requests-put")) {
-            importRequestsPut(metricFamilySamplesBuilder);
+        @Nullable
+        private Double getNumber(final String attribute) {
+            final Object value = values.get(attribute);
+
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+
+            return null;
         }
-        if (jmxMetricsCollector.validateMbeanObject("requests-get")) {
-            importRequestsGet(metricFamilySamplesBuilder);
+    }
+
+    /**
+     * A metric exported under its own name from one attribute of an MBean.
+     * Exceptions that haven't been thrown yet have no MBean and are exported
+     * as 0.
+     */
+    private static final class LegacyMetric {
+        private final String mBeanName;
+        private final String attribute;
+        private final String metricName;
+        private final String help;
+        private final Type type;
+
+        private LegacyMetric(final String mBeanName, final String attribute, final String metricName,
+                             final String help, final Type type) {
+            this.mBeanName = mBeanName;
+            this.attribute = attribute;
+            this.metricName = metricName;
+            this.help = help;
+            this.type = type;
         }
-        if (jmxMetricsCollector.validateMbeanObject("requests-delete")) {
-            importRequestDelete(metricFamilySamplesBuilder);
+
+        @Nullable
+        private MetricFamilySamples toSamples(final String prefix, final ClientMBean mBean) {
+            final Double value;
+
+            if (mBean != null) {
+                value = mBean.getNumber(attribute);
+            } else if (mBeanName.startsWith("exceptions")) {
+                value = 0d;
+            } else {
+                value = null;
+            }
+
+            if (value == null) {
+                return null;
+            }
+
+            final String familyName = prefix + metricName;
+            return new MetricFamilySamples(familyName, type, help, Collections.singletonList(
+                    new MetricFamilySamples.Sample(familyName, Collections.emptyList(),
+                            Collections.emptyList(), value)));
+        }
+    }
+
+    /**
+     * Collects the samples of one metric family from several MBeans.
+     */
+    private static final class FamilyBuilder {
+        private final String familyName;
+        private final Type type;
+        private final String help;
+        private final List<MetricFamilySamples.Sample> samples = new ArrayList<>();
+
+        private FamilyBuilder(final String familyName, final Type type, final String help) {
+            this.familyName = familyName;
+            this.type = type;
+            this.help = help;
         }
-        if (jmxMetricsCollector.validateMbeanObject("retries")) {
-            importRetries(metricFamilySamplesBuilder);
+
+        private void add(final String sampleName, final List<String> labelNames,
+                         final List<String> labelValues, final double value) {
+            samples.add(new MetricFamilySamples.Sample(sampleName, labelNames, labelValues, value));
         }
-        // No need to validate. A default value of 0 will be added in case if
-        // the exceptions-$class object is not yet registered with the mbeanServer
-        importSocketTimeOutExceptionMetric(metricFamilySamplesBuilder);
-        importNoHttpResponseExceptionMetric(metricFamilySamplesBuilder);
-        importConnectionClosedExceptionMetric(metricFamilySamplesBuilder);
 
-        return metricFamilySamplesBuilder.build();
+        private MetricFamilySamples build() {
+            return new MetricFamilySamples(familyName, type, help, samples);
+        }
     }
 }
@@ -10,21 +10,38 @@ package com.joyent.manta.monitor;
 import org.jetbrains.annotations.Nullable;
 
 import javax.inject.Inject;
+import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
-import javax.management.MBeanException;
-import javax.management.ReflectionException;
 import javax.management.InstanceNotFoundException;
-import javax.management.ObjectName;
+import javax.management.IntrospectionException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
 import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
 import javax.management.MalformedObjectNameException;
-
+import javax.management.Notification;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.relation.MBeanServerNotificationFilter;
 import javax.validation.ValidationException;
 
 import java.io.InvalidObjectException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class that provides methods to extract and validate JMX metrics from the platform MBeanServer.
+ * The MBeans in the client's domain are looked up once and cached until an
+ * MBean in that domain is registered or unregistered, so that scrapes don't
+ * query the MBeanServer for every attribute they read.
  */
 public class JMXMetricsCollector {
     private final PlatformMbeanServerProvider platformMbeanServerProvider;
@@ -32,15 +49,33 @@ public class JMXMetricsCollector {
     private static final String MBEAN_DOMAIN = "com.joyent.manta.client";
     private static final String MBEAN_OBJECT_KEY = "00";
 
+    /**
+     * Names of the readable attributes of each MBean in the client's domain.
+     */
+    private final Map<ObjectName, Set<String>> attributeNames = new ConcurrentHashMap<>();
+
+    /**
+     * Every MBean registered in the client's domain, or null if they need to
+     * be looked up again.
+     */
+    private volatile Set<ObjectName> clientMBeans;
+
+    /**
+     * Incremented whenever an MBean in the client's domain is registered or
+     * unregistered, so that a lookup that raced with the change isn't cached.
+     */
+    private final AtomicLong registrationChanges = new AtomicLong();
+
     @Inject
     public JMXMetricsCollector(final PlatformMbeanServerProvider platformMbeanServerProvider) {
         this.platformMbeanServerProvider = platformMbeanServerProvider;
+        listenForRegistrationChanges();
     }
 
     @Nullable
     @SuppressWarnings("unchecked")
     public <T extends Number> T getMBeanAttributeValue(final String mBeanObjectName, final String attribute, final Class<T> returnType) {
-        ObjectName objectName = getObjectNameFromString(mBeanObjectName);
+        ObjectName objectName = findClientMBean(mBeanObjectName);
         if (objectName == null) {
             // This also indicates that the mbeanObject is not registered.
             // Check to see if it is an exceptions-$class object
@@ -53,55 +88,12 @@ public class JMXMetricsCollector {
                     return (T) Long.valueOf(0L);
                 }
             }
-            String message = "Requested MBean Object not found";
-            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message,
-                    new InvalidObjectException(message));
-            mBeanServerOperationException.addContextValue("objectName", mBeanObjectName);
-            mBeanServerOperationException.addContextValue("attribute", attribute);
-            mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
-            mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
-            throw mBeanServerOperationException;
+            throw objectNotFound(mBeanObjectName, attribute);
         }
         MBeanServer mBeanServer = platformMbeanServerProvider.getPlatformMBeanServer();
-        Object value;
         try {
-            value = mBeanServer.getAttribute(objectName, attribute);
-            final Number number;
-
-            if (value instanceof Number) {
-                number = (Number) value;
-            } else {
-                try {
-                    number = Double.parseDouble(value.toString());
-                } catch (NumberFormatException e) {
-                    String message = "Failed to parse attribute value to number";
-                    MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, e);
-                    mBeanServerOperationException.addContextValue("objectName", objectName.getCanonicalName());
-                    mBeanServerOperationException.addContextValue("attribute", attribute);
-                    mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
-                    mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
-                    mBeanServerOperationException.addContextValue("expectedAttributeReturnType", returnType.getCanonicalName());
-                    mBeanServerOperationException.addContextValue("resultAttributeValueReturnType", value != null ? value.getClass() : null);
-                    mBeanServerOperationException.addContextValue("resultAttributeValue", value);
-                    throw mBeanServerOperationException;
-                }
-            }
-
-            if (returnType.equals(number.getClass())) {
-                return (T)number;
-            } else if (returnType.equals(Short.class)) {
-                return (T)Short.valueOf(number.shortValue());
-            } else if (returnType.equals(Integer.class)) {
-                return (T)Integer.valueOf(number.intValue());
-            } else if (returnType.equals(Long.class)) {
-                return (T)Long.valueOf(number.longValue());
-            } else if (returnType.equals(Float.class)) {
-                return (T)Float.valueOf(number.floatValue());
-            } else if (returnType.equals(Double.class)) {
-                return (T)Double.valueOf(number.doubleValue());
-            } else if (returnType.equals(Byte.class)) {
-                return (T)Byte.valueOf(number.byteValue());
-            }
+            final Object value = mBeanServer.getAttribute(objectName, attribute);
+            return convertNumber(objectName, attribute, value, returnType);
         } catch (AttributeNotFoundException | InstanceNotFoundException | ReflectionException | MBeanException e) {
             String message;
             if (e instanceof AttributeNotFoundException) {
@@ -120,11 +112,135 @@ public class JMXMetricsCollector {
             mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
             throw mBeanServerOperationException;
         }
-        return null;
+    }
+
+    /**
+     * Reads several attributes of an MBean with a single request to the
+     * MBeanServer, without converting their values. Attributes that can't be
+     * read are left out of the result.
+     *
+     * @param objectName name the MBean is registered under
+     * @param attributes names of the attributes to read
+     * @return values of the attributes by attribute name
+     */
+    public Map<String, Object> getMBeanAttributes(final ObjectName objectName, final String... attributes) {
+        final MBeanServer mBeanServer = platformMbeanServerProvider.getPlatformMBeanServer();
+        final AttributeList attributeList;
+
+        try {
+            attributeList = mBeanServer.getAttributes(objectName, attributes);
+        } catch (InstanceNotFoundException | ReflectionException e) {
+            final String message;
+            if (e instanceof InstanceNotFoundException) {
+                message = "The specified MBean does not exist in the repository.";
+            } else {
+                message = "The requested operation is not supported by the MBean Server ";
+            }
+            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, e);
+            mBeanServerOperationException.addContextValue("objectName", objectName.getCanonicalName());
+            mBeanServerOperationException.addContextValue("attributes", String.join(",", attributes));
+            mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
+            mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
+            throw mBeanServerOperationException;
+        }
+
+        final Map<String, Object> values = new HashMap<>(attributes.length * 2);
+
+        for (Attribute attribute : attributeList.asList()) {
+            values.put(attribute.getName(), attribute.getValue());
+        }
+
+        return values;
+    }
+
+    /**
+     * Finds every MBean that the client has registered. The MBeans are looked
+     * up again only after an MBean in the client's domain is registered or
+     * unregistered.
+     *
+     * @return names of the client's MBeans
+     */
+    public Set<ObjectName> findClientMBeans() {
+        final Set<ObjectName> cached = clientMBeans;
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final long changesBeforeLookup = registrationChanges.get();
+        final ObjectName pattern;
+
+        try {
+            pattern = new ObjectName(MBEAN_DOMAIN + ":*");
+        } catch (MalformedObjectNameException mfe) {
+            String message = "Error in creating mbean object name pattern for the client's domain";
+            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, mfe);
+            mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
+            throw mBeanServerOperationException;
+        }
+
+        final Set<ObjectName> found = Collections.unmodifiableSet(new HashSet<>(
+                platformMbeanServerProvider.getPlatformMBeanServer().queryNames(pattern, null)));
+
+        if (registrationChanges.get() == changesBeforeLookup) {
+            clientMBeans = found;
+        }
+
+        return found;
+    }
+
+    /**
+     * @param objectName name the MBean is registered under
+     * @return names of the MBean's readable attributes
+     */
+    public Set<String> getMBeanAttributeNames(final ObjectName objectName) {
+        final Set<String> cached = attributeNames.get(objectName);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final long changesBeforeLookup = registrationChanges.get();
+        final MBeanInfo info;
+
+        try {
+            info = platformMbeanServerProvider.getPlatformMBeanServer().getMBeanInfo(objectName);
+        } catch (InstanceNotFoundException | IntrospectionException | ReflectionException e) {
+            String message = "Failed to retrieve the description of the MBean from the MBean Server.";
+            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, e);
+            mBeanServerOperationException.addContextValue("objectName", objectName.getCanonicalName());
+            mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
+            throw mBeanServerOperationException;
+        }
+
+        final Set<String> names = new HashSet<>();
+
+        for (MBeanAttributeInfo attribute : info.getAttributes()) {
+            if (attribute.isReadable()) {
+                names.add(attribute.getName());
+            }
+        }
+
+        final Set<String> unmodifiableNames = Collections.unmodifiableSet(names);
+
+        if (registrationChanges.get() == changesBeforeLookup) {
+            attributeNames.put(objectName, unmodifiableNames);
+        }
+
+        return unmodifiableNames;
+    }
+
+    /**
+     * @param objectName name of an MBean in the client's domain
+     * @return the name the client gave the MBean, such as {@code requests-put}
+     */
+    @Nullable
+    public static String getClientMBeanName(final ObjectName objectName) {
+        return objectName.getKeyProperty(MBEAN_OBJECT_KEY);
     }
 
     public boolean validateMbeanObject(final String objectName) {
-        ObjectName mbeanObject = getObjectNameFromString(objectName);
+        ObjectName mbeanObject = findClientMBean(objectName);
         if (mbeanObject == null) {
             String message = "Requested Mbean object not registered with Platform MBean Server";
             MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message,
@@ -139,24 +255,112 @@ public class JMXMetricsCollector {
     }
 
     @Nullable
-    private ObjectName getObjectNameFromString(final String objectName) {
-        String objectNameWithDomain = MBEAN_DOMAIN + ":" + MBEAN_OBJECT_KEY + "=" + objectName + ",*";
-        MBeanServer mBeanServer = platformMbeanServerProvider.getPlatformMBeanServer();
-        ObjectName responseObjectName = null;
-        try {
-            ObjectName mbeanObjectName = new ObjectName(objectNameWithDomain);
-            Set<ObjectName> objectNames = mBeanServer.queryNames(mbeanObjectName, null);
-            for (ObjectName object: objectNames) {
-                responseObjectName = object;
+    @SuppressWarnings("unchecked")
+    private static <T extends Number> T convertNumber(final ObjectName objectName,
+                                                      final String attribute,
+                                                      final Object value,
+                                                      final Class<T> returnType) {
+        final Number number;
+
+        if (value instanceof Number) {
+            number = (Number) value;
+        } else {
+            try {
+                number = Double.parseDouble(String.valueOf(value));
+            } catch (NumberFormatException e) {
+                String message = "Failed to parse attribute value to number";
+                MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, e);
+                mBeanServerOperationException.addContextValue("objectName", objectName.getCanonicalName());
+                mBeanServerOperationException.addContextValue("attribute", attribute);
+                mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
+                mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
+                mBeanServerOperationException.addContextValue("expectedAttributeReturnType", returnType.getCanonicalName());
+                mBeanServerOperationException.addContextValue("resultAttributeValueReturnType", value != null ? value.getClass() : null);
+                mBeanServerOperationException.addContextValue("resultAttributeValue", value);
+                throw mBeanServerOperationException;
             }
-        } catch (MalformedObjectNameException mfe) {
-            String message = String.format("Error in creating mbean object name from the string %s", objectName);
-            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, mfe);
-            mBeanServerOperationException.addContextValue("objectName", objectName);
+        }
+
+        if (returnType.isInstance(number)) {
+            return (T)number;
+        } else if (returnType.equals(Short.class)) {
+            return (T)Short.valueOf(number.shortValue());
+        } else if (returnType.equals(Integer.class)) {
+            return (T)Integer.valueOf(number.intValue());
+        } else if (returnType.equals(Long.class)) {
+            return (T)Long.valueOf(number.longValue());
+        } else if (returnType.equals(Float.class)) {
+            return (T)Float.valueOf(number.floatValue());
+        } else if (returnType.equals(Double.class)) {
+            return (T)Double.valueOf(number.doubleValue());
+        } else if (returnType.equals(Byte.class)) {
+            return (T)Byte.valueOf(number.byteValue());
+        }
+
+        return null;
+    }
+
+    private static MBeanServerOperationException objectNotFound(final String mBeanObjectName,
+                                                                final String attribute) {
+        String message = "Requested MBean Object not found";
+        MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message,
+                new InvalidObjectException(message));
+        mBeanServerOperationException.addContextValue("objectName", mBeanObjectName);
+        mBeanServerOperationException.addContextValue("attribute", attribute);
+        mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
+        mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
+        return mBeanServerOperationException;
+    }
+
+    /*
+     * Drops cached lookups of MBeans in the client's domain when an MBean is
+     * registered or unregistered under the same name.
+     */
+    private void listenForRegistrationChanges() {
+        final MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+        filter.enableAllObjectNames();
+        filter.enableType(MBeanServerNotification.REGISTRATION_NOTIFICATION);
+        filter.enableType(MBeanServerNotification.UNREGISTRATION_NOTIFICATION);
+
+        try {
+            platformMbeanServerProvider.getPlatformMBeanServer().addNotificationListener(
+                    MBeanServerDelegate.DELEGATE_NAME, this::handleRegistrationChange, filter, null);
+        } catch (InstanceNotFoundException e) {
+            String message = "Unable to listen for MBean registrations";
+            MBeanServerOperationException mBeanServerOperationException = new MBeanServerOperationException(message, e);
             mBeanServerOperationException.addContextValue("mbeanServerDomain", MBEAN_DOMAIN);
-            mBeanServerOperationException.addContextValue("mbeanObjectKey", MBEAN_OBJECT_KEY);
             throw mBeanServerOperationException;
         }
-        return responseObjectName;
+    }
+
+    private void handleRegistrationChange(final Notification notification, final Object handback) {
+        if (!(notification instanceof MBeanServerNotification)) {
+            return;
+        }
+
+        final ObjectName changed = ((MBeanServerNotification) notification).getMBeanName();
+
+        if (!MBEAN_DOMAIN.equals(changed.getDomain())) {
+            return;
+        }
+
+        registrationChanges.incrementAndGet();
+        clientMBeans = null;
+        attributeNames.remove(changed);
+    }
+
+    /*
+     * Finds an MBean by the name the client gave it among the cached MBeans
+     * of the client's domain, or returns null if it isn't registered.
+     */
+    @Nullable
+    private ObjectName findClientMBean(final String mBeanObjectName) {
+        for (ObjectName objectName : findClientMBeans()) {
+            if (mBeanObjectName.equals(getClientMBeanName(objectName))) {
+                return objectName;
+            }
+        }
+
+        return null;
     }
 }
@@ -9,6 +9,7 @@ package com.joyent.manta.monitor;
 
 import com.google.inject.Binder;
 import com.google.inject.Module;
+import com.joyent.manta.monitor.admin.RunnersResource;
 import io.logz.guice.jersey.configuration.JerseyConfiguration;
 
 /**
@@ -26,6 +27,7 @@ public class JettyServerBuilderModule implements Module {
     public void configure(final Binder binder) {
         final JerseyConfiguration jerseyConfig = JerseyConfiguration.builder()
                 .addPort(jettyServerPort)
+                .addResourceClass(RunnersResource.class)
                 .build();
 
         MantaMonitorJerseyModule mantaMonitorJerseyModule = new MantaMonitorJerseyModule();
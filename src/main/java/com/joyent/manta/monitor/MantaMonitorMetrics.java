@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import com.joyent.manta.monitor.latency.HdrLatencyCollector;
+import com.joyent.manta.monitor.latency.LatencyRecorders;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Class holding the Prometheus metrics that are shared by all of the running
+ * chains and labelled by chain name, so that they can be registered once and
+ * passed to each chain's commands through the {@link MantaOperationContext}.
+ */
+public class MantaMonitorMetrics {
+    private final Counter skippedVerifications = Counter.build()
+            .name("manta_monitor_verification_skipped_total")
+            .labelNames("chain")
+            .help("Number of objects that were not downloaded and verified in "
+                    + "full because of the runner's verification policy")
+            .create();
+
+    private final Histogram chainLatency = Histogram.build()
+            .name("manta_monitor_chain_latency_seconds")
+            .labelNames("chain", "runner")
+            .help("Time elapsed from the intended start of a chain execution "
+                    + "until it finished, in seconds")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0,
+                    10.0, 30.0, 60.0, 120.0, 300.0)
+            .create();
+
+    private final Histogram dispatchLag = Histogram.build()
+            .name("manta_monitor_dispatch_lag_seconds")
+            .labelNames("chain")
+            .help("Time elapsed from the intended start of a scheduled chain "
+                    + "execution until a thread started running it, in seconds")
+            .buckets(0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1.0, 5.0)
+            .create();
+
+    private final Counter droppedStarts = Counter.build()
+            .name("manta_monitor_dropped_starts_total")
+            .labelNames("chain", "reason")
+            .help("Number of scheduled chain executions that were never run "
+                    + "because no thread was available to start them in time")
+            .create();
+
+    private final Gauge concurrencyLimit = Gauge.build()
+            .name("manta_monitor_concurrency_limit")
+            .labelNames("chain")
+            .help("Number of threads that the adaptive concurrency controller "
+                    + "currently allows to execute chains at once")
+            .create();
+
+    private final Counter concurrencyDecisions = Counter.build()
+            .name("manta_monitor_concurrency_decisions_total")
+            .labelNames("chain", "decision")
+            .help("Number of adjustments made by the adaptive concurrency "
+                    + "controller, by decision")
+            .create();
+
+    private final Histogram mpuPartsWallTime = Histogram.build()
+            .name("manta_monitor_mpu_parts_wall_seconds")
+            .labelNames("chain")
+            .help("Time elapsed from the start of the first part upload of a "
+                    + "multipart upload until the last one finished, in seconds")
+            .buckets(0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0, 300.0)
+            .create();
+
+    private final Histogram mpuPartsSummedTime = Histogram.build()
+            .name("manta_monitor_mpu_parts_summed_seconds")
+            .labelNames("chain")
+            .help("Sum of the time taken by each part upload of a multipart "
+                    + "upload, in seconds")
+            .buckets(0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0, 300.0)
+            .create();
+
+    private final Histogram mpuPhaseLatency = Histogram.build()
+            .name("manta_monitor_mpu_phase_seconds")
+            .labelNames("chain", "phase")
+            .help("Time taken by each phase of a multipart upload (initiate, "
+                    + "each part, complete and abort), in seconds")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0,
+                    10.0, 30.0, 60.0, 120.0)
+            .create();
+
+    private final Histogram commandDuration = Histogram.build()
+            .name("manta_monitor_command_duration_seconds")
+            .labelNames("chain", "runner", "command")
+            .help("Time taken by each execution of a command within a chain, "
+                    + "whether or not it succeeded, in seconds")
+            .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5,
+                    5.0, 10.0, 30.0, 60.0, 120.0, 300.0)
+            .create();
+
+    private final Counter uploadedBytes = Counter.build()
+            .name("manta_monitor_uploaded_bytes_total")
+            .labelNames("chain")
+            .help("Number of bytes of test data sent to Manta by uploads that "
+                    + "completed")
+            .create();
+
+    private final Counter downloadedBytes = Counter.build()
+            .name("manta_monitor_downloaded_bytes_total")
+            .labelNames("chain")
+            .help("Number of bytes of test data read from Manta by downloads "
+                    + "that completed")
+            .create();
+
+    private final Histogram transferThroughput = Histogram.build()
+            .name("manta_monitor_transfer_throughput_megabytes_per_second")
+            .labelNames("chain", "operation", "size_class")
+            .help("Rate at which the data of each upload or download was "
+                    + "transferred, in megabytes (10^6 bytes) per second")
+            .buckets(0.01, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 25.0,
+                    50.0, 100.0, 250.0, 500.0, 1000.0)
+            .create();
+
+    private final Histogram serverResponseTime = Histogram.build()
+            .name("manta_monitor_server_response_time_seconds")
+            .labelNames("chain", "operation")
+            .help("Time that Manta reported spending on each request in its "
+                    + "x-response-time header, in seconds")
+            .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5,
+                    5.0, 10.0, 30.0, 60.0)
+            .create();
+
+    private final Histogram clientOverhead = Histogram.build()
+            .name("manta_monitor_client_overhead_seconds")
+            .labelNames("chain", "operation")
+            .help("Time that the client waited for each request beyond the "
+                    + "time Manta reported spending on it, covering the network, "
+                    + "TLS and load balancers, in seconds")
+            .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5,
+                    5.0, 10.0, 30.0, 60.0)
+            .create();
+
+    private final Histogram getPhaseLatency = Histogram.build()
+            .name("manta_monitor_get_phase_seconds")
+            .labelNames("chain", "phase")
+            .help("Time taken by a GET of a whole object to receive the response "
+                    + "headers and the first byte of the body, measured from when "
+                    + "the request started, and to transfer the body, measured "
+                    + "from when the headers were received, in seconds")
+            .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5,
+                    5.0, 10.0, 30.0, 60.0, 120.0)
+            .create();
+
+    private final Histogram getBodyRate = Histogram.build()
+            .name("manta_monitor_get_body_rate_megabytes_per_second")
+            .labelNames("chain", "size_class")
+            .help("Rate at which the body of a GET of a whole object was "
+                    + "transferred once the response headers were received, in "
+                    + "megabytes (10^6 bytes) per second")
+            .buckets(0.01, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 25.0,
+                    50.0, 100.0, 250.0, 500.0, 1000.0)
+            .create();
+
+    private final Histogram serverRequestLatency = Histogram.build()
+            .name("manta_monitor_server_request_seconds")
+            .labelNames("chain", "operation", "server")
+            .help("Time the client waited for each successful request, by the "
+                    + "Manta server that served it, in seconds")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0,
+                    10.0, 30.0, 60.0)
+            .create();
+
+    private final Counter serverErrors = Counter.build()
+            .name("manta_monitor_server_errors_total")
+            .labelNames("chain", "server")
+            .help("Number of chain executions that failed with an error "
+                    + "response, by the Manta server that sent it")
+            .create();
+
+    private final Counter errors = Counter.build()
+            .name("manta_monitor_errors_total")
+            .labelNames("chain", "command", "status", "kind")
+            .help("Number of chain executions that failed, by the command that "
+                    + "failed, the HTTP status of the error response and the "
+                    + "kind of error")
+            .create();
+
+    private final LatencyRecorders latencyRecorders = new LatencyRecorders();
+
+    private final ServerLabels serverLabels;
+
+    private final long latencySnapshotIntervalMillis;
+
+    public MantaMonitorMetrics() {
+        this(ServerLabels.DEFAULT_MAX_SERVERS, HdrLatencyCollector.DEFAULT_SNAPSHOT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxServerLabels number of Manta servers that get a server label
+     *                        of their own
+     * @param latencySnapshotIntervalMillis time in milliseconds that each
+     *                                      snapshot of the HdrHistogram
+     *                                      latencies is served for
+     */
+    @Inject
+    public MantaMonitorMetrics(@Named("maxServerLabels") final int maxServerLabels,
+                               @Named("latencySnapshotIntervalMillis") final long latencySnapshotIntervalMillis) {
+        this.serverLabels = new ServerLabels(maxServerLabels);
+        this.latencySnapshotIntervalMillis = latencySnapshotIntervalMillis;
+    }
+
+    /**
+     * Registers all of the metrics with a registry.
+     *
+     * @param registry registry to register with
+     */
+    public void register(final CollectorRegistry registry) {
+        registry.register(skippedVerifications);
+        registry.register(chainLatency);
+        registry.register(dispatchLag);
+        registry.register(droppedStarts);
+        registry.register(concurrencyLimit);
+        registry.register(concurrencyDecisions);
+        registry.register(mpuPartsWallTime);
+        registry.register(mpuPartsSummedTime);
+        registry.register(mpuPhaseLatency);
+        registry.register(commandDuration);
+        registry.register(uploadedBytes);
+        registry.register(downloadedBytes);
+        registry.register(transferThroughput);
+        registry.register(serverResponseTime);
+        registry.register(clientOverhead);
+        registry.register(getPhaseLatency);
+        registry.register(getBodyRate);
+        registry.register(serverRequestLatency);
+        registry.register(serverErrors);
+        registry.register(errors);
+        registry.register(new HdrLatencyCollector(latencyRecorders, latencySnapshotIntervalMillis));
+    }
+
+    public Counter getSkippedVerifications() {
+        return skippedVerifications;
+    }
+
+    public Histogram getChainLatency() {
+        return chainLatency;
+    }
+
+    public Histogram getDispatchLag() {
+        return dispatchLag;
+    }
+
+    public Counter getDroppedStarts() {
+        return droppedStarts;
+    }
+
+    public Gauge getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public Counter getConcurrencyDecisions() {
+        return concurrencyDecisions;
+    }
+
+    public Histogram getMpuPartsWallTime() {
+        return mpuPartsWallTime;
+    }
+
+    public Histogram getMpuPartsSummedTime() {
+        return mpuPartsSummedTime;
+    }
+
+    public Histogram getMpuPhaseLatency() {
+        return mpuPhaseLatency;
+    }
+
+    public Histogram getCommandDuration() {
+        return commandDuration;
+    }
+
+    public Counter getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public Counter getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public Histogram getTransferThroughput() {
+        return transferThroughput;
+    }
+
+    public Histogram getServerResponseTime() {
+        return serverResponseTime;
+    }
+
+    public Histogram getClientOverhead() {
+        return clientOverhead;
+    }
+
+    public Histogram getGetPhaseLatency() {
+        return getPhaseLatency;
+    }
+
+    public Histogram getGetBodyRate() {
+        return getBodyRate;
+    }
+
+    public Histogram getServerRequestLatency() {
+        return serverRequestLatency;
+    }
+
+    public Counter getServerErrors() {
+        return serverErrors;
+    }
+
+    public Counter getErrors() {
+        return errors;
+    }
+
+    public LatencyRecorders getLatencyRecorders() {
+        return latencyRecorders;
+    }
+
+    public ServerLabels getServerLabels() {
+        return serverLabels;
+    }
+}
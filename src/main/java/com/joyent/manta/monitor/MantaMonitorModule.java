@@ -15,10 +15,13 @@ import java.util.Map;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.name.Names;
 import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.monitor.admin.ChainRunnerRegistry;
 import com.joyent.manta.monitor.config.Configuration;
 import com.joyent.manta.monitor.config.ConfigurationProvider;
+import com.joyent.manta.monitor.latency.HdrLatencyCollector;
 import io.honeybadger.reporter.NoticeReporter;
 import io.prometheus.client.Histogram;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.net.URI;
 import java.util.concurrent.ConcurrentHashMap;
@@ -70,10 +73,21 @@ public class MantaMonitorModule implements Module {
         binder.bind(JMXMetricsCollector.class)
                 .annotatedWith(Names.named("JMXMetricsCollector"))
                 .to(JMXMetricsCollector.class).asEagerSingleton();
+        binder.bindConstant().annotatedWith(Names.named("jmxSnapshotIntervalMillis"))
+                .to(NumberUtils.toLong(System.getenv("JMX_SNAPSHOT_INTERVAL_MS"),
+                        CustomPrometheusCollector.DEFAULT_SNAPSHOT_INTERVAL_MILLIS));
         binder.install(new FactoryModuleBuilder()
                 .implement(CustomPrometheusCollectorInterface.class, CustomPrometheusCollector.class)
                 .build(CustomPrometheusCollectorFactory.class));
         binder.bind(InstanceMetadata.class).asEagerSingleton();
+        binder.bindConstant().annotatedWith(Names.named("maxServerLabels"))
+                .to(NumberUtils.toInt(System.getenv("MAX_SERVER_LABELS"),
+                        ServerLabels.DEFAULT_MAX_SERVERS));
+        binder.bindConstant().annotatedWith(Names.named("latencySnapshotIntervalMillis"))
+                .to(NumberUtils.toLong(System.getenv("LATENCY_SNAPSHOT_INTERVAL_MS"),
+                        HdrLatencyCollector.DEFAULT_SNAPSHOT_INTERVAL_MILLIS));
+        binder.bind(MantaMonitorMetrics.class).asEagerSingleton();
+        binder.bind(ChainRunnerRegistry.class).asEagerSingleton();
         binder.bind(io.honeybadger.reporter.config.ConfigContext.class).toInstance(hbConfig);
         binder.bind(NoticeReporter.class).toInstance(noticeReporter);
         binder.bind(Thread.UncaughtExceptionHandler.class).toInstance(honeyBadgerHandler);
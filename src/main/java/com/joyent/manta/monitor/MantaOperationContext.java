@@ -9,15 +9,22 @@ package com.joyent.manta.monitor;
 
 import com.google.common.base.Stopwatch;
 import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.config.PayloadMode;
+import com.joyent.manta.monitor.config.VerificationPolicy;
+import com.joyent.manta.monitor.payloads.Payload;
+import com.joyent.manta.monitor.payloads.PayloadPool;
+import com.joyent.manta.monitor.sizes.SizeDistribution;
 import io.prometheus.client.Histogram;
 import org.apache.commons.chain.Context;
 import org.apache.commons.codec.binary.Hex;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
@@ -30,35 +37,44 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
     private static final long serialVersionUID = -81700974895811279L;
 
     public static final String MANTA_CLIENT_KEY = "mantaClient";
-    public static final String MIN_FILE_SIZE_KEY = "minFileSize";
-    public static final String MAX_FILE_SIZE_KEY = "maxFileSize";
+    public static final String SIZE_DISTRIBUTION_KEY = "sizeDistribution";
     public static final String FILE_PATH_GEN_FUNC_KEY = "filePathGenerationFunction";
     public static final String FILE_PATH_KEY = "filePath";
     public static final String FILE_SIZE_KEY = "fileSize";
     public static final String TEST_FILE_KEY = "testFile";
     public static final String TEST_FILE_CHECKSUM_KEY = "testFileChecksum";
     public static final String TEST_FILE_CHECKSUM_AS_STRING_KEY = "testFileChecksumString";
-    public static final String RESPONSE_TIMES_KEY = "responseTime";
     public static final String EXCEPTION_KEY = "exception";
+    public static final String FAILED_COMMAND_KEY = "failedCommand";
     public static final String STOPWATCH_KEY = "stopwatch";
     public static final String REQUEST_PUT_HISTOGRAMS_KEY = "requestPutHistograms";
     public static final String CHAIN_CLASS_NAME_KEY = "chainClassName";
     public static final String TEST_TYPE_KEY = "testType";
+    public static final String RUNNER_NAME_KEY = "runnerName";
     public static final String TEST_BASE_DIR_OR_BUCKET_KEY = "baseDirOrBucket";
     public static final String BUCKET_PATH_KEY = "bucketPath";
+    public static final String PAYLOAD_KEY = "payload";
+    public static final String PAYLOAD_MODE_KEY = "payloadMode";
+    public static final String DIGEST_ALGORITHM_KEY = "digestAlgorithm";
+    public static final String PAYLOAD_SEED_KEY = "payloadSeed";
+    public static final String PAYLOAD_POOL_KEY = "payloadPool";
+    public static final String OBJECT_ID_KEY = "objectId";
+    public static final String OBJECT_ID_AS_STRING_KEY = "objectIdString";
+    public static final String VERIFICATION_POLICY_KEY = "verificationPolicy";
+    public static final String ITERATION_KEY = "iteration";
+    public static final String METRICS_KEY = "metrics";
+    public static final String PART_PARALLELISM_KEY = "partParallelism";
+    public static final String PART_EXECUTOR_KEY = "partExecutor";
+    public static final String PART_COUNTS_KEY = "partCounts";
+    public static final String PART_SIZES_KEY = "partSizes";
+    public static final String COMPOSITE_CHECKSUM_KEY = "compositeChecksum";
+    public static final String UPLOADED_PART_SIZES_KEY = "uploadedPartSizes";
 
     public MantaOperationContext() {
         super();
-        put(RESPONSE_TIMES_KEY, new ConcurrentHashMap<UUID, Integer>());
         put(STOPWATCH_KEY, Stopwatch.createUnstarted());
     }
 
-    @Override
-    public void clear() {
-        super.clear();
-        put(RESPONSE_TIMES_KEY, new ConcurrentHashMap<UUID, Integer>());
-    }
-
     public MantaClient getMantaClient() {
         return (MantaClient)get(MANTA_CLIENT_KEY);
     }
@@ -68,21 +84,12 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         return this;
     }
 
-    public Integer getMinFileSize() {
-        return (Integer)get(MIN_FILE_SIZE_KEY);
-    }
-
-    public MantaOperationContext setMinFileSize(final int minFileSize) {
-        put(MIN_FILE_SIZE_KEY, minFileSize);
-        return this;
-    }
-
-    public Integer getMaxFileSize() {
-        return (Integer)get(MAX_FILE_SIZE_KEY);
+    public SizeDistribution getSizeDistribution() {
+        return (SizeDistribution)get(SIZE_DISTRIBUTION_KEY);
     }
 
-    public MantaOperationContext setMaxFileSize(final int maxFileSize) {
-        put(MAX_FILE_SIZE_KEY, maxFileSize);
+    public MantaOperationContext setSizeDistribution(final SizeDistribution sizeDistribution) {
+        put(SIZE_DISTRIBUTION_KEY, requireNonNull(sizeDistribution));
         return this;
     }
 
@@ -131,6 +138,11 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         return this;
         }
 
+    /**
+     * @return path to the temporary test file or null if the payload is not
+     *         backed by a file
+     */
+    @Nullable
     public Path getTestFile() {
         return (Path)get(TEST_FILE_KEY);
     }
@@ -140,6 +152,171 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         return this;
     }
 
+    public Payload getPayload() {
+        return (Payload)get(PAYLOAD_KEY);
+    }
+
+    public MantaOperationContext setPayload(final Payload payload) {
+        put(PAYLOAD_KEY, requireNonNull(payload));
+        return this;
+    }
+
+    public PayloadMode getPayloadMode() {
+        return (PayloadMode)get(PAYLOAD_MODE_KEY);
+    }
+
+    public MantaOperationContext setPayloadMode(final PayloadMode payloadMode) {
+        put(PAYLOAD_MODE_KEY, requireNonNull(payloadMode));
+        return this;
+    }
+
+    public DigestAlgorithm getDigestAlgorithm() {
+        return (DigestAlgorithm)get(DIGEST_ALGORITHM_KEY);
+    }
+
+    public MantaOperationContext setDigestAlgorithm(final DigestAlgorithm digestAlgorithm) {
+        put(DIGEST_ALGORITHM_KEY, requireNonNull(digestAlgorithm));
+        return this;
+    }
+
+    public VerificationPolicy getVerificationPolicy() {
+        return (VerificationPolicy)get(VERIFICATION_POLICY_KEY);
+    }
+
+    public MantaOperationContext setVerificationPolicy(final VerificationPolicy verificationPolicy) {
+        put(VERIFICATION_POLICY_KEY, requireNonNull(verificationPolicy));
+        return this;
+    }
+
+    /**
+     * @return sequence number of the chain execution within its runner
+     */
+    public long getIteration() {
+        return (Long)getOrDefault(ITERATION_KEY, 0L);
+    }
+
+    public MantaOperationContext setIteration(final long iteration) {
+        put(ITERATION_KEY, iteration);
+        return this;
+    }
+
+    public MantaMonitorMetrics getMetrics() {
+        return (MantaMonitorMetrics)get(METRICS_KEY);
+    }
+
+    public MantaOperationContext setMetrics(final MantaMonitorMetrics metrics) {
+        put(METRICS_KEY, requireNonNull(metrics));
+        return this;
+    }
+
+    /**
+     * @return maximum number of parts of a multipart upload to upload at once
+     */
+    public int getPartParallelism() {
+        return (Integer)getOrDefault(PART_PARALLELISM_KEY, 1);
+    }
+
+    public MantaOperationContext setPartParallelism(final int partParallelism) {
+        put(PART_PARALLELISM_KEY, partParallelism);
+        return this;
+    }
+
+    /**
+     * @return executor that uploads the parts of a multipart upload in
+     *         parallel or null if parts are uploaded one at a time
+     */
+    @Nullable
+    public Executor getPartExecutor() {
+        return (Executor)get(PART_EXECUTOR_KEY);
+    }
+
+    public MantaOperationContext setPartExecutor(final Executor partExecutor) {
+        put(PART_EXECUTOR_KEY, requireNonNull(partExecutor));
+        return this;
+    }
+
+    /**
+     * @return numbers of parts to split multipart uploads into, chosen from
+     *         by iteration, or null to use the default
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public List<Integer> getPartCounts() {
+        return (List<Integer>)get(PART_COUNTS_KEY);
+    }
+
+    public MantaOperationContext setPartCounts(final List<Integer> partCounts) {
+        put(PART_COUNTS_KEY, requireNonNull(partCounts));
+        return this;
+    }
+
+    /**
+     * @return sizes of the parts of multipart uploads, chosen from by
+     *         iteration, or null to use the default
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public List<Long> getPartSizes() {
+        return (List<Long>)get(PART_SIZES_KEY);
+    }
+
+    public MantaOperationContext setPartSizes(final List<Long> partSizes) {
+        put(PART_SIZES_KEY, requireNonNull(partSizes));
+        return this;
+    }
+
+    /**
+     * @return pool of pre-generated payloads or null if the runner does not
+     *         use pooled payloads
+     */
+    @Nullable
+    public PayloadPool getPayloadPool() {
+        return (PayloadPool)get(PAYLOAD_POOL_KEY);
+    }
+
+    public MantaOperationContext setPayloadPool(final PayloadPool payloadPool) {
+        put(PAYLOAD_POOL_KEY, requireNonNull(payloadPool));
+        return this;
+    }
+
+    /**
+     * @return seed the payload was generated from or null if the payload
+     *         contents can't be regenerated from a seed
+     */
+    @Nullable
+    public Long getPayloadSeed() {
+        return (Long)get(PAYLOAD_SEED_KEY);
+    }
+
+    public MantaOperationContext setPayloadSeed(final long seed) {
+        put(PAYLOAD_SEED_KEY, seed);
+        return this;
+    }
+
+    /**
+     * @return bytes uniquely identifying the test object, used to generate
+     *         its path
+     */
+    public byte[] getObjectId() {
+        return (byte[])get(OBJECT_ID_KEY);
+    }
+
+    public MantaOperationContext setObjectId(final byte[] objectId) {
+        put(OBJECT_ID_KEY, requireNonNull(objectId));
+        put(OBJECT_ID_AS_STRING_KEY, Hex.encodeHexString(objectId));
+        return this;
+    }
+
+    public String getObjectIdAsString() {
+        return (String)get(OBJECT_ID_AS_STRING_KEY);
+    }
+
+    /**
+     * @return checksum of the payload, calculated with the context's
+     *         {@link DigestAlgorithm}, or null if the payload was not hashed
+     *         before it was uploaded
+     */
+    @Nullable
     public byte[] getTestFileChecksum() {
         return (byte[])get(TEST_FILE_CHECKSUM_KEY);
     }
@@ -150,12 +327,34 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         return this;
     }
 
+    @Nullable
     public String getTestFileChecksumAsString() {
         return (String)get(TEST_FILE_CHECKSUM_AS_STRING_KEY);
     }
 
-    public Map<UUID, Integer> getResponseTimes() {
-        return (Map<UUID, Integer>)get(RESPONSE_TIMES_KEY);
+    /**
+     * @return checksum combined from the digests of each part of the payload
+     *         as it was uploaded, or null if the payload wasn't hashed by part
+     */
+    @Nullable
+    public byte[] getCompositeChecksum() {
+        return (byte[])get(COMPOSITE_CHECKSUM_KEY);
+    }
+
+    /**
+     * @return sizes of the parts the payload was uploaded in, in part order,
+     *         or null if the payload wasn't hashed by part
+     */
+    @Nullable
+    public long[] getUploadedPartSizes() {
+        return (long[])get(UPLOADED_PART_SIZES_KEY);
+    }
+
+    public MantaOperationContext setCompositeChecksum(final byte[] checksum,
+                                                      final long[] partSizes) {
+        put(COMPOSITE_CHECKSUM_KEY, requireNonNull(checksum));
+        put(UPLOADED_PART_SIZES_KEY, requireNonNull(partSizes));
+        return this;
     }
 
     public Stopwatch getStopWatch() {
@@ -181,6 +380,20 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         return (String)get(CHAIN_CLASS_NAME_KEY);
     }
 
+    public MantaOperationContext setRunnerName(final String runnerName) {
+        put(RUNNER_NAME_KEY, requireNonNull(runnerName));
+        return this;
+    }
+
+    /**
+     * @return name of the runner executing the chain or null if the chain
+     *         isn't executed by a runner
+     */
+    @Nullable
+    public String getRunnerName() {
+        return (String)get(RUNNER_NAME_KEY);
+    }
+
     public MantaOperationContext setTestType(final String testType) {
         put(TEST_TYPE_KEY, testType);
         return this;
@@ -199,4 +412,18 @@ public class MantaOperationContext extends ConcurrentHashMap implements Context
         put(EXCEPTION_KEY, exception);
         return this;
     }
+
+    /**
+     * @return name of the command that threw the exception the chain stopped
+     *         with or null if no command has thrown one
+     */
+    @Nullable
+    public String getFailedCommand() {
+        return (String)get(FAILED_COMMAND_KEY);
+    }
+
+    public MantaOperationContext setFailedCommand(final String failedCommand) {
+        put(FAILED_COMMAND_KEY, failedCommand);
+        return this;
+    }
 }
@@ -7,16 +7,22 @@
  */
 package com.joyent.manta.monitor;
 
-import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.RandomUtils;
-
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * {@link InputStream} implementation that generates random data.
+ * {@link InputStream} implementation that generates random alphabetic data
+ * (uniformly distributed over <code>[A-Za-z]</code>). When created with a
+ * seed, the stream is deterministic and two instances with the same seed and
+ * length will produce identical bytes.
+ *
+ * <p>The bytes are produced by a SplitMix64 generator that is indexed by the
+ * position in the stream, so the bulk read path fills the caller's buffer
+ * directly without allocating and {@link #skip(long)} is a constant time
+ * operation. Instances are not thread-safe and are expected to be owned by
+ * a single thread.</p>
  */
 public class RandomAlphabeticInputStream extends InputStream {
     /**
@@ -24,54 +30,147 @@ public class RandomAlphabeticInputStream extends InputStream {
      */
     private static final int EOF = -1;
 
+    /**
+     * Characters that the generated bytes are mapped onto.
+     */
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Number of random bits used to select each character. At 21 bits the
+     * bias introduced by mapping onto a 52 character alphabet is below
+     * 0.003%.
+     */
+    private static final int BITS_PER_CHAR = 21;
+
+    /**
+     * Bit mask for a single character's worth of random bits.
+     */
+    private static final long CHAR_MASK = (1L << BITS_PER_CHAR) - 1;
+
+    /**
+     * Number of characters generated from each 64-bit random value.
+     */
+    private static final int CHARS_PER_WORD = Long.SIZE / BITS_PER_CHAR;
+
+    /**
+     * SplitMix64 increment (the odd integer closest to 2^64 / phi).
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
     /**
      * Maximum number of bytes to generate.
      */
     private final long maximumBytes;
 
+    /**
+     * Seed from which all of the bytes in the stream are derived.
+     */
+    private final long seed;
+
     /**
      * Current generated byte count.
      */
-    private AtomicLong count = new AtomicLong(0L);
+    private long position;
 
     /**
      * Creates a new instance.
      * @param maximumBytes maximum number of random bytes in stream
      */
     public RandomAlphabeticInputStream(final long maximumBytes) {
+        this(maximumBytes, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a new instance that generates a repeatable sequence of bytes.
+     * @param maximumBytes maximum number of random bytes in stream
+     * @param seed seed used to generate the random bytes
+     */
+    public RandomAlphabeticInputStream(final long maximumBytes, final long seed) {
         this.maximumBytes = maximumBytes;
+        this.seed = seed;
     }
 
     @Override
-    public int read() throws IOException {
-        if (count.getAndIncrement() >= maximumBytes) {
+    public int read() {
+        if (position >= maximumBytes) {
             return EOF;
         }
 
-        return RandomUtils.nextInt(0, Integer.MAX_VALUE);
+        final long word = position / CHARS_PER_WORD;
+        final int charInWord = (int)(position % CHARS_PER_WORD);
+        position++;
+
+        return toChar(randomWord(word) >>> (BITS_PER_CHAR * charInWord));
     }
 
     @Override
     public int read(final byte[] b, final int off, final int len) {
-        if (count.get() >= maximumBytes) {
+        Objects.checkFromIndexSize(off, len, b.length);
+
+        if (len == 0) {
+            return 0;
+        }
+
+        if (position >= maximumBytes) {
             return EOF;
         }
 
-        final int bytesToRead;
+        final int bytesToRead = (int)Math.min(len, maximumBytes - position);
 
-        if (maximumBytes - count.get() >= len) {
-            bytesToRead = len;
-        } else {
-            bytesToRead = (int)(maximumBytes - count.get());
-        }
+        long word = position / CHARS_PER_WORD;
+        int charInWord = (int)(position % CHARS_PER_WORD);
+        long bits = randomWord(word) >>> (BITS_PER_CHAR * charInWord);
 
-        count.addAndGet(bytesToRead);
+        for (int i = off; i < off + bytesToRead; i++) {
+            if (charInWord == CHARS_PER_WORD) {
+                bits = randomWord(++word);
+                charInWord = 0;
+            }
 
-        final byte[] randomBytes = RandomStringUtils.randomAlphabetic(bytesToRead)
-                .getBytes(StandardCharsets.US_ASCII);
+            b[i] = toChar(bits);
+            bits >>>= BITS_PER_CHAR;
+            charInWord++;
+        }
 
-        System.arraycopy(randomBytes, 0, b, off, bytesToRead);
+        position += bytesToRead;
 
         return bytesToRead;
     }
+
+    @Override
+    public long skip(final long n) {
+        if (n <= 0) {
+            return 0;
+        }
+
+        final long skipped = Math.min(n, Math.max(0, maximumBytes - position));
+        position += skipped;
+
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int)Math.min(Integer.MAX_VALUE, Math.max(0, maximumBytes - position));
+    }
+
+    /**
+     * Maps the lowest {@link #BITS_PER_CHAR} bits of the value onto the
+     * alphabet using a multiply and shift instead of a modulo.
+     */
+    private static byte toChar(final long bits) {
+        return ALPHABET[(int)(((bits & CHAR_MASK) * ALPHABET.length) >>> BITS_PER_CHAR)];
+    }
+
+    /**
+     * Calculates the nth output of a SplitMix64 generator for our seed.
+     */
+    private long randomWord(final long index) {
+        long z = seed + (index + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Class that maps the name of the Manta server that served a response, as
+ * reported in its <code>x-server-name</code> header, to the value of a
+ * <code>server</code> metric label. So that the number of time series stays
+ * bounded, only the servers that have served the most responses get a label
+ * of their own and every other server is labelled {@value #OTHER}.
+ *
+ * <p>The servers that are labelled are chosen again every
+ * {@value #REFRESH_INTERVAL} responses. At each refresh the counts from
+ * earlier windows are halved, so that a server that has stopped serving many
+ * responses is displaced by those that have taken its place, and servers
+ * that didn't serve any responses in the last window are forgotten. A server
+ * that drops out of the most frequent keeps the series it has already
+ * recorded, but new observations for it are labelled {@value #OTHER}.</p>
+ */
+public class ServerLabels {
+    /**
+     * Name of the response header that identifies the server.
+     */
+    public static final String SERVER_NAME_HEADER = "x-server-name";
+
+    /**
+     * Label for the servers that aren't among the most frequent.
+     */
+    public static final String OTHER = "other";
+
+    /**
+     * Label for responses that didn't identify their server.
+     */
+    public static final String UNKNOWN = "unknown";
+
+    /**
+     * Default number of servers that get a label of their own.
+     */
+    public static final int DEFAULT_MAX_SERVERS = 20;
+
+    /**
+     * Number of responses after which the labelled servers are chosen again.
+     */
+    static final long REFRESH_INTERVAL = 1_000L;
+
+    /**
+     * Number of times as many servers as are labelled that responses are
+     * counted for, so that a flood of distinct names can't grow the counts
+     * without bound.
+     */
+    private static final int TRACKED_SERVERS_FACTOR = 16;
+
+    private final int maxServers;
+    private final Map<String, Count> counts = new ConcurrentHashMap<>();
+    private final AtomicLong responses = new AtomicLong();
+    private volatile Set<String> labelled = Collections.emptySet();
+
+    public ServerLabels() {
+        this(DEFAULT_MAX_SERVERS);
+    }
+
+    public ServerLabels(final int maxServers) {
+        Validate.isTrue(maxServers >= 0, "Maximum number of servers must not be negative");
+        this.maxServers = maxServers;
+    }
+
+    /**
+     * Finds the label for the server that sent a response.
+     *
+     * @param headers headers of the response, or null if there were none
+     * @return server label
+     */
+    public String labelFor(@Nullable final MantaHttpHeaders headers) {
+        if (headers == null) {
+            return UNKNOWN;
+        }
+
+        return labelFor(headers.getFirstHeaderStringValue(SERVER_NAME_HEADER));
+    }
+
+    /**
+     * Counts a response from a server and finds the label for it.
+     *
+     * @param serverName name of the server, or null if it isn't known
+     * @return server label
+     */
+    public String labelFor(@Nullable final String serverName) {
+        if (StringUtils.isBlank(serverName)) {
+            return UNKNOWN;
+        }
+
+        final String name = serverName.trim();
+        Count count = counts.get(name);
+
+        if (count == null && counts.size() < maxServers * TRACKED_SERVERS_FACTOR) {
+            count = counts.computeIfAbsent(name, key -> new Count());
+        }
+
+        if (count != null) {
+            count.window.increment();
+        }
+
+        final boolean refreshDue = responses.incrementAndGet() % REFRESH_INTERVAL == 0;
+        Set<String> current = labelled;
+
+        /* Servers are labelled as soon as they are seen until there are
+         * enough of them, after which they have to earn their place. */
+        if (refreshDue) {
+            current = refresh(true);
+        } else if (current.size() < maxServers && count != null && !current.contains(name)) {
+            current = refresh(false);
+        }
+
+        return current.contains(name) ? name : OTHER;
+    }
+
+    /**
+     * @return the servers that currently get a label of their own
+     */
+    public Set<String> getLabelledServers() {
+        return labelled;
+    }
+
+    /**
+     * Chooses the servers to label from those that have served the most
+     * responses.
+     *
+     * @param endWindow true to decay the counts and forget the servers that
+     *                  weren't seen since the last refresh
+     * @return the servers that are now labelled
+     */
+    private synchronized Set<String> refresh(final boolean endWindow) {
+        if (endWindow) {
+            for (Map.Entry<String, Count> entry : counts.entrySet()) {
+                final Count count = entry.getValue();
+                final long seen = count.window.sumThenReset();
+
+                if (seen == 0) {
+                    counts.remove(entry.getKey(), count);
+                } else {
+                    count.decayed = count.decayed / 2 + seen;
+                }
+            }
+        }
+
+        /* The scores are read once so that responses counted while sorting
+         * can't change the order. */
+        final Set<String> refreshed = counts.entrySet().stream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().score()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(maxServers)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+
+        labelled = Collections.unmodifiableSet(refreshed);
+
+        return labelled;
+    }
+
+    /**
+     * Responses served by a server in the current window and the decayed
+     * total of those served in earlier windows.
+     */
+    private static final class Count {
+        private final LongAdder window = new LongAdder();
+
+        /* Only read and written while holding the lock of the enclosing
+         * instance. */
+        private long decayed;
+
+        private long score() {
+            return decayed + window.sum();
+        }
+    }
+}
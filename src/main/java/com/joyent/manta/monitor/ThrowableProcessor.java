@@ -46,16 +46,26 @@ public class ThrowableProcessor {
         public final Throwable rootCause;
         public final Request request;
         public final List<Throwable> throwableAndCauses;
+        @Nullable
+        public final MantaHttpHeaders mantaHeaders;
 
         public ProcessedResults(final Throwable throwable,
                                 final Throwable rootCause,
                                 final Request request,
                                 final List<Throwable> throwableAndCauses) {
+            this(throwable, rootCause, request, throwableAndCauses, null);
+        }
+
+        public ProcessedResults(final Throwable throwable,
+                                final Throwable rootCause,
+                                final Request request,
+                                final List<Throwable> throwableAndCauses,
+                                @Nullable final MantaHttpHeaders mantaHeaders) {
             this.throwable = throwable;
             this.rootCause = rootCause;
             this.request = request;
             this.throwableAndCauses = throwableAndCauses;
-
+            this.mantaHeaders = mantaHeaders;
         }
     }
 
@@ -89,7 +99,7 @@ public class ThrowableProcessor {
         final MantaHttpHeaders mantaHeaders = findFirstMantaHeaderObject(throwables);
         final Request request = requestFactory.build(path, mantaHeaders, inputThrowable);
         final Throwable rootCause = rootCause(throwables);
-        return new ProcessedResults(inputThrowable, rootCause, request, throwables);
+        return new ProcessedResults(inputThrowable, rootCause, request, throwables, mantaHeaders);
     }
 
     private static Map<String, String> aggregateAllExceptionContext(final List<Throwable> throwables) {
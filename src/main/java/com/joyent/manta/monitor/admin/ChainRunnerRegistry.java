@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.admin;
+
+import com.joyent.manta.monitor.chains.ChainRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registry of the chain runners started by the application, keyed by the
+ * runner names given in the configuration.
+ */
+public class ChainRunnerRegistry {
+    private final Map<String, ChainRunner> runners = new ConcurrentSkipListMap<>();
+
+    /**
+     * Adds a runner to the registry.
+     *
+     * @param runner runner to add
+     */
+    public void register(final ChainRunner runner) {
+        final ChainRunner existing = runners.putIfAbsent(runner.getName(), runner);
+
+        if (existing != null && existing != runner) {
+            throw new IllegalArgumentException(String.format("A runner named [%s] "
+                    + "is already registered", runner.getName()));
+        }
+    }
+
+    /**
+     * @param name name of the runner
+     * @return the runner or null if no runner has that name
+     */
+    public ChainRunner get(final String name) {
+        return runners.get(name);
+    }
+
+    /**
+     * @return all of the registered runners ordered by name
+     */
+    public Collection<ChainRunner> getAll() {
+        return new ArrayList<>(runners.values());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.admin;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.joyent.manta.monitor.chains.ChainRunner;
+
+/**
+ * Snapshot of the state of a {@link ChainRunner} as reported by the admin API.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class RunnerStatus {
+    private final String name;
+    private final String chain;
+    private final boolean running;
+    private final boolean paused;
+    private final boolean openLoop;
+    private final int threads;
+    private final int inFlight;
+    private final Integer concurrencyLimit;
+    private final Boolean drained;
+
+    private RunnerStatus(final ChainRunner runner, final Boolean drained) {
+        this.name = runner.getName();
+        this.chain = runner.getChainName();
+        this.running = runner.isRunning();
+        this.paused = runner.isPaused();
+        this.openLoop = runner.isOpenLoop();
+        this.threads = runner.getThreads();
+        this.inFlight = runner.getInFlight();
+        this.concurrencyLimit = runner.getConcurrencyLimit();
+        this.drained = drained;
+    }
+
+    /**
+     * @param runner runner to report on
+     * @return the current state of the runner
+     */
+    public static RunnerStatus of(final ChainRunner runner) {
+        return new RunnerStatus(runner, null);
+    }
+
+    /**
+     * @param runner runner that was drained
+     * @param drained true if the runner finished draining before the timeout
+     * @return the current state of the runner and the outcome of the drain
+     */
+    public static RunnerStatus ofDrain(final ChainRunner runner, final boolean drained) {
+        return new RunnerStatus(runner, drained);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getChain() {
+        return chain;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isOpenLoop() {
+        return openLoop;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public Integer getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public Boolean getDrained() {
+        return drained;
+    }
+}
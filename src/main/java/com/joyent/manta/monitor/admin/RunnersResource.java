@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.admin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joyent.manta.monitor.chains.ChainRunner;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admin API resource that lists the chain runners and resizes, pauses,
+ * resumes and drains them while they run. The resource is served by the same
+ * connector as the metrics, so when TLS is enabled requests must present a
+ * client certificate trusted by the truststore.
+ */
+@Path("/admin/runners")
+@Produces(MediaType.APPLICATION_JSON)
+public class RunnersResource {
+    /**
+     * Responses are serialized here rather than by a Jersey entity provider
+     * because the server doesn't register one for JSON.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ChainRunnerRegistry registry;
+
+    @Inject
+    public RunnersResource(final ChainRunnerRegistry registry) {
+        this.registry = registry;
+    }
+
+    @GET
+    public String list() {
+        final List<RunnerStatus> statuses = new ArrayList<>();
+
+        for (ChainRunner runner : registry.getAll()) {
+            statuses.add(RunnerStatus.of(runner));
+        }
+
+        return toJson(statuses);
+    }
+
+    @GET
+    @Path("{name}")
+    public String get(@PathParam("name") final String name) {
+        return toJson(RunnerStatus.of(find(name)));
+    }
+
+    @POST
+    @Path("{name}/resize")
+    public String resize(@PathParam("name") final String name,
+                         @QueryParam("threads") final Integer threads) {
+        if (threads == null || threads < 1) {
+            throw new BadRequestException("The threads parameter must be at least 1");
+        }
+
+        final ChainRunner runner = find(name);
+        runner.resize(threads);
+
+        return toJson(RunnerStatus.of(runner));
+    }
+
+    @POST
+    @Path("{name}/pause")
+    public String pause(@PathParam("name") final String name) {
+        final ChainRunner runner = find(name);
+        runner.pause();
+
+        return toJson(RunnerStatus.of(runner));
+    }
+
+    @POST
+    @Path("{name}/resume")
+    public String resume(@PathParam("name") final String name) {
+        final ChainRunner runner = find(name);
+        runner.resume();
+
+        return toJson(RunnerStatus.of(runner));
+    }
+
+    @POST
+    @Path("{name}/drain")
+    public String drain(@PathParam("name") final String name,
+                        @QueryParam("timeoutMillis") @DefaultValue("60000") final long timeoutMillis)
+            throws InterruptedException {
+        if (timeoutMillis < 0) {
+            throw new BadRequestException("The timeoutMillis parameter must not be negative");
+        }
+
+        final ChainRunner runner = find(name);
+        final boolean drained = runner.drain(timeoutMillis);
+
+        return toJson(RunnerStatus.ofDrain(runner, drained));
+    }
+
+    private ChainRunner find(final String name) {
+        final ChainRunner runner = registry.get(name);
+
+        if (runner == null) {
+            throw new NotFoundException(String.format("No runner named [%s]", name));
+        }
+
+        return runner;
+    }
+
+    private static String toJson(final Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerErrorException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.config.ConcurrencyControl;
+import com.joyent.manta.monitor.latency.LatencyRecorder;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class that limits how many of a runner's threads execute chains at once and
+ * adjusts that limit using additive increase / multiplicative decrease. At
+ * each adjustment the p99 latency and error rate of the executions finished
+ * since the last adjustment are compared against the configured objectives:
+ * if both are met the limit is raised by a fixed step, otherwise it is
+ * lowered by a fixed factor. Running continuously, the limit settles around
+ * the highest concurrency that the region sustains within its objectives.
+ */
+class AimdConcurrencyController {
+    private static final Logger LOG = LoggerFactory.getLogger(AimdConcurrencyController.class);
+
+    /**
+     * Name of the decision made when the limit is raised.
+     */
+    static final String INCREASE = "increase";
+
+    /**
+     * Name of the decision made when the limit is lowered.
+     */
+    static final String DECREASE = "decrease";
+
+    /**
+     * Name of the decision made when too few executions finished to decide.
+     */
+    static final String HOLD = "hold";
+
+    private final String chainName;
+    private final ConcurrencyControl config;
+    private final MantaMonitorMetrics metrics;
+    private final LatencyRecorder latencies = new LatencyRecorder(0L);
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Latencies and failures accumulated across adjustments until there are
+     * enough samples to decide on. Only used by the thread that adjusts.
+     */
+    private final Histogram window = new Histogram(3);
+    private long windowFailures;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private int maxConcurrency;
+    private int limit;
+    private int active;
+
+    AimdConcurrencyController(final String chainName,
+                              final ConcurrencyControl config,
+                              final int maxConcurrency,
+                              final MantaMonitorMetrics metrics) {
+        this.chainName = chainName;
+        this.config = config;
+        this.maxConcurrency = maxConcurrency;
+        this.metrics = metrics;
+        this.limit = Math.min(maxConcurrency, config.getInitialConcurrency());
+
+        metrics.getConcurrencyLimit().labels(chainName).set(limit);
+    }
+
+    /**
+     * Waits for the number of executing threads to fall below the limit.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if the caller may execute the chain and must then call
+     *         {@link #release(long, boolean)}, false if the wait timed out
+     * @throws InterruptedException thrown when the thread is interrupted while waiting
+     */
+    boolean acquire(final long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        lock.lock();
+        try {
+            while (active >= limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+
+            active++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the outcome of an execution and frees its place for another.
+     *
+     * @param latencyNanos latency of the execution
+     * @param success true if the execution completed without an error
+     */
+    void release(final long latencyNanos, final boolean success) {
+        latencies.record(latencyNanos);
+
+        if (!success) {
+            failures.increment();
+        }
+
+        lock.lock();
+        try {
+            active--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the highest limit that may be set, lowering the current limit
+     * if it is above it.
+     *
+     * @param newMaxConcurrency new highest limit
+     */
+    void setMaxConcurrency(final int newMaxConcurrency) {
+        final int newLimit;
+
+        lock.lock();
+        try {
+            maxConcurrency = newMaxConcurrency;
+            limit = Math.max(1, Math.min(limit, newMaxConcurrency));
+            newLimit = limit;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        metrics.getConcurrencyLimit().labels(chainName).set(newLimit);
+    }
+
+    /**
+     * Adjusts the limit from the executions that finished since the last
+     * adjustment.
+     *
+     * @return the decision that was made
+     */
+    String adjust() {
+        window.add(latencies.snapshot().getInterval());
+        windowFailures += failures.sumThenReset();
+
+        final long samples = window.getTotalCount();
+        final String decision;
+        final int newLimit;
+
+        lock.lock();
+        try {
+            if (samples == 0 || samples < config.getMinSamples()) {
+                decision = HOLD;
+                newLimit = limit;
+            } else {
+                final long p99Millis = TimeUnit.MICROSECONDS.toMillis(window.getValueAtPercentile(99.0));
+                final double errorRate = (double)windowFailures / samples;
+
+                if (p99Millis > config.getLatencySloMillis() || errorRate > config.getMaxErrorRate()) {
+                    decision = DECREASE;
+                    newLimit = Math.max(config.getMinConcurrency(),
+                            (int)(limit * config.getMultiplicativeDecrease()));
+                } else {
+                    decision = INCREASE;
+                    newLimit = Math.min(maxConcurrency, limit + config.getAdditiveIncrease());
+                }
+
+                LOG.debug("[{}] p99={}ms errorRate={} samples={} limit {} -> {}",
+                        chainName, p99Millis, errorRate, samples, limit, newLimit);
+
+                window.reset();
+                windowFailures = 0;
+            }
+
+            limit = newLimit;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        metrics.getConcurrencyLimit().labels(chainName).set(newLimit);
+        metrics.getConcurrencyDecisions().labels(chainName, decision).inc();
+
+        return decision;
+    }
+}
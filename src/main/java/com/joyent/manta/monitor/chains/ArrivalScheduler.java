@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.monitor.config.ArrivalProcess;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link Runnable} that calculates the intended start time of each chain
+ * execution from a target rate and hands it to a dispatcher when that time
+ * arrives. The schedule doesn't depend on when previous executions finish,
+ * so a slow Manta doesn't slow down the rate of requests (avoiding
+ * coordinated omission). If the scheduler itself falls behind, every missed
+ * start is still dispatched with its original intended start time.
+ */
+class ArrivalScheduler implements Runnable {
+    /**
+     * Longest time to sleep before checking if the scheduler has been stopped.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double opsPerSecond;
+    private final ArrivalProcess arrivalProcess;
+    private final BooleanSupplier running;
+    private final LongConsumer dispatcher;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param opsPerSecond mean number of executions to start per second
+     * @param arrivalProcess spacing of the start times
+     * @param running supplier that returns false once the scheduler should stop
+     * @param dispatcher consumer that starts an execution, passed its intended
+     *                   start time in {@link System#nanoTime()} units
+     */
+    ArrivalScheduler(final double opsPerSecond,
+                     final ArrivalProcess arrivalProcess,
+                     final BooleanSupplier running,
+                     final LongConsumer dispatcher) {
+        this.opsPerSecond = opsPerSecond;
+        this.arrivalProcess = arrivalProcess;
+        this.running = running;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void run() {
+        final Random random = ThreadLocalRandom.current();
+        long intendedStart = System.nanoTime();
+
+        while (running.getAsBoolean()) {
+            final long delay = intendedStart - System.nanoTime();
+
+            if (delay > 0) {
+                LockSupport.parkNanos(Math.min(delay, MAX_PARK_NANOS));
+                continue;
+            }
+
+            dispatcher.accept(intendedStart);
+            intendedStart += arrivalProcess.nextIntervalNanos(opsPerSecond, random);
+        }
+    }
+}
@@ -8,38 +8,94 @@
 package com.joyent.manta.monitor.chains;
 
 import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
 import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.config.ConcurrencyControl;
+import com.joyent.manta.monitor.config.PayloadMode;
 import com.joyent.manta.monitor.config.Runner;
+import com.joyent.manta.monitor.config.ThreadMode;
 import com.joyent.manta.monitor.functions.GeneratePathBasedOnSHA256;
+import com.joyent.manta.monitor.latency.LatencyRecorders;
+import com.joyent.manta.monitor.payloads.PayloadPool;
+import com.joyent.manta.monitor.sizes.SizeDistribution;
 import io.prometheus.client.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import static com.joyent.manta.client.MantaClient.SEPARATOR;
 
 /**
  * Class that executes the {@link MantaOperationsChain} threads.
+ *
+ * <p>When the runner is configured with a maximum number of chains in
+ * flight, chains are executed asynchronously instead: a dispatcher thread
+ * keeps up to that many executions in flight, and the runner has that many
+ * threads for their commands to block on, so that no execution waits behind
+ * another for a thread.</p>
+ *
+ * <p>While running, the number of threads can be changed and the runner can
+ * be paused, resumed and drained of in flight executions. Looping threads
+ * check whether they are still wanted before every execution, so changes
+ * take effect without interrupting a chain part way through.</p>
  */
 public class ChainRunner {
     private static final Logger LOG = LoggerFactory.getLogger(ChainRunner.class);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Longest time a thread waits for the concurrency controller to let it
+     * execute a chain before checking whether the runner has been stopped.
+     */
+    private static final long PERMIT_WAIT_MILLIS = 1000L;
 
     private final MantaOperationsChain chain;
     private final String name;
-    private final int threads;
     private final MantaClient client;
-    private final ExecutorService executorService;
+    private final ThreadPoolExecutor executorService;
     private final Runner runnerConfig;
     private final String testType;
+    private final PayloadPool payloadPool;
+    private final SizeDistribution sizeDistribution;
+    private final MantaMonitorMetrics metrics;
+    private final Thread.UncaughtExceptionHandler exceptionHandler;
+    private final AimdConcurrencyController concurrencyController;
+    private final ExecutorService partExecutor;
+    private ScheduledExecutorService concurrencyAdjuster;
+    private final AtomicLong iterations = new AtomicLong();
 
     private volatile boolean running = true;
 
+    /**
+     * Guards the thread counts and the paused flag, and is signalled
+     * whenever any of them change.
+     */
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition stateChanged = stateLock.newCondition();
+    private int threads;
+    private int liveWorkers;
+    private int inFlight;
+    private boolean paused;
+
+    /**
+     * Loop run by each thread in closed loop mode, set when the runner is
+     * started.
+     */
+    private volatile Runnable worker;
+
     private final Map<String, Histogram> requestPutHistogramsMap;
 
     public ChainRunner(final MantaOperationsChain chain,
@@ -47,23 +103,62 @@ public class ChainRunner {
                        final MantaClient client,
                        final Thread.UncaughtExceptionHandler exceptionHandler,
                        final Map<String, Histogram> requestPutHistogramsMap,
-                       final String testType) {
+                       final String testType,
+                       final MantaMonitorMetrics metrics) {
         this.chain = chain;
         this.name = runnerConfig.getName();
-        this.threads = runnerConfig.getThreads();
+        /* Each execution in flight runs one command at a time, so one thread
+         * per execution is enough for none of them to queue. */
+        this.threads = runnerConfig.getMaxInFlightChains() != null
+                ? runnerConfig.getMaxInFlightChains() : runnerConfig.getThreads();
         this.client = client;
         this.runnerConfig = runnerConfig;
         this.requestPutHistogramsMap = requestPutHistogramsMap;
         this.testType = testType;
+        this.payloadPool = buildPayloadPool(runnerConfig);
+        this.sizeDistribution = runnerConfig.getSizeDistribution();
+        this.metrics = metrics;
+        this.exceptionHandler = exceptionHandler;
 
-        final ThreadGroup threadGroup = new ThreadGroup(name);
-        threadGroup.setDaemon(true);
+        final Long expectedIntervalMillis = runnerConfig.getExpectedIntervalMillis();
+
+        /* Scheduled executions are timed from their intended start, which
+         * already corrects for coordinated omission, so correcting them again
+         * would count the delays twice. */
+        if (expectedIntervalMillis != null && runnerConfig.getTargetOpsPerSecond() != null) {
+            throw new IllegalArgumentException(String.format("Runner [%s] can't "
+                    + "use both expectedIntervalMillis and targetOpsPerSecond",
+                    runnerConfig.getName()));
+        }
 
-         final ThreadFactory threadFactory = new ChainThreadFactory(
-                 threadGroup, name, exceptionHandler);
+        if (expectedIntervalMillis != null) {
+            metrics.getLatencyRecorders().setExpectedInterval(chain.getClass().getSimpleName(),
+                    TimeUnit.MILLISECONDS.toNanos(expectedIntervalMillis));
+        }
+
+        this.concurrencyController = buildConcurrencyController(chain, runnerConfig, metrics);
 
-        this.executorService = Executors.newFixedThreadPool(
-                threads, threadFactory);
+        if (runnerConfig.getMaxInFlightChains() != null
+                && (runnerConfig.getTargetOpsPerSecond() != null || concurrencyController != null)) {
+            throw new IllegalArgumentException(String.format("Runner [%s] can't "
+                    + "use maxInFlightChains with targetOpsPerSecond or concurrencyControl",
+                    runnerConfig.getName()));
+        }
+
+        final ThreadFactory threadFactory = buildThreadFactory(
+                runnerConfig, name, exceptionHandler);
+
+        this.executorService = new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+
+        /* Part uploads are bounded by each chain execution's part
+         * parallelism, so the pool itself doesn't need to be. */
+        if (runnerConfig.getPartParallelism() > 1) {
+            this.partExecutor = Executors.newCachedThreadPool(buildThreadFactory(
+                    runnerConfig, name + "-parts", exceptionHandler));
+        } else {
+            this.partExecutor = null;
+        }
     }
 
     public void start() {
@@ -72,48 +167,608 @@ public class ChainRunner {
                     + "stopped - restart unsupported");
         }
 
-        LOG.info("Starting {} threads to run [{}]", threads, name);
+        LOG.info("Starting {} threads to run [{}]", getThreads(), name);
 
-        final Callable<Void> callable = () -> {
-            final String baseDirOrBucket = buildBaseDirOrBucket();
-            final Function<byte[], String> pathGenerator = new GeneratePathBasedOnSHA256(baseDirOrBucket);
+        final String baseDirOrBucket = buildBaseDirOrBucket();
+        final Function<byte[], String> pathGenerator = new GeneratePathBasedOnSHA256(baseDirOrBucket);
+        final Double targetOpsPerSecond = runnerConfig.getTargetOpsPerSecond();
 
-            while (running) {
-                final MantaOperationContext context = new MantaOperationContext()
-                        .setMantaClient(client)
-                        .setFilePathGenerationFunction(pathGenerator)
-                        .setMinFileSize(runnerConfig.getMinFileSize())
-                        .setMaxFileSize(runnerConfig.getMaxFileSize())
-                        .setChainClassNameKey(chain.getClass().getSimpleName())
-                        .setRequestPutHistograms(requestPutHistogramsMap)
-                        .setTestBaseDirOrBucket(baseDirOrBucket)
-                        .setTestType(testType);
-
-                chain.execute(context);
-            }
+        if (targetOpsPerSecond != null) {
+            startScheduler(targetOpsPerSecond, baseDirOrBucket, pathGenerator);
+            return;
+        }
 
-            return null;
+        final Integer maxInFlightChains = runnerConfig.getMaxInFlightChains();
+
+        if (maxInFlightChains != null) {
+            startAsyncDispatcher(baseDirOrBucket, pathGenerator);
+            return;
+        }
+
+        if (concurrencyController != null) {
+            startConcurrencyAdjuster();
+        }
+
+        worker = () -> {
+            boolean exited = false;
+
+            try {
+                while (beginExecution()) {
+                    try {
+                        executeOnce(baseDirOrBucket, pathGenerator);
+                    } finally {
+                        endExecution();
+                    }
+                }
+
+                exited = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (!exited) {
+                    workerExited();
+                }
+            }
         };
 
         // Start up multiple testing threads so that we reach the number in
         // the configuration
-        for (int i = 0; i < threads; i++) {
-            executorService.submit(callable);
+        stateLock.lock();
+        try {
+            addWorkers(threads);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void executeOnce(final String baseDirOrBucket,
+                             final Function<byte[], String> pathGenerator) throws InterruptedException {
+        if (concurrencyController == null) {
+            runChain(baseDirOrBucket, pathGenerator, System.nanoTime());
+            return;
+        }
+
+        /* We wait for a limited time so that a stopped or paused runner's
+         * threads don't wait forever. */
+        if (!concurrencyController.acquire(PERMIT_WAIT_MILLIS)) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            success = runChain(baseDirOrBucket, pathGenerator, start);
+        } finally {
+            concurrencyController.release(System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Submits more looping threads. Must be called holding the state lock.
+     */
+    private void addWorkers(final int count) {
+        for (int i = 0; i < count; i++) {
+            liveWorkers++;
+            executorService.execute(worker);
+        }
+    }
+
+    /**
+     * Waits while the runner is paused and then marks an execution as in
+     * flight.
+     *
+     * @return false if the calling thread should exit because the runner was
+     *         stopped or has more threads than it now wants, in which case
+     *         the thread is no longer counted as live
+     * @throws InterruptedException thrown when the thread is interrupted while waiting
+     */
+    private boolean beginExecution() throws InterruptedException {
+        stateLock.lock();
+        try {
+            while (running && liveWorkers <= threads) {
+                if (!paused) {
+                    inFlight++;
+                    return true;
+                }
+
+                /* The wait is limited so that a stopped runner's threads
+                 * exit even though stopping doesn't signal. */
+                stateChanged.await(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            /* The count is lowered before the lock is released so that only
+             * as many threads exit as there are too many. */
+            liveWorkers--;
+            stateChanged.signalAll();
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void endExecution() {
+        stateLock.lock();
+        try {
+            inFlight--;
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void workerExited() {
+        stateLock.lock();
+        try {
+            liveWorkers--;
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a thread that dispatches chain executions to the executor at the
+     * configured rate instead of having each thread loop. Executions that
+     * can't start within the configured maximum delay of their intended start
+     * time are dropped, as are executions that would wait behind more than
+     * that delay's worth of already queued executions.
+     */
+    private void startScheduler(final double targetOpsPerSecond,
+                                final String baseDirOrBucket,
+                                final Function<byte[], String> pathGenerator) {
+        final String chainName = chain.getClass().getSimpleName();
+        final long maxStartDelayNanos = TimeUnit.MILLISECONDS.toNanos(
+                runnerConfig.getMaxStartDelayMillis());
+        final long delayBacklog = (long)Math.ceil(targetOpsPerSecond
+                * runnerConfig.getMaxStartDelayMillis() / 1000.0);
+        final AtomicLong queued = new AtomicLong();
+
+        final ArrivalScheduler scheduler = new ArrivalScheduler(targetOpsPerSecond,
+                runnerConfig.getArrivalProcess(), () -> running, intendedStart -> {
+            if (isPaused()) {
+                return;
+            }
+
+            if (queued.get() >= getThreads() + delayBacklog) {
+                metrics.getDroppedStarts().labels(chainName, "backlog").inc();
+                return;
+            }
+
+            queued.incrementAndGet();
+            executorService.execute(() -> {
+                queued.decrementAndGet();
+
+                final long lag = System.nanoTime() - intendedStart;
+
+                if (lag > maxStartDelayNanos) {
+                    metrics.getDroppedStarts().labels(chainName, "overdue").inc();
+                    return;
+                }
+
+                metrics.getDispatchLag().labels(chainName).observe(lag / NANOS_PER_SECOND);
+
+                if (!beginDispatchedExecution()) {
+                    return;
+                }
+
+                try {
+                    runChain(baseDirOrBucket, pathGenerator, intendedStart);
+                } finally {
+                    endExecution();
+                }
+            });
+        });
+
+        LOG.info("Scheduling {} {} executions per second of [{}]",
+                targetOpsPerSecond, runnerConfig.getArrivalProcess(), name);
+
+        final Thread schedulerThread = new Thread(scheduler, name + "-scheduler");
+        schedulerThread.setDaemon(true);
+        schedulerThread.setUncaughtExceptionHandler(exceptionHandler);
+        schedulerThread.start();
+    }
+
+    /**
+     * Marks an execution dispatched by the scheduler as in flight unless the
+     * runner has been stopped or paused since it was queued.
+     */
+    private boolean beginDispatchedExecution() {
+        stateLock.lock();
+        try {
+            if (!running || paused) {
+                return false;
+            }
+
+            inFlight++;
+            return true;
+        } finally {
+            stateLock.unlock();
         }
     }
 
+    /**
+     * Starts a thread that keeps as many chain executions in flight as the
+     * runner has threads, starting a new one whenever one finishes. The
+     * commands block one of the runner's threads while they run, which with
+     * virtual threads costs little more than a callback would.
+     */
+    private void startAsyncDispatcher(final String baseDirOrBucket,
+                                      final Function<byte[], String> pathGenerator) {
+        final Runnable dispatcher = () -> {
+            try {
+                while (beginAsyncExecution()) {
+                    final long start = System.nanoTime();
+                    final CompletableFuture<Boolean> result;
+
+                    try {
+                        result = chain.executeAsync(
+                                buildContext(baseDirOrBucket, pathGenerator), executorService);
+                    } catch (RuntimeException e) {
+                        endExecution();
+                        throw e;
+                    }
+
+                    result.whenComplete((success, e) -> {
+                        try {
+                            recordChainLatency(System.nanoTime() - start);
+                        } finally {
+                            endExecution();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        LOG.info("Keeping up to {} executions of [{}] in flight", getThreads(), name);
+
+        final Thread dispatcherThread = new Thread(dispatcher, name + "-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.setUncaughtExceptionHandler(exceptionHandler);
+        dispatcherThread.start();
+    }
+
+    /**
+     * Waits until the runner isn't paused and fewer executions are in flight
+     * than it has threads, and then marks an execution as in flight.
+     *
+     * @return false if the runner was stopped
+     * @throws InterruptedException thrown when the thread is interrupted while waiting
+     */
+    private boolean beginAsyncExecution() throws InterruptedException {
+        stateLock.lock();
+        try {
+            while (running) {
+                if (!paused && inFlight < threads) {
+                    inFlight++;
+                    return true;
+                }
+
+                stateChanged.await(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void startConcurrencyAdjuster() {
+        final long interval = runnerConfig.getConcurrencyControl().getAdjustIntervalMillis();
+
+        concurrencyAdjuster = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, name + "-concurrency");
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler(exceptionHandler);
+            return thread;
+        });
+
+        concurrencyAdjuster.scheduleWithFixedDelay(concurrencyController::adjust,
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the chain once and records its latency from the time it was
+     * intended to start, which for looping threads is when it did start.
+     *
+     * @return true if the chain completed without an error
+     */
+    private boolean runChain(final String baseDirOrBucket,
+                          final Function<byte[], String> pathGenerator,
+                          final long intendedStartNanos) {
+        final boolean success = chain.execute(buildContext(baseDirOrBucket, pathGenerator));
+        recordChainLatency(System.nanoTime() - intendedStartNanos);
+
+        return success;
+    }
+
+    private void recordChainLatency(final long latency) {
+        final String chainName = chain.getClass().getSimpleName();
+
+        metrics.getChainLatency().labels(chainName, name).observe(latency / NANOS_PER_SECOND);
+        metrics.getLatencyRecorders().get(chainName, LatencyRecorders.CHAIN).record(latency);
+    }
+
+    private MantaOperationContext buildContext(final String baseDirOrBucket,
+                                               final Function<byte[], String> pathGenerator) {
+        final MantaOperationContext context = new MantaOperationContext()
+                .setMantaClient(client)
+                .setFilePathGenerationFunction(pathGenerator)
+                .setSizeDistribution(sizeDistribution)
+                .setPayloadMode(runnerConfig.getPayloadMode())
+                .setDigestAlgorithm(runnerConfig.getDigestAlgorithm())
+                .setVerificationPolicy(runnerConfig.getVerification())
+                .setIteration(iterations.getAndIncrement())
+                .setMetrics(metrics)
+                .setChainClassNameKey(chain.getClass().getSimpleName())
+                .setRunnerName(name)
+                .setRequestPutHistograms(requestPutHistogramsMap)
+                .setTestBaseDirOrBucket(baseDirOrBucket)
+                .setTestType(testType);
+
+        if (payloadPool != null) {
+            context.setPayloadPool(payloadPool);
+        }
+
+        if (partExecutor != null) {
+            context.setPartParallelism(runnerConfig.getPartParallelism())
+                   .setPartExecutor(partExecutor);
+        }
+
+        if (runnerConfig.getPartCounts() != null) {
+            context.setPartCounts(runnerConfig.getPartCounts());
+        }
+
+        if (runnerConfig.getPartSizes() != null) {
+            context.setPartSizes(runnerConfig.getPartSizes());
+        }
+
+        return context;
+    }
+
     public void stop() {
         this.running = false;
+
+        if (concurrencyAdjuster != null) {
+            concurrencyAdjuster.shutdownNow();
+        }
+
+        /* Executions in flight may still be uploading parts, so they are
+         * left to finish. */
+        if (partExecutor != null) {
+            partExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Changes the number of threads executing the chain. Extra threads exit
+     * after finishing their current execution. When chains are executed
+     * asynchronously, this is also the number of executions kept in flight.
+     * When the
+     * concurrency is controlled adaptively the new number of threads becomes
+     * the highest limit that the controller may set.
+     *
+     * @param newThreads number of threads to run the chain with
+     * @throws IllegalArgumentException thrown when the number of threads is less than 1
+     */
+    public void resize(final int newThreads) {
+        if (newThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+
+        stateLock.lock();
+        try {
+            final int oldThreads = threads;
+            threads = newThreads;
+
+            /* The maximum can't be set below the core size, so the order
+             * that the two are changed in depends on the direction. */
+            if (newThreads > oldThreads) {
+                executorService.setMaximumPoolSize(newThreads);
+                executorService.setCorePoolSize(newThreads);
+            } else {
+                executorService.setCorePoolSize(newThreads);
+                executorService.setMaximumPoolSize(newThreads);
+            }
+
+            if (worker != null && liveWorkers < newThreads) {
+                addWorkers(newThreads - liveWorkers);
+            }
+
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+
+        if (concurrencyController != null) {
+            concurrencyController.setMaxConcurrency(newThreads);
+        }
+
+        LOG.info("Resized [{}] to {} threads", name, newThreads);
+    }
+
+    /**
+     * Stops new executions of the chain from starting until the runner is
+     * resumed. Executions already in flight are left to finish.
+     */
+    public void pause() {
+        stateLock.lock();
+        try {
+            paused = true;
+        } finally {
+            stateLock.unlock();
+        }
+
+        LOG.info("Paused [{}]", name);
+    }
+
+    /**
+     * Lets executions of the chain start again after the runner was paused
+     * or drained.
+     */
+    public void resume() {
+        stateLock.lock();
+        try {
+            paused = false;
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+
+        LOG.info("Resumed [{}]", name);
+    }
+
+    /**
+     * Pauses the runner and waits for the executions in flight to finish.
+     * The runner stays paused until it is resumed.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if no executions are in flight, false if the wait timed out
+     * @throws InterruptedException thrown when the thread is interrupted while waiting
+     */
+    public boolean drain(final long timeoutMillis) throws InterruptedException {
+        pause();
+
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        stateLock.lock();
+        try {
+            while (inFlight > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                remaining = stateChanged.awaitNanos(remaining);
+            }
+
+            return true;
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     public ExecutorService getExecutorService() {
         return executorService;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public String getChainName() {
+        return chain.getClass().getSimpleName();
+    }
+
+    /**
+     * @return true if the chain is executed at a target rate rather than by
+     *         looping threads
+     */
+    public boolean isOpenLoop() {
+        return runnerConfig.getTargetOpsPerSecond() != null;
+    }
+
+    public int getThreads() {
+        stateLock.lock();
+        try {
+            return threads;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of chain executions currently in progress
+     */
+    public int getInFlight() {
+        stateLock.lock();
+        try {
+            return inFlight;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    public boolean isPaused() {
+        stateLock.lock();
+        try {
+            return paused;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * @return the adaptive concurrency limit, or null when the concurrency
+     *         isn't controlled adaptively
+     */
+    public Integer getConcurrencyLimit() {
+        if (concurrencyController == null) {
+            return null;
+        }
+
+        return concurrencyController.getLimit();
+    }
+
     public boolean isRunning() {
         return running;
     }
 
+    private static AimdConcurrencyController buildConcurrencyController(final MantaOperationsChain chain,
+                                                                        final Runner runnerConfig,
+                                                                        final MantaMonitorMetrics metrics) {
+        final ConcurrencyControl config = runnerConfig.getConcurrencyControl();
+
+        if (config == null) {
+            return null;
+        }
+
+        if (runnerConfig.getTargetOpsPerSecond() != null) {
+            throw new IllegalArgumentException(String.format("Runner [%s] can't "
+                    + "use both concurrencyControl and targetOpsPerSecond",
+                    runnerConfig.getName()));
+        }
+
+        return new AimdConcurrencyController(chain.getClass().getSimpleName(),
+                config, runnerConfig.getThreads(), metrics);
+    }
+
+    private static ThreadFactory buildThreadFactory(final Runner runnerConfig,
+                                                    final String name,
+                                                    final Thread.UncaughtExceptionHandler exceptionHandler) {
+        if (ThreadMode.VIRTUAL.equals(runnerConfig.getThreadMode())) {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalArgumentException(String.format("Runner [%s] is "
+                        + "configured to use virtual threads, which require JDK 21 "
+                        + "or later", runnerConfig.getName()));
+            }
+
+            LOG.info("Using virtual threads to run [{}]", name);
+            return VirtualThreads.newThreadFactory(name, exceptionHandler);
+        }
+
+        final ThreadGroup threadGroup = new ThreadGroup(name);
+        threadGroup.setDaemon(true);
+
+        return new ChainThreadFactory(threadGroup, name, exceptionHandler);
+    }
+
+    private static PayloadPool buildPayloadPool(final Runner runnerConfig) {
+        if (!PayloadMode.POOL.equals(runnerConfig.getPayloadMode())) {
+            return null;
+        }
+
+        final PayloadPool pool = new PayloadPool(runnerConfig.getSizeDistribution(),
+                runnerConfig.getPoolSizeClasses(), runnerConfig.getPoolPayloadsPerSizeClass(),
+                runnerConfig.getDigestAlgorithm());
+
+        LOG.info("Generated {} bytes of pooled payloads for [{}]",
+                pool.getPooledBytes(), runnerConfig.getName());
+
+        return pool;
+    }
+
     private String buildBaseDirOrBucket() {
         if ("buckets".equals(testType)) {
             return client.getContext().getMantaBucketsDirectory()
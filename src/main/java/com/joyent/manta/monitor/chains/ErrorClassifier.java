@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.google.common.collect.ImmutableMap;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.monitor.commands.DataValidationException;
+import org.apache.http.HttpStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+/**
+ * Classifies the errors that chains finish with, both for tagging Honeybadger
+ * notices and for labelling the error counters exported to Prometheus.
+ */
+final class ErrorClassifier {
+    /**
+     * Status label for errors that didn't come from an HTTP response.
+     */
+    static final String NO_STATUS = "none";
+
+    static final String KIND_DATA_VALIDATION = "data-validation";
+    static final String KIND_SOCKET_TIMEOUT = "socket-timeout";
+    static final String KIND_CLIENT_ERROR = "client-error";
+    static final String KIND_SERVER_ERROR = "server-error";
+    static final String KIND_IO = "io";
+    static final String KIND_OTHER = "other";
+
+    static final ImmutableMap<Integer, String> STATUS_CODE_TO_TAG = ImmutableMap.of(
+        HttpStatus.SC_INTERNAL_SERVER_ERROR, "internal-server-error",
+        HttpStatus.SC_BAD_GATEWAY, "bad-gateway",
+        HttpStatus.SC_GATEWAY_TIMEOUT, "gateway-timeout",
+        HttpStatus.SC_INSUFFICIENT_STORAGE, "insufficient-storage",
+        HttpStatus.SC_SERVICE_UNAVAILABLE, "service-unavailable"
+    );
+
+    private ErrorClassifier() {
+    }
+
+    /**
+     * Finds the HTTP status code of the first error response in a chain of
+     * causes.
+     *
+     * @param throwableAndCauses error and its causes
+     * @return the status code as a label value, or {@value #NO_STATUS}
+     */
+    static String status(final List<Throwable> throwableAndCauses) {
+        final MantaClientHttpResponseException response = findResponseException(throwableAndCauses);
+
+        if (response == null) {
+            return NO_STATUS;
+        }
+
+        return Integer.toString(response.getStatusCode());
+    }
+
+    /**
+     * Classifies an error by the kind of failure it represents. Data that
+     * failed verification is its own kind, whatever it was caused by, because
+     * it means that Manta returned or stored the wrong data rather than that
+     * a request failed.
+     *
+     * @param throwableAndCauses error and its causes
+     * @param rootCause innermost cause of the error, or null if it has none
+     * @return kind of error as a label value
+     */
+    static String kind(final List<Throwable> throwableAndCauses,
+                       @Nullable final Throwable rootCause) {
+        for (Throwable t : throwableAndCauses) {
+            if (t instanceof DataValidationException) {
+                return KIND_DATA_VALIDATION;
+            }
+        }
+
+        if (rootCause != null && SocketTimeoutException.class.equals(rootCause.getClass())) {
+            return KIND_SOCKET_TIMEOUT;
+        }
+
+        final MantaClientHttpResponseException response = findResponseException(throwableAndCauses);
+
+        if (response != null) {
+            final int statusCode = response.getStatusCode();
+            final String tag = STATUS_CODE_TO_TAG.get(statusCode);
+
+            if (tag != null) {
+                return tag;
+            }
+
+            return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR ? KIND_SERVER_ERROR : KIND_CLIENT_ERROR;
+        }
+
+        for (Throwable t : throwableAndCauses) {
+            if (t instanceof IOException) {
+                return KIND_IO;
+            }
+        }
+
+        return KIND_OTHER;
+    }
+
+    @Nullable
+    private static MantaClientHttpResponseException findResponseException(final List<Throwable> throwableAndCauses) {
+        for (Throwable t : throwableAndCauses) {
+            if (t instanceof MantaClientHttpResponseException) {
+                return (MantaClientHttpResponseException)t;
+            }
+        }
+
+        return null;
+    }
+}
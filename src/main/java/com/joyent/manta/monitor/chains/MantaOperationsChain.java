@@ -7,31 +7,41 @@
  */
 package com.joyent.manta.monitor.chains;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
-import com.joyent.manta.exception.MantaClientHttpResponseException;
 import com.joyent.manta.monitor.HoneyBadgerRequestFactory;
 import com.joyent.manta.monitor.InstanceMetadata;
 import com.joyent.manta.monitor.MBeanServerOperationException;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
 import com.joyent.manta.monitor.MantaOperationContext;
 import com.joyent.manta.monitor.ThrowableProcessor;
+import com.joyent.manta.monitor.commands.AsyncMantaOperationCommand;
 import com.joyent.manta.monitor.commands.MantaOperationCommand;
+import com.joyent.manta.monitor.commands.TimedCommand;
+import com.joyent.manta.monitor.payloads.Payload;
 import io.honeybadger.reporter.NoticeReporter;
 import io.honeybadger.reporter.dto.Context;
 import io.honeybadger.reporter.dto.Request;
+import org.apache.commons.chain.Command;
 import org.apache.commons.chain.impl.ChainBase;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionContext;
-import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import java.net.SocketTimeoutException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This extension of {@link ChainBase} provides methods to execute chain of manta operations and
@@ -39,77 +49,274 @@ import java.util.concurrent.TimeUnit;
  */
 public class MantaOperationsChain extends ChainBase {
     private static final Logger LOG = LoggerFactory.getLogger(MantaOperationsChain.class);
+
+    /**
+     * Command label for errors that weren't thrown by one of the chain's
+     * commands.
+     */
+    private static final String UNKNOWN_COMMAND = "unknown";
+
     private final NoticeReporter reporter;
     private final ThrowableProcessor throwableProcessor;
     private final InstanceMetadata metadata;
 
-    private static final ImmutableMap<Integer, String> STATUS_CODE_TO_TAG = ImmutableMap.of(
-        HttpStatus.SC_INTERNAL_SERVER_ERROR, "internal-server-error",
-        HttpStatus.SC_BAD_GATEWAY, "bad-gateway",
-        HttpStatus.SC_GATEWAY_TIMEOUT, "gateway-timeout",
-        HttpStatus.SC_INSUFFICIENT_STORAGE, "insufficient-storage",
-        HttpStatus.SC_SERVICE_UNAVAILABLE, "service-unavailable"
-    );
-
     @Inject
     public MantaOperationsChain(final Collection<? super MantaOperationCommand> commands,
                                 final NoticeReporter reporter,
                                 final HoneyBadgerRequestFactory requestFactory,
                                 final InstanceMetadata metadata) {
-        super(commands);
+        super(TimedCommand.wrapAll(commands));
         this.reporter = reporter;
         this.metadata = metadata;
         this.throwableProcessor = new ThrowableProcessor(requestFactory);
     }
 
-    public void execute(final MantaOperationContext context) {
+    /**
+     * Executes every command in the chain, and reports and logs any error.
+     *
+     * @param context context to execute with
+     * @return true if every command completed without an error
+     */
+    public boolean execute(final MantaOperationContext context) {
         Throwable throwable;
 
         try {
             LOG.info("{} starting", getClass().getSimpleName());
             super.execute(context);
             throwable = context.getException();
-            if (LOG.isInfoEnabled()) {
-                LOG.info("Took {} milliseconds to complete {}",
-                        context.getStopWatch().elapsed(TimeUnit.MILLISECONDS),
-                        getClass().getSimpleName());
-            }
+            logElapsed(context);
         } catch (Exception e) {
             throwable = e;
         } finally {
+            closePayload(context);
             LOG.info("{} finished", getClass().getSimpleName());
         }
 
-        if (throwable == null) {
+        return reportOutcome(context, throwable);
+    }
+
+    /**
+     * Executes every command in the chain without holding the calling thread,
+     * and reports and logs any error. The commands run one after another, in
+     * the same order and with the same stop and postprocess semantics as
+     * {@link #execute(MantaOperationContext)}; synchronous commands are
+     * executed on the given executor.
+     *
+     * @param context context to execute with
+     * @param executor executor that synchronous commands block in
+     * @return future completed with true if every command completed without an error
+     */
+    public CompletableFuture<Boolean> executeAsync(final MantaOperationContext context,
+                                                   final Executor executor) {
+        final List<AsyncMantaOperationCommand> asyncCommands = new ArrayList<>(commands.length);
+
+        for (Command command : commands) {
+            asyncCommands.add(AsyncMantaOperationCommand.adapt(command, executor));
+        }
+
+        /* The number of commands that were started, which are the ones to
+         * postprocess when the chain stops. */
+        final AtomicInteger executed = new AtomicInteger();
+
+        LOG.info("{} starting", getClass().getSimpleName());
+
+        return executeFrom(0, asyncCommands, context, executed)
+                .handle((ignored, e) -> {
+                    try {
+                        final Throwable throwable = postprocessAll(asyncCommands,
+                                executed.get(), context, unwrap(e));
+
+                        if (throwable == null) {
+                            logElapsed(context);
+                        }
+
+                        return reportOutcome(context, throwable);
+                    } finally {
+                        closePayload(context);
+                        LOG.info("{} finished", getClass().getSimpleName());
+                    }
+                });
+    }
+
+    private static CompletableFuture<Void> executeFrom(final int index,
+                                                       final List<AsyncMantaOperationCommand> commands,
+                                                       final MantaOperationContext context,
+                                                       final AtomicInteger executed) {
+        if (index >= commands.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        executed.set(index + 1);
+
+        final CompletableFuture<Boolean> result;
+
+        try {
+            result = commands.get(index).executeAsync(context);
+        } catch (RuntimeException e) {
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return result.thenCompose(complete -> {
+            if (complete) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return executeFrom(index + 1, commands, context, executed);
+        });
+    }
+
+    /**
+     * Postprocesses the executed commands in reverse order in the same way
+     * as {@link ChainBase}.
+     *
+     * @return the error the chain finished with, or null if there was none
+     */
+    private static Throwable postprocessAll(final List<AsyncMantaOperationCommand> commands,
+                                            final int executed,
+                                            final MantaOperationContext context,
+                                            final Throwable throwable) {
+        final Exception exception;
+
+        if (throwable instanceof Exception) {
+            exception = (Exception)throwable;
+        } else if (throwable != null) {
+            return throwable;
+        } else {
+            exception = null;
+        }
+
+        boolean handled = false;
+
+        for (int i = executed - 1; i >= 0; i--) {
+            try {
+                if (commands.get(i).postprocess(context, exception)) {
+                    handled = true;
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Error postprocessing command", e);
+            }
+        }
+
+        if (exception != null && !handled) {
+            return exception;
+        }
+
+        return context.getException();
+    }
+
+    private static Throwable unwrap(final Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+
+        return throwable;
+    }
+
+    /**
+     * Counts an error by the command that failed, the HTTP status of the
+     * error response, if there was one, and the kind of error, so that error
+     * rates can be alerted on without relying on Honeybadger.
+     */
+    private static void recordError(final MantaOperationContext context,
+                                    final ThrowableProcessor.ProcessedResults results) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics == null) {
             return;
         }
 
+        metrics.getErrors()
+                .labels(context.getChainClassNameKey(),
+                        Objects.toString(context.getFailedCommand(), UNKNOWN_COMMAND),
+                        ErrorClassifier.status(results.throwableAndCauses),
+                        ErrorClassifier.kind(results.throwableAndCauses, results.rootCause))
+                .inc();
+    }
+
+    /**
+     * Counts an error response against the Manta server that sent it. Errors
+     * that didn't come from a response, such as timeouts, aren't counted
+     * because there is no server to blame.
+     */
+    private static void recordServerError(final MantaOperationContext context,
+                                          final ThrowableProcessor.ProcessedResults results) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics == null || results.mantaHeaders == null) {
+            return;
+        }
+
+        metrics.getServerErrors()
+                .labels(context.getChainClassNameKey(),
+                        metrics.getServerLabels().labelFor(results.mantaHeaders))
+                .inc();
+    }
+
+    private void logElapsed(final MantaOperationContext context) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Took {} milliseconds to complete {}",
+                    context.getStopWatch().elapsed(TimeUnit.MILLISECONDS),
+                    getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Reports and logs the error that the chain finished with, if any.
+     *
+     * @param context context the chain was executed with
+     * @param throwable error or null if the chain completed successfully
+     * @return true if the chain completed successfully
+     */
+    private boolean reportOutcome(final MantaOperationContext context, final Throwable throwable) {
+        if (throwable == null) {
+            return true;
+        }
+
         final ThrowableProcessor.ProcessedResults results =
                 throwableProcessor.process(throwable);
 
+        recordError(context, results);
+        recordServerError(context, results);
         reportAndLog(results);
+
+        return false;
     }
 
-    private String extractMessageAndAddTags(final ThrowableProcessor.ProcessedResults results,
-                                            final Set<String> tags) {
-        final Throwable rootCause = results.rootCause;
+    /**
+     * Releases the resources held by the payload once every command in the
+     * chain has had the chance to read it back for verification.
+     *
+     * @param context context containing the payload
+     */
+    private static void closePayload(final MantaOperationContext context) {
+        final Payload payload = context.getPayload();
 
-        if (rootCause != null && SocketTimeoutException.class.equals(rootCause.getClass())) {
-            tags.add("socket-timeout");
-            return rootCause.getMessage();
+        if (payload == null) {
+            return;
         }
 
-        for (Throwable t : results.throwableAndCauses) {
-            if (t instanceof MantaClientHttpResponseException) {
-                MantaClientHttpResponseException mchre = (MantaClientHttpResponseException)t;
+        try {
+            payload.close();
+        } catch (IOException e) {
+            LOG.warn("Unable to release payload resources", e);
+        }
+    }
 
-                final int statusCode = mchre.getStatusCode();
-                final String tag = STATUS_CODE_TO_TAG.get(statusCode);
+    /**
+     * Tags a Honeybadger notice with the same kind of error as the error
+     * counter is labelled with, so that notices and alerts agree.
+     */
+    @VisibleForTesting
+    static String extractMessageAndAddTags(final ThrowableProcessor.ProcessedResults results,
+                                           final Set<String> tags) {
+        final Throwable rootCause = results.rootCause;
+        final String kind = ErrorClassifier.kind(results.throwableAndCauses, rootCause);
 
-                if (tag != null) {
-                    tags.add(tag);
-                }
-            }
+        tags.add(kind);
+
+        for (Throwable t : results.throwableAndCauses) {
             if (t instanceof MBeanServerOperationException) {
                 String message = "Failed to retrieve JMX metrics from the manta client";
                 Request request = results.request;
@@ -123,6 +330,11 @@ public class MantaOperationsChain extends ChainBase {
             }
         }
 
+        /* A timeout's own message says more than the exceptions wrapping it. */
+        if (ErrorClassifier.KIND_SOCKET_TIMEOUT.equals(kind)) {
+            return rootCause.getMessage();
+        }
+
         return parseMessage(results.throwable);
     }
 
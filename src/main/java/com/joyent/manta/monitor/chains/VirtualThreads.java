@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Utility class that creates virtual threads when running on JDK 21 or later.
+ * The monitor is built for Java 11, so the virtual thread API is looked up
+ * reflectively.
+ */
+public final class VirtualThreads {
+    /**
+     * First JDK feature release in which virtual threads are not a preview
+     * feature.
+     */
+    private static final int MINIMUM_FEATURE_VERSION = 21;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MINIMUM_FEATURE_VERSION;
+    }
+
+    /**
+     * Creates a factory of virtual threads that are named and handle uncaught
+     * exceptions in the same way as the threads created by
+     * {@link ChainThreadFactory}. Virtual threads are always daemon threads
+     * and don't belong to a configurable thread group.
+     *
+     * @param threadPrefix prefix of each thread's name
+     * @param exceptionHandler handler for exceptions thrown by the threads
+     * @return factory of virtual threads
+     * @throws UnsupportedOperationException thrown when the JVM doesn't support virtual threads
+     */
+    public static ThreadFactory newThreadFactory(final String threadPrefix,
+                                                 final Thread.UncaughtExceptionHandler exceptionHandler) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require JDK "
+                    + MINIMUM_FEATURE_VERSION + " or later, but running on "
+                    + Runtime.version());
+        }
+
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Method name = builderClass.getMethod("name", String.class, long.class);
+            final Method handler = builderClass.getMethod("uncaughtExceptionHandler",
+                    Thread.UncaughtExceptionHandler.class);
+            final Method factory = builderClass.getMethod("factory");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = name.invoke(builder, threadPrefix + "-", 1L);
+            builder = handler.invoke(builder, exceptionHandler);
+
+            return (ThreadFactory)factory.invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException
+                | IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Unable to create virtual thread factory", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.apache.commons.chain.Command;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous counterpart of {@link MantaOperationCommand}. Instead of
+ * holding the calling thread until the operation finishes, the command
+ * returns a future that is completed with the same value that
+ * {@link Command#execute(org.apache.commons.chain.Context)} would return, or
+ * completed exceptionally with the exception it would throw.
+ */
+public interface AsyncMantaOperationCommand {
+    /**
+     * Starts executing the command.
+     *
+     * @param context context to execute with
+     * @return future completed with true if the chain should stop processing
+     *         further commands, or false if it should continue
+     */
+    CompletableFuture<Boolean> executeAsync(MantaOperationContext context);
+
+    /**
+     * Called in reverse order on every command that was executed, once the
+     * chain stops. This has the same contract as
+     * {@link org.apache.commons.chain.Filter#postprocess(org.apache.commons.chain.Context, Exception)}.
+     *
+     * @param context context the chain executed with
+     * @param exception exception that stopped the chain or null if none was thrown
+     * @return true if the exception was handled
+     */
+    default boolean postprocess(final MantaOperationContext context, final Exception exception) {
+        if (exception == null) {
+            return Command.CONTINUE_PROCESSING;
+        }
+
+        context.put(MantaOperationContext.EXCEPTION_KEY, exception);
+
+        return Command.PROCESSING_COMPLETE;
+    }
+
+    /**
+     * Adapts a synchronous command so that it executes on the given executor.
+     * Commands that are already asynchronous are returned as is.
+     *
+     * @param command command to adapt
+     * @param executor executor that the command blocks in
+     * @return asynchronous command
+     */
+    static AsyncMantaOperationCommand adapt(final Command command, final Executor executor) {
+        if (command instanceof AsyncMantaOperationCommand) {
+            return (AsyncMantaOperationCommand)command;
+        }
+
+        return new BlockingCommandAdapter(command, executor);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.apache.commons.chain.Command;
+import org.apache.commons.chain.Filter;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link AsyncMantaOperationCommand} implementation that runs a synchronous
+ * {@link Command} on an {@link Executor}. The command still blocks a thread
+ * for as long as it waits on the network, so the executor determines what
+ * that costs. An executor that starts a virtual thread per task (see
+ * {@link com.joyent.manta.monitor.chains.VirtualThreads}) makes the wait
+ * cheap.
+ */
+public class BlockingCommandAdapter implements AsyncMantaOperationCommand {
+    private final Command delegate;
+    private final Executor executor;
+
+    public BlockingCommandAdapter(final Command delegate, final Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public Command getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> executeAsync(final MantaOperationContext context) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.execute(context);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public boolean postprocess(final MantaOperationContext context, final Exception exception) {
+        if (delegate instanceof Filter) {
+            return ((Filter)delegate).postprocess(context, exception);
+        }
+
+        return Command.CONTINUE_PROCESSING;
+    }
+}
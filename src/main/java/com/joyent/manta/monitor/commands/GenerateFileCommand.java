@@ -7,56 +7,153 @@
  */
 package com.joyent.manta.monitor.commands;
 
+import com.google.common.primitives.Longs;
 import com.joyent.manta.monitor.MantaOperationContext;
 import com.joyent.manta.monitor.RandomAlphabeticInputStream;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.config.PayloadMode;
+import com.joyent.manta.monitor.payloads.GeneratedPayload;
+import com.joyent.manta.monitor.payloads.Payload;
+import com.joyent.manta.monitor.payloads.PayloadPool;
+import com.joyent.manta.monitor.payloads.PooledPayload;
+import com.joyent.manta.monitor.payloads.TempFilePayload;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.RandomUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
 
 /**
- * This {@link org.apache.commons.chain.Command} implementation generates the test file.
+ * This {@link org.apache.commons.chain.Command} implementation generates the test
+ * data and its checksum. Depending on the {@link PayloadMode} of the runner,
+ * the data is either written to a temporary file or described by a seed from
+ * which it is regenerated when it is uploaded. In {@link PayloadMode#SEED}
+ * mode, no checksum is calculated and the seed alone identifies the data.
+ * In {@link PayloadMode#PARTS} mode, no checksum is calculated up front
+ * either; it is combined from the digests of each part as they are uploaded.
+ * In {@link PayloadMode#POOL} mode, the data and most of its checksum come
+ * from the runner's {@link PayloadPool}.
  */
 public class GenerateFileCommand implements MantaOperationCommand {
     public static final GenerateFileCommand INSTANCE = new GenerateFileCommand();
 
+    /**
+     * Length in bytes of the random object ids, the same as a SHA-256 checksum.
+     */
+    private static final int OBJECT_ID_LENGTH = 32;
+
     @Override
     public boolean execute(final MantaOperationContext context) throws Exception {
         context.getStopWatch().start();
+
+        final PayloadPool pool = context.getPayloadPool();
+
+        if (pool != null) {
+            final PooledPayload payload = pool.next();
+
+            context.setTestFileSize(payload.getSize())
+                   .setPayload(payload)
+                   .setTestFileChecksum(payload.getChecksum())
+                   .setObjectId(buildObjectId(context, payload.getChecksum()));
+
+            return CONTINUE_PROCESSING;
+        }
+
         final long filesize = generateFileSize(context);
         context.setTestFileSize(filesize);
 
+        final PayloadMode mode = context.getPayloadMode();
+
+        if (PayloadMode.SEED.equals(mode) || PayloadMode.PARTS.equals(mode)) {
+            final long seed = RandomUtils.nextLong();
+            final byte[] objectId = MessageDigest.getInstance("SHA256")
+                    .digest(Longs.toByteArray(seed));
+
+            context.setPayload(new GeneratedPayload(seed, filesize))
+                   .setObjectId(objectId);
+
+            /* Objects uploaded in parts are verified against the checksum
+             * combined from their parts rather than by their seed. */
+            if (PayloadMode.SEED.equals(mode)) {
+                context.setPayloadSeed(seed);
+            }
+
+            return CONTINUE_PROCESSING;
+        }
+
+        final MessageDigest checksum = context.getDigestAlgorithm().newDigest();
+        final Payload payload;
+
+        if (PayloadMode.STREAM.equals(mode)) {
+            payload = generateStream(filesize, checksum);
+        } else {
+            payload = generateFile(filesize, checksum);
+            context.setTestFile(((TempFilePayload)payload).getPath());
+        }
+
+        final byte[] digest = checksum.digest();
+
+        context.setPayload(payload)
+               .setTestFileChecksum(digest)
+               .setObjectId(buildObjectId(context, digest));
+
+        return CONTINUE_PROCESSING;
+    }
+
+    /**
+     * SHA-256 checksums are unique enough to name objects by, but the faster
+     * algorithms' checksums are too short to avoid collisions between
+     * concurrently uploaded objects, so those objects are given a random id.
+     */
+    private static byte[] buildObjectId(final MantaOperationContext context,
+                                        final byte[] checksum) {
+        if (DigestAlgorithm.SHA256.equals(context.getDigestAlgorithm())) {
+            return checksum;
+        }
+
+        return RandomUtils.nextBytes(OBJECT_ID_LENGTH);
+    }
+
+    private static Payload generateFile(final long filesize,
+                                        final MessageDigest checksum) throws IOException {
         final Path temp = Files.createTempFile(String.format("mput-%s-",
                 LocalDate.now().format(ISO_LOCAL_DATE)),
                 ".txt");
 
-        final MessageDigest checksum = MessageDigest.getInstance("SHA256");
-
         try (RandomAlphabeticInputStream in = new RandomAlphabeticInputStream(filesize);
              DigestInputStream digestIn = new DigestInputStream(in, checksum);
              OutputStream out = Files.newOutputStream(temp)) {
             IOUtils.copy(digestIn, out);
         }
 
-        final byte[] sha256 = checksum.digest();
+        return new TempFilePayload(temp, filesize);
+    }
 
-        context.setTestFile(temp)
-               .setTestFileChecksum(sha256);
+    private static Payload generateStream(final long filesize,
+                                          final MessageDigest checksum) throws IOException {
+        final GeneratedPayload payload = new GeneratedPayload(RandomUtils.nextLong(), filesize);
 
-        return CONTINUE_PROCESSING;
+        /* The data is discarded as it is generated and only the checksum is
+         * kept. The exact same bytes are generated again when uploading. */
+        try (InputStream in = payload.openStream();
+             DigestInputStream digestIn = new DigestInputStream(in, checksum)) {
+            IOUtils.copy(digestIn, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+
+        return payload;
     }
 
     private static long generateFileSize(final MantaOperationContext context) {
-        final int min = context.getMinFileSize();
-        final int max = context.getMaxFileSize();
-
-        return RandomUtils.nextInt(min, max);
+        return context.getSizeDistribution().nextSize(ThreadLocalRandom.current());
     }
 }
@@ -7,36 +7,91 @@
  */
 package com.joyent.manta.monitor.commands;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.joyent.manta.client.MantaClient;
 import com.joyent.manta.client.MantaObjectInputStream;
 import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
 import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.config.VerificationPolicy;
+import com.joyent.manta.monitor.digests.CompositeChecksum;
+import com.joyent.manta.monitor.payloads.GeneratedPayload;
+import com.joyent.manta.monitor.payloads.Payload;
+import com.joyent.manta.monitor.sizes.SizeClass;
+import io.prometheus.client.Histogram;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.bouncycastle.util.encoders.Hex;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * This {@link org.apache.commons.chain.Command} implementation performs manta object get using the cli command mget.
+ * The downloaded data is either compared against the checksum calculated when
+ * it was generated or, when the payload was generated from a seed, against
+ * the regenerated data so that the offset of any corruption can be reported.
+ * Payloads that were hashed part by part as they were uploaded are verified
+ * against the checksum combined from their parts.
+ * Depending on the runner's {@link VerificationPolicy}, objects may instead
+ * be verified by downloading a few randomly chosen ranges.
  */
 public class GetFileCommand implements MantaOperationCommand {
     public static final GetFileCommand INSTANCE = new GetFileCommand();
 
+    static final String PHASE_HEADERS = "headers";
+    static final String PHASE_FIRST_BYTE = "first_byte";
+    static final String PHASE_TRANSFER = "transfer";
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
     @Override
     public boolean execute(final MantaOperationContext context) throws Exception {
+        final VerificationPolicy policy = context.getVerificationPolicy();
+
+        if (policy == null || policy.isFullVerification(context.getIteration(), ThreadLocalRandom.current())) {
+            verifyFullObject(context);
+        } else {
+            final MantaMonitorMetrics metrics = context.getMetrics();
+
+            if (metrics != null) {
+                metrics.getSkippedVerifications().labels(context.getChainClassNameKey()).inc();
+            }
+
+            for (int i = 0; i < policy.getRangeSamples(); i++) {
+                verifyRandomRange(context, policy.getRangeSampleSize());
+            }
+        }
+
+        return CONTINUE_PROCESSING;
+    }
+
+    private static void verifyFullObject(final MantaOperationContext context) throws IOException {
         final MantaClient client = context.getMantaClient();
         final String filePath = context.getFilePath();
         final long expectedFileSize = requireNonNull(context.getTestFileSize());
-        final MessageDigest checksum = MessageDigest.getInstance("SHA256");
-        Long actualFileSize;
 
-        try (MantaObjectInputStream in = client.getAsInputStream(filePath);
-             DigestInputStream digestIn = new DigestInputStream(in, checksum)) {
-            MantaHttpHeaders headers = in.getHttpHeaders();
-            actualFileSize = headers.getContentLength();
+        final long start = System.nanoTime();
+
+        try (MantaObjectInputStream response = client.getAsInputStream(filePath);
+             TimedBodyInputStream in = new TimedBodyInputStream(response)) {
+            final long headersReceived = System.nanoTime();
+            MantaHttpHeaders headers = response.getHttpHeaders();
+            /* The server's response time doesn't include streaming the body,
+             * so it is compared with the time until the headers arrived. */
+            ResponseMetrics.record(context, Operations.GET, headers, headersReceived - start);
+            final Long actualFileSize = headers.getContentLength();
 
             if (expectedFileSize != actualFileSize) {
                 String msg = "The file size on Manta doesn't match the original size";
@@ -47,24 +102,219 @@ public class GetFileCommand implements MantaOperationCommand {
                 throw dve;
             }
 
+            if (context.getCompositeChecksum() != null) {
+                verifyAgainstCompositeChecksum(context, in, actualFileSize);
+            } else if (context.getPayloadSeed() != null) {
+                verifyAgainstSeed(context, in, actualFileSize);
+            } else {
+                final DigestAlgorithm algorithm = HeadFileCommand.findDigestAlgorithm(
+                        context, response.getMetadata());
+                verifyAgainstChecksum(context, algorithm, in, actualFileSize);
+            }
+
+            final long end = in.getEndNanos() != 0 ? in.getEndNanos() : System.nanoTime();
+            TransferMetrics.recordDownload(context, Operations.GET, in.getByteCount(), end - start);
+            recordPhases(context, in, start, headersReceived, end);
+        }
+    }
+
+    /**
+     * Records how long a GET took to receive its response headers, to read
+     * the first byte of the body and to transfer the body, so that slowness
+     * in the metadata tier (seen before the headers arrive) can be told apart
+     * from slowness in the storage nodes or the network (seen in the body).
+     */
+    private static void recordPhases(final MantaOperationContext context,
+                                     final TimedBodyInputStream in,
+                                     final long start,
+                                     final long headersReceived,
+                                     final long end) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics == null) {
+            return;
+        }
+
+        final String chainName = context.getChainClassNameKey();
+        final long transferNanos = end - headersReceived;
+        final Histogram phases = metrics.getGetPhaseLatency();
+
+        phases.labels(chainName, PHASE_HEADERS).observe((headersReceived - start) / NANOS_PER_SECOND);
+        phases.labels(chainName, PHASE_TRANSFER).observe(transferNanos / NANOS_PER_SECOND);
+
+        /* An empty body has no first byte and says nothing about the rate. */
+        if (in.getFirstByteNanos() == 0 || transferNanos <= 0) {
+            return;
+        }
+
+        phases.labels(chainName, PHASE_FIRST_BYTE).observe((in.getFirstByteNanos() - start) / NANOS_PER_SECOND);
+        metrics.getGetBodyRate()
+                .labels(chainName, SizeClass.of(in.getByteCount()).getLabel())
+                .observe(TransferMetrics.megabytesPerSecond(in.getByteCount(), transferNanos));
+    }
+
+    /*
+     * The expected bytes of the range are read back from the payload, so a
+     * temp file payload has to be kept until the chain finishes even when
+     * only ranges of it are verified.
+     */
+    private static void verifyRandomRange(final MantaOperationContext context,
+                                          final long rangeSampleSize) throws IOException {
+        final long size = requireNonNull(context.getTestFileSize());
+
+        if (size == 0) {
+            return;
+        }
+
+        final Payload payload = context.getPayload();
+        final long length = Math.min(rangeSampleSize, size);
+        final long start = ThreadLocalRandom.current().nextLong(size - length + 1);
+        final long end = start + length - 1;
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setByteRange(start, end);
+
+        final long mismatchOffset;
+        final long requestStart = System.nanoTime();
+
+        try (MantaObjectInputStream response = context.getMantaClient()
+                .getAsInputStream(context.getFilePath(), headers);
+             CountingInputStream in = new CountingInputStream(response)) {
+            ResponseMetrics.record(context, Operations.GET_RANGE, response.getHttpHeaders(),
+                    System.nanoTime() - requestStart);
+            verifyRangeResponse(context.getFilePath(), statusCode(response),
+                    response.getHttpHeaders().getContentRange(), start, end, size);
+            mismatchOffset = payload.findFirstMismatch(in, start, length);
+
+            if (mismatchOffset == -1) {
+                TransferMetrics.recordDownload(context, Operations.GET_RANGE,
+                        in.getByteCount(), System.nanoTime() - requestStart);
+            }
+        }
+
+        if (mismatchOffset > -1) {
+            String msg = "The range of the file downloaded does not match the "
+                    + "data uploaded";
+            DataValidationException dve =  new DataValidationException(msg);
+            dve.setContextValue("mismatchOffset", mismatchOffset);
+            dve.setContextValue("rangeStart", start);
+            dve.setContextValue("rangeEnd", end);
+            dve.setContextValue("path", context.getFilePath());
+            dve.setContextValue("expectedFileSize", context.getTestFileSize());
+            throw dve;
+        }
+    }
+
+    /**
+     * Checks that a response to a range request is a partial response for
+     * exactly the range requested, so that a server that ignored the range,
+     * or sent a different one, isn't mistaken for one that returned corrupt
+     * data.
+     *
+     * @param path path of the object
+     * @param statusCode HTTP status code of the response
+     * @param contentRange value of the response's Content-Range header, or null
+     * @param start offset of the first byte requested
+     * @param end offset of the last byte requested
+     * @param size size of the whole object
+     */
+    @VisibleForTesting
+    static void verifyRangeResponse(final String path,
+                                    final int statusCode,
+                                    @Nullable final String contentRange,
+                                    final long start,
+                                    final long end,
+                                    final long size) {
+        final String expectedContentRange = String.format("bytes %d-%d/%d", start, end, size);
+        final String msg;
+
+        if (statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
+            msg = "The server didn't return a partial response for the range requested";
+        } else if (!expectedContentRange.equals(StringUtils.trim(contentRange))) {
+            msg = "The range returned by the server doesn't match the range requested";
+        } else {
+            return;
+        }
+
+        DataValidationException dve = new DataValidationException(msg);
+        dve.setContextValue("path", path);
+        dve.setContextValue("statusCode", statusCode);
+        dve.setContextValue("expectedContentRange", expectedContentRange);
+        dve.setContextValue("actualContentRange", contentRange);
+        throw dve;
+    }
+
+    private static int statusCode(final MantaObjectInputStream response) {
+        return ((HttpResponse)response.getHttpResponse()).getStatusLine().getStatusCode();
+    }
+
+    private static void verifyAgainstChecksum(final MantaOperationContext context,
+                                              final DigestAlgorithm algorithm,
+                                              final InputStream in,
+                                              final Long actualFileSize) throws IOException {
+        final MessageDigest checksum = algorithm.newDigest();
+
+        try (DigestInputStream digestIn = new DigestInputStream(in, checksum)) {
             final byte[] buf = new byte[8192];
             while (digestIn.read(buf) > -1);
         }
 
-        final byte[] sha256 = checksum.digest();
+        final byte[] digest = checksum.digest();
 
-        if (!Arrays.equals(sha256, context.getTestFileChecksum())) {
+        if (!Arrays.equals(digest, context.getTestFileChecksum())) {
             String msg = "The checksum for the file uploaded and file downloaded "
                     + "do not match";
             DataValidationException dve =  new DataValidationException(msg);
-            dve.setContextValue("expectedSha256sum", Hex.toHexString(context.getTestFileChecksum()));
-            dve.setContextValue("actualSha256sum", Hex.toHexString(sha256));
+            dve.setContextValue("checksumAlgorithm", algorithm.getName());
+            dve.setContextValue("expectedChecksum", Hex.toHexString(context.getTestFileChecksum()));
+            dve.setContextValue("actualChecksum", Hex.toHexString(digest));
             dve.setContextValue("path", context.getFilePath());
             dve.setContextValue("expectedFileSize", context.getTestFileSize());
             dve.setContextValue("actualFileSize", actualFileSize);
             throw dve;
         }
+    }
 
-        return CONTINUE_PROCESSING;
+    private static void verifyAgainstCompositeChecksum(final MantaOperationContext context,
+                                                       final InputStream in,
+                                                       final Long actualFileSize) throws IOException {
+        final DigestAlgorithm algorithm = context.getDigestAlgorithm();
+        final byte[] expected = requireNonNull(context.getCompositeChecksum());
+        final long[] partSizes = requireNonNull(context.getUploadedPartSizes());
+        final byte[] actual = CompositeChecksum.calculate(algorithm::newDigest, in, partSizes);
+
+        if (!Arrays.equals(actual, expected)) {
+            String msg = "The checksum combined from the parts of the file "
+                    + "uploaded and the file downloaded do not match";
+            DataValidationException dve =  new DataValidationException(msg);
+            dve.setContextValue("checksumAlgorithm", algorithm.getName());
+            dve.setContextValue("expectedChecksum", Hex.toHexString(expected));
+            dve.setContextValue("actualChecksum", Hex.toHexString(actual));
+            dve.setContextValue("parts", partSizes.length);
+            dve.setContextValue("path", context.getFilePath());
+            dve.setContextValue("expectedFileSize", context.getTestFileSize());
+            dve.setContextValue("actualFileSize", actualFileSize);
+            throw dve;
+        }
+    }
+
+    private static void verifyAgainstSeed(final MantaOperationContext context,
+                                          final InputStream in,
+                                          final Long actualFileSize) throws IOException {
+        final long seed = requireNonNull(context.getPayloadSeed());
+        final GeneratedPayload expected = new GeneratedPayload(seed, context.getTestFileSize());
+        final long mismatchOffset = expected.findFirstMismatch(in);
+
+        if (mismatchOffset > -1) {
+            String msg = "The file downloaded does not match the data generated "
+                    + "from the payload seed";
+            DataValidationException dve =  new DataValidationException(msg);
+            dve.setContextValue("mismatchOffset", mismatchOffset);
+            dve.setContextValue("payloadSeed", seed);
+            dve.setContextValue("path", context.getFilePath());
+            dve.setContextValue("expectedFileSize", context.getTestFileSize());
+            dve.setContextValue("actualFileSize", actualFileSize);
+            throw dve;
+        }
     }
 }
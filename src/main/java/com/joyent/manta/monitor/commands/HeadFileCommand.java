@@ -8,8 +8,11 @@
 package com.joyent.manta.monitor.commands;
 
 import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.client.MantaMetadata;
 import com.joyent.manta.client.MantaObjectResponse;
 import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.payloads.GeneratedPayload;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -26,7 +29,10 @@ public class HeadFileCommand implements MantaOperationCommand {
         final MantaClient client = context.getMantaClient();
         final String path = context.getFilePath();
         final long fileSize = Objects.requireNonNull(context.getTestFileSize());
+        final long start = System.nanoTime();
         final MantaObjectResponse response = client.head(path);
+        ResponseMetrics.record(context, Operations.HEAD, response.getHttpHeaders(),
+                System.nanoTime() - start);
         final Long actualFileSize = response.getContentLength();
 
         if (actualFileSize != fileSize) {
@@ -40,15 +46,38 @@ public class HeadFileCommand implements MantaOperationCommand {
             throw dve;
         }
 
-        final String actualChecksum = response.getMetadata().get("m-sha256-checksum");
+        final Long seed = context.getPayloadSeed();
+
+        if (seed != null) {
+            final String actualSeed = response.getMetadata().get(GeneratedPayload.SEED_METADATA_KEY);
+
+            if (!seed.toString().equals(actualSeed)) {
+                String msg = "The payload seed stored with the file uploaded "
+                        + "does not match the seed the file was generated from";
+                DataValidationException dve =  new DataValidationException(msg);
+                dve.setContextValue("expectedSeed", seed);
+                dve.setContextValue("actualSeed", actualSeed);
+                dve.setContextValue("path", context.getFilePath());
+                throw dve;
+            }
+        }
+
         final String checksum = context.getTestFileChecksumAsString();
 
+        if (checksum == null) {
+            return CONTINUE_PROCESSING;
+        }
+
+        final DigestAlgorithm algorithm = findDigestAlgorithm(context, response.getMetadata());
+        final String actualChecksum = response.getMetadata().get(algorithm.getChecksumMetadataKey());
+
         if (!checksum.equals(actualChecksum)) {
             String msg = "The checksum for the file uploaded and file downloaded "
                     + "do not match";
             DataValidationException dve =  new DataValidationException(msg);
-            dve.setContextValue("expectedSha256sum", checksum);
-            dve.setContextValue("actualSha256sum", actualChecksum);
+            dve.setContextValue("checksumAlgorithm", algorithm.getName());
+            dve.setContextValue("expectedChecksum", checksum);
+            dve.setContextValue("actualChecksum", actualChecksum);
             dve.setContextValue("path", context.getFilePath());
             dve.setContextValue("expectedFileSize", context.getTestFileSize());
             dve.setContextValue("actualFileSize", actualFileSize);
@@ -57,4 +86,32 @@ public class HeadFileCommand implements MantaOperationCommand {
 
         return CONTINUE_PROCESSING;
     }
+
+    /**
+     * Finds the digest algorithm recorded in an object's metadata and checks
+     * that it is the algorithm that the object's checksum was calculated with.
+     *
+     * @param context context containing the expected algorithm
+     * @param metadata metadata of the object in Manta
+     * @return the algorithm to verify the object with
+     * @throws DataValidationException thrown when the algorithm is unknown or
+     *         doesn't match the expected algorithm
+     */
+    static DigestAlgorithm findDigestAlgorithm(final MantaOperationContext context,
+                                               final MantaMetadata metadata) {
+        final String name = metadata.get(DigestAlgorithm.METADATA_KEY);
+        final DigestAlgorithm algorithm = DigestAlgorithm.fromName(name);
+
+        if (algorithm == null || !algorithm.equals(context.getDigestAlgorithm())) {
+            String msg = "The checksum algorithm stored with the file uploaded "
+                    + "does not match the algorithm the file was hashed with";
+            DataValidationException dve =  new DataValidationException(msg);
+            dve.setContextValue("expectedChecksumAlgorithm", context.getDigestAlgorithm().getName());
+            dve.setContextValue("actualChecksumAlgorithm", name);
+            dve.setContextValue("path", context.getFilePath());
+            throw dve;
+        }
+
+        return algorithm;
+    }
 }
@@ -24,8 +24,8 @@ public class MkdirCommand implements MantaOperationCommand {
 
     @Override
     public boolean execute(final MantaOperationContext context) throws Exception {
-        final byte[] checksum = context.getTestFileChecksum();
-        final String dir = context.getFilePathGenerationFunction().apply(checksum);
+        final byte[] objectId = context.getObjectId();
+        final String dir = context.getFilePathGenerationFunction().apply(objectId);
         final MantaClient client = context.getMantaClient();
          /*
           * Using the requestPutHistogramsMap from the context will ensure that
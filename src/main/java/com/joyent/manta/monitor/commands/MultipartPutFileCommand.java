@@ -15,27 +15,56 @@ import com.joyent.manta.client.multipart.MantaMultipartUploadPart;
 import com.joyent.manta.client.multipart.ServerSideMultipartManager;
 import com.joyent.manta.client.multipart.ServerSideMultipartUpload;
 import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
 import com.joyent.manta.monitor.MantaOperationContext;
 import com.joyent.manta.monitor.MantaOperationException;
+import com.joyent.manta.monitor.config.PayloadMode;
+import com.joyent.manta.monitor.digests.CompositeChecksum;
+import com.joyent.manta.monitor.payloads.Payload;
 import io.prometheus.client.Histogram;
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CountingInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link org.apache.commons.chain.Command} implementation that uploads a file
- * to Manta using MPU.
+ * to Manta using MPU. Parts are uploaded one after another from a single
+ * stream of the payload unless the runner allows parts to be uploaded in
+ * parallel, in which case each part is read from its own stream. In
+ * {@link PayloadMode#PARTS} mode, each part is hashed as it is uploaded and
+ * the part digests are combined into the checksum that the object is later
+ * verified against.
  */
 public class MultipartPutFileCommand extends PutFileCommand {
     public static final MultipartPutFileCommand INSTANCE = new MultipartPutFileCommand();
 
     private static final int MAX_PARTS = 10;
 
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /*
+     * Names of the phases of a multipart upload that are timed separately.
+     */
+    private static final String PHASE_INITIATE = "initiate";
+    private static final String PHASE_PART = "part";
+    private static final String PHASE_COMPLETE = "complete";
+    private static final String PHASE_ABORT = "abort";
+
     @Override
     public boolean execute(final MantaOperationContext context) throws Exception {
         final MantaClient client = context.getMantaClient();
@@ -44,27 +73,79 @@ public class MultipartPutFileCommand extends PutFileCommand {
         final String filePath = generateFilePath(context);
         context.setFilePath(filePath);
 
+        Histogram.Timer timer = context.getRequestPutHistograms()
+                .get(context.getChainClassNameKey()).startTimer();
+
+        /* The layout is worked out before the upload is initiated so that an
+         * unusable part size doesn't leave an upload that is never aborted. */
+        validateTestFileSize(context, multipartManager);
+        final long[] chunkSizes = calculatePartSizes(context, multipartManager);
+
+        final long initiateStart = System.nanoTime();
+        final ServerSideMultipartUpload upload;
+
+        try {
+            upload = buildMultipartUpload(filePath, context, multipartManager);
+        } finally {
+            observePhase(context, PHASE_INITIATE, System.nanoTime() - initiateStart);
+        }
+
+        Set<MantaMultipartUploadPart> parts = createAndUploadParts(upload, context, chunkSizes, multipartManager);
+
+        final long completeStart = System.nanoTime();
+
         try {
-            Histogram.Timer timer = context.getRequestPutHistograms()
-                    .get(context.getChainClassNameKey()).startTimer();
-            final ServerSideMultipartUpload upload = buildMultipartUpload(
-                    filePath, context, multipartManager);
-            final int totalParts = calculateNumberOfParts(context,
-                    multipartManager.getMinimumPartSize());
-            Set<MantaMultipartUploadPart> parts = createAndUploadParts(upload, context, totalParts, multipartManager);
             multipartManager.complete(upload, parts);
-            timer.observeDuration();
         } finally {
-            Files.deleteIfExists(context.getTestFile());
+            observePhase(context, PHASE_COMPLETE, System.nanoTime() - completeStart);
         }
 
+        timer.observeDuration();
+
         return CONTINUE_PROCESSING;
     }
 
-    private static long validateTestFileSize(final MantaOperationContext context,
-                                             final ServerSideMultipartManager multipartManager)
-            throws IOException {
-        final long fileSize = validateTestFileSize(context);
+    /**
+     * Splits the payload into parts using the runner's configured part
+     * counts or part sizes, taking each execution's turn from the list so
+     * that a range of geometries is swept over successive executions. A
+     * configured part count is reduced if the payload is too small to split
+     * into that many parts of the minimum size, and a configured part size
+     * is increased if it would need more parts than Manta allows.
+     */
+    private static long[] calculatePartSizes(final MantaOperationContext context,
+                                             final ServerSideMultipartManager multipartManager) {
+        final long fileSize = context.getTestFileSize();
+        final int minimumPartSize = multipartManager.getMinimumPartSize();
+        final int maxParts = multipartManager.getMaxParts();
+        final List<Integer> partCounts = context.getPartCounts();
+        final List<Long> partSizes = context.getPartSizes();
+
+        if (partSizes != null) {
+            final long partSize = partSizes.get((int)(context.getIteration() % partSizes.size()));
+            return calculateChunkSizesForPartSize(fileSize, partSize, minimumPartSize, maxParts);
+        }
+
+        final int totalParts;
+
+        if (partCounts != null) {
+            final int partCount = partCounts.get((int)(context.getIteration() % partCounts.size()));
+            totalParts = (int)Math.max(1, Math.min(partCount,
+                    Math.min(maxParts, fileSize / minimumPartSize)));
+        } else {
+            totalParts = calculateNumberOfParts(context, minimumPartSize);
+        }
+
+        return calculateChunkSizes(fileSize, totalParts, minimumPartSize);
+    }
+
+    /*
+     * Rejects payloads that are too small to be uploaded in parts, before
+     * any part layout is worked out for them.
+     */
+    private static void validateTestFileSize(final MantaOperationContext context,
+                                             final ServerSideMultipartManager multipartManager) {
+        final long fileSize = context.getTestFileSize();
 
         if (fileSize < multipartManager.getMinimumPartSize()) {
             String msg = String.format("File size too small for multipart upload"
@@ -72,64 +153,308 @@ public class MultipartPutFileCommand extends PutFileCommand {
                     multipartManager.getMinimumPartSize(), fileSize);
             throw new IllegalArgumentException(msg);
         }
-
-        return fileSize;
     }
 
     private static ServerSideMultipartUpload buildMultipartUpload(
             final String filePath,
             final MantaOperationContext context,
             final ServerSideMultipartManager multipartManager) throws IOException {
-        final long fileSize = validateTestFileSize(context, multipartManager);
         final MantaHttpHeaders headers = buildHeaders();
         final MantaMetadata metadata = buildMetadata(context);
         return multipartManager.initiateUpload(
-                filePath, fileSize, metadata, headers);
+                filePath, context.getTestFileSize(), metadata, headers);
     }
 
     private ImmutableSet<MantaMultipartUploadPart> createAndUploadParts(
             final ServerSideMultipartUpload upload,
             final MantaOperationContext context,
-            final int totalParts,
-            final ServerSideMultipartManager multipartManager) throws IOException {
-        final Path testFilePath = context.getTestFile();
-        final long fileSize = context.getTestFileSize();
-        final int minimumPartSize = multipartManager.getMinimumPartSize();
+            final long[] chunkSizes,
+            final ServerSideMultipartManager multipartManager)
+            throws IOException {
+        final Executor partExecutor = context.getPartExecutor();
+        final int parallelism = context.getPartParallelism();
+        final MessageDigest[] partDigests = PayloadMode.PARTS.equals(context.getPayloadMode())
+                ? new MessageDigest[chunkSizes.length] : null;
+        final ImmutableSet<MantaMultipartUploadPart> parts;
+
+        if (partExecutor != null && parallelism > 1 && chunkSizes.length > 1) {
+            parts = uploadPartsInParallel(upload, context, chunkSizes,
+                    multipartManager, partExecutor, parallelism, partDigests);
+        } else {
+            parts = uploadPartsSequentially(upload, context, chunkSizes,
+                    multipartManager, partDigests);
+        }
+
+        if (partDigests != null) {
+            final byte[][] digests = new byte[partDigests.length][];
 
-        final long[] chunkSizes = calculateChunkSizes(fileSize, totalParts,
-                minimumPartSize);
+            for (int i = 0; i < partDigests.length; i++) {
+                digests[i] = partDigests[i].digest();
+            }
 
+            context.setCompositeChecksum(CompositeChecksum.combine(
+                    context.getDigestAlgorithm()::newDigest, digests), chunkSizes);
+        }
+
+        return parts;
+    }
+
+    /**
+     * Uploads each part in turn from a single stream of the payload, counting
+     * the bytes read from it so that the upload isn't completed if they don't
+     * add up to the size of the payload.
+     *
+     * @throws IOException thrown when a part can't be read or uploaded
+     */
+    private static ImmutableSet<MantaMultipartUploadPart> uploadPartsSequentially(
+            final ServerSideMultipartUpload upload,
+            final MantaOperationContext context,
+            final long[] chunkSizes,
+            final ServerSideMultipartManager multipartManager,
+            final MessageDigest[] partDigests) throws IOException {
         final ImmutableSet.Builder<MantaMultipartUploadPart> parts = new ImmutableSet.Builder<>();
+        final long start = System.nanoTime();
+        long summedNanos = 0;
 
-        try (InputStream pathIn = Files.newInputStream(testFilePath)) {
+        try (CountingInputStream pathIn = new CountingInputStream(context.getPayload().openStream())) {
             for (int i = 0; i < chunkSizes.length; i++) {
                 final int partNumber = i + 1;
                 final long chunkSize = chunkSizes[i];
 
                 BoundedInputStream bounded = new BoundedInputStream(pathIn, chunkSize);
-                CloseShieldInputStream cin = new CloseShieldInputStream(bounded);
-
-                MantaMultipartUploadPart part = multipartManager.uploadPart(upload, partNumber, cin);
-                parts.add(part);
+                InputStream cin = new CloseShieldInputStream(bounded);
+
+                if (partDigests != null) {
+                    partDigests[i] = context.getDigestAlgorithm().newDigest();
+                    cin = new DigestInputStream(cin, partDigests[i]);
+                }
+
+                final long partStart = System.nanoTime();
+
+                try {
+                    parts.add(multipartManager.uploadPart(upload, partNumber, cin));
+                } finally {
+                    final long partNanos = System.nanoTime() - partStart;
+                    observePhase(context, PHASE_PART, partNanos);
+                    summedNanos += partNanos;
+                }
             }
+
+            /* Don't complete the upload if what we sent isn't what we
+             * generated. */
+            verifyUploadedSize(context, pathIn.getByteCount());
+            TransferMetrics.recordUpload(context, Operations.MPU,
+                    pathIn.getByteCount(), System.nanoTime() - start);
+        } catch (DataValidationException | IOException e) {
+            abort(upload, multipartManager, context);
+            throw e;
         } catch (RuntimeException e) {
-            try {
-                multipartManager.abort(upload);
-            } catch (RuntimeException aboutException) {
-                LOG.error("Error aborting MPU after failed part upload", e);
-            }
+            abort(upload, multipartManager, context);
 
             MantaOperationException moe = new MantaOperationException(e);
             moe.setContextValue("path", upload.getPath());
 
             throw moe;
-        } finally {
-            Files.deleteIfExists(testFilePath);
         }
 
+        recordPartTimes(context, System.nanoTime() - start, summedNanos);
+
         return parts.build();
     }
 
+    /**
+     * Uploads up to the given number of parts at once, each read from its own
+     * stream of the payload. Because the parts are read out of order, the
+     * data sent is checked by counting the bytes of each part rather than by
+     * digesting the whole object. When part digests are passed, each part is
+     * hashed by its own digest. The upload is aborted as soon as any part
+     * fails, once the parts already in flight have finished.
+     *
+     * @throws IOException thrown when a part can't be read or uploaded
+     */
+    @VisibleForTesting
+    static ImmutableSet<MantaMultipartUploadPart> uploadPartsInParallel(
+            final ServerSideMultipartUpload upload,
+            final MantaOperationContext context,
+            final long[] chunkSizes,
+            final ServerSideMultipartManager multipartManager,
+            final Executor partExecutor,
+            final int parallelism,
+            final MessageDigest[] partDigests) throws IOException {
+        final Payload payload = context.getPayload();
+        final String path = context.getFilePath();
+        final MantaMultipartUploadPart[] uploaded = new MantaMultipartUploadPart[chunkSizes.length];
+        final CompletionService<Long> completion = new ExecutorCompletionService<>(partExecutor);
+        final List<Future<Long>> futures = new ArrayList<>(chunkSizes.length);
+
+        final long start = System.nanoTime();
+        long summedNanos = 0;
+        long offset = 0;
+        int next = 0;
+        int outstanding = 0;
+        Throwable failure = null;
+
+        try {
+            while (failure == null && (next < chunkSizes.length || outstanding > 0)) {
+                while (next < chunkSizes.length && outstanding < parallelism) {
+                    final int index = next;
+                    final long partOffset = offset;
+                    final long partSize = chunkSizes[index];
+
+                    if (partDigests != null) {
+                        partDigests[index] = context.getDigestAlgorithm().newDigest();
+                    }
+
+                    futures.add(completion.submit(() -> {
+                        final long partStart = System.nanoTime();
+
+                        try {
+                            InputStream in = payload.openStream(partOffset, partSize);
+
+                            if (partDigests != null) {
+                                in = new DigestInputStream(in, partDigests[index]);
+                            }
+
+                            uploaded[index] = uploadPart(upload, multipartManager, in,
+                                    index + 1, partSize, path);
+                            return System.nanoTime() - partStart;
+                        } finally {
+                            /* Failed parts are observed too, so that slow
+                             * failures show up in the part latency. */
+                            observePhase(context, PHASE_PART, System.nanoTime() - partStart);
+                        }
+                    }));
+
+                    offset += partSize;
+                    next++;
+                    outstanding++;
+                }
+
+                final Future<Long> done = completion.take();
+                outstanding--;
+
+                try {
+                    summedNanos += done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                }
+            }
+
+            /* The parts still in flight are left to finish so that none of
+             * them are uploaded after the abort. */
+            for (; outstanding > 0; outstanding--) {
+                completion.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+
+            failure = e;
+        }
+
+        if (failure != null) {
+            abort(upload, multipartManager, context);
+            throw rethrowPartFailure(failure, path);
+        }
+
+        final long wallNanos = System.nanoTime() - start;
+        recordPartTimes(context, wallNanos, summedNanos);
+        /* Each part's byte count has been checked against its size. */
+        TransferMetrics.recordUpload(context, Operations.MPU,
+                Arrays.stream(chunkSizes).sum(), wallNanos);
+
+        return ImmutableSet.copyOf(uploaded);
+    }
+
+    private static MantaMultipartUploadPart uploadPart(final ServerSideMultipartUpload upload,
+                                                      final ServerSideMultipartManager multipartManager,
+                                                      final InputStream data,
+                                                      final int partNumber,
+                                                      final long size,
+                                                      final String path) throws IOException {
+        try (CountingInputStream in = new CountingInputStream(data)) {
+            final MantaMultipartUploadPart part = multipartManager.uploadPart(upload, partNumber, in);
+
+            if (in.getByteCount() != size) {
+                String msg = "The number of bytes uploaded for a part doesn't "
+                        + "match the size of the part generated";
+                DataValidationException dve = new DataValidationException(msg);
+                dve.setContextValue("path", path);
+                dve.setContextValue("partNumber", partNumber);
+                dve.setContextValue("expectedPartSize", size);
+                dve.setContextValue("uploadedPartSize", in.getByteCount());
+                throw dve;
+            }
+
+            return part;
+        }
+    }
+
+    /**
+     * Converts the failure of a part upload into the exception thrown by the
+     * command, in the same way as failures of sequential uploads.
+     */
+    private static IOException rethrowPartFailure(final Throwable failure, final String path) {
+        if (failure instanceof IOException) {
+            return (IOException)failure;
+        }
+
+        if (failure instanceof DataValidationException) {
+            throw (DataValidationException)failure;
+        }
+
+        if (failure instanceof Error) {
+            throw (Error)failure;
+        }
+
+        MantaOperationException moe = new MantaOperationException(failure);
+        moe.setContextValue("path", path);
+
+        throw moe;
+    }
+
+    private static void observePhase(final MantaOperationContext context,
+                                     final String phase,
+                                     final long nanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics != null) {
+            metrics.getMpuPhaseLatency().labels(context.getChainClassNameKey(), phase)
+                    .observe(nanos / NANOS_PER_SECOND);
+        }
+    }
+
+    private static void recordPartTimes(final MantaOperationContext context,
+                                        final long wallNanos,
+                                        final long summedNanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics == null) {
+            return;
+        }
+
+        final String chainName = context.getChainClassNameKey();
+        metrics.getMpuPartsWallTime().labels(chainName).observe(wallNanos / NANOS_PER_SECOND);
+        metrics.getMpuPartsSummedTime().labels(chainName).observe(summedNanos / NANOS_PER_SECOND);
+    }
+
+    private static void abort(final ServerSideMultipartUpload upload,
+                              final ServerSideMultipartManager multipartManager,
+                              final MantaOperationContext context) throws IOException {
+        final long start = System.nanoTime();
+
+        try {
+            multipartManager.abort(upload);
+        } catch (RuntimeException e) {
+            LOG.error("Error aborting MPU after failed part upload", e);
+        } finally {
+            observePhase(context, PHASE_ABORT, System.nanoTime() - start);
+        }
+    }
+
     private static int calculateNumberOfParts(final MantaOperationContext context,
                                               final int minimumPartSize) {
         final long fileSize = context.getTestFileSize();
@@ -150,6 +475,28 @@ public class MultipartPutFileCommand extends PutFileCommand {
         }
     }
 
+    @VisibleForTesting
+    static long[] calculateChunkSizesForPartSize(final long fileSize, final long partSize,
+                                                 final int minimumPartSize, final int maxParts) {
+        if (partSize < minimumPartSize) {
+            String msg = String.format("Configured part size [%d] is less than "
+                    + "the minimum part size [%d]", partSize, minimumPartSize);
+            throw new IllegalArgumentException(msg);
+        }
+
+        final long chunkSize = Math.max(partSize, (fileSize + maxParts - 1) / maxParts);
+        final int totalParts = (int)((fileSize + chunkSize - 1) / chunkSize);
+        final long[] chunkSizes = new long[totalParts];
+
+        /* Every part is the same size except the last, which has what's
+         * left over. Only the last part may be smaller than the minimum. */
+        for (int i = 0; i < totalParts; i++) {
+            chunkSizes[i] = Math.min(chunkSize, fileSize - chunkSize * i);
+        }
+
+        return chunkSizes;
+    }
+
     @VisibleForTesting
     static long[] calculateChunkSizes(final long fileSize, final int totalParts,
                                       final int minimumPartSize) {
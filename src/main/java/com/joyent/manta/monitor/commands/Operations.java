@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+/**
+ * Names of the Manta operations performed by commands, as used for the
+ * operation label of the metrics that they record.
+ */
+final class Operations {
+    static final String PUT = "put";
+    static final String MPU = "mpu";
+    static final String HEAD = "head";
+    static final String GET = "get";
+    static final String GET_RANGE = "get_range";
+
+    private Operations() {
+    }
+}
@@ -14,14 +14,18 @@ import com.joyent.manta.client.MantaObjectResponse;
 import com.joyent.manta.http.MantaHttpHeaders;
 import com.joyent.manta.monitor.MantaOperationContext;
 import com.joyent.manta.monitor.MantaOperationException;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.config.PayloadMode;
+import com.joyent.manta.monitor.digests.CompositeChecksum;
+import com.joyent.manta.monitor.payloads.GeneratedPayload;
+import com.joyent.manta.monitor.payloads.Payload;
 import io.prometheus.client.Histogram;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.input.CountingInputStream;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.Objects;
-import java.util.UUID;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -33,14 +37,10 @@ public class PutFileCommand implements MantaOperationCommand {
 
     @Override
     public boolean execute(final MantaOperationContext context) throws Exception {
-        validateTestFileSize(context);
-
         final MantaClient client = context.getMantaClient();
         final String filePath = generateFilePath(context);
         context.setFilePath(filePath);
 
-        final File file = context.getTestFile().toFile();
-
         final Stopwatch stopwatch = Stopwatch.createUnstarted();
 
         try {
@@ -52,39 +52,60 @@ public class PutFileCommand implements MantaOperationCommand {
 
             /* Record the latencies per PUT operation so that we can act upon
              * pathological latency numbers. */
-            final MantaObjectResponse response = client.put(
-                    filePath, file, headers, metadata);
+            putPayload(client, filePath, context, headers, metadata);
             timer.observeDuration();
             stopwatch.stop();
-            final UUID requestId = UUID.fromString(response.getRequestId());
-            final Integer responseTime = parseResponseTime(response.getHttpHeaders());
-            context.getResponseTimes().put(requestId, responseTime);
         } catch (RuntimeException e) {
             throw new MantaOperationException(e).setPath(filePath);
         } finally {
-            /* Delete the temp file so that we don't have junk cluttering
-             * up our filesystem. */
-            Files.deleteIfExists(context.getTestFile());
             LOG.info("Put operation took: {} milliseconds", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         }
 
         return CONTINUE_PROCESSING;
     }
 
-    protected static long validateTestFileSize(final MantaOperationContext context)
-            throws IOException {
-        Objects.requireNonNull(context.getTestFile());
-        final long fileSize = context.getTestFileSize();
-        final long actualFileSize = Files.size(context.getTestFile());
-
-        if (fileSize != actualFileSize) {
-            String msg = String.format("File written to filesystem [%d bytes] "
-                            + "is not the same size as stored in context [%d bytes]",
-                    actualFileSize, fileSize);
-            throw new IllegalArgumentException(msg);
+    /**
+     * Streams the test payload to Manta while counting the bytes sent, then
+     * checks that all of them were sent once the upload has completed. The
+     * content isn't hashed again here: its checksum has to be known before
+     * the upload starts to be sent as metadata, and the Manta client already
+     * checks the data it sent against the MD5 computed by the server.
+     *
+     * @throws IOException thrown when the payload can't be read or uploaded
+     */
+    private static MantaObjectResponse putPayload(final MantaClient client,
+                                                  final String filePath,
+                                                  final MantaOperationContext context,
+                                                  final MantaHttpHeaders headers,
+                                                  final MantaMetadata metadata) throws IOException {
+        final Payload payload = context.getPayload();
+        final MantaObjectResponse response;
+
+        final MessageDigest partDigest = PayloadMode.PARTS.equals(context.getPayloadMode())
+                ? context.getDigestAlgorithm().newDigest() : null;
+        InputStream source = payload.openStream();
+
+        if (partDigest != null) {
+            source = new DigestInputStream(source, partDigest);
+        }
+
+        try (CountingInputStream in = new CountingInputStream(source)) {
+            final long start = System.nanoTime();
+            response = client.put(filePath, in, payload.getSize(), headers, metadata);
+            final long nanos = System.nanoTime() - start;
+            ResponseMetrics.record(context, Operations.PUT, response.getHttpHeaders(), nanos);
+            verifyUploadedSize(context, in.getByteCount());
+            TransferMetrics.recordUpload(context, Operations.PUT, in.getByteCount(), nanos);
         }
 
-        return fileSize;
+        /* An object uploaded in one piece is a single part. */
+        if (partDigest != null) {
+            context.setCompositeChecksum(CompositeChecksum.combine(
+                    context.getDigestAlgorithm()::newDigest, new byte[][] {partDigest.digest()}),
+                    new long[] {payload.getSize()});
+        }
+
+        return response;
     }
 
     protected static MantaHttpHeaders buildHeaders() {
@@ -95,7 +116,19 @@ public class PutFileCommand implements MantaOperationCommand {
 
     protected static MantaMetadata buildMetadata(final MantaOperationContext context) {
         final MantaMetadata metadata = new MantaMetadata();
-        metadata.put("m-sha256-checksum", context.getTestFileChecksumAsString());
+        final String checksum = context.getTestFileChecksumAsString();
+        final Long seed = context.getPayloadSeed();
+
+        if (checksum != null) {
+            final DigestAlgorithm algorithm = context.getDigestAlgorithm();
+            metadata.put(algorithm.getChecksumMetadataKey(), checksum);
+            metadata.put(DigestAlgorithm.METADATA_KEY, algorithm.getName());
+        }
+
+        if (seed != null) {
+            metadata.put(GeneratedPayload.SEED_METADATA_KEY, seed.toString());
+        }
+
         return metadata;
     }
 
@@ -104,23 +137,36 @@ public class PutFileCommand implements MantaOperationCommand {
         if ("buckets".equals(context.getTestType())) {
             filePath = String.format("%s%sobjects%s%s.txt",
                     context.getBucketPath(), MantaClient.SEPARATOR,
-                    MantaClient.SEPARATOR, context.getTestFileChecksumAsString());
+                    MantaClient.SEPARATOR, context.getObjectIdAsString());
         } else {
-            final byte[] checksum = context.getTestFileChecksum();
-            final String dir = context.getFilePathGenerationFunction().apply(checksum);
-            filePath = String.format("%s%s.txt", dir, context.getTestFileChecksumAsString());
+            final byte[] objectId = context.getObjectId();
+            final String dir = context.getFilePathGenerationFunction().apply(objectId);
+            filePath = String.format("%s%s.txt", dir, context.getObjectIdAsString());
         }
 
         return filePath;
     }
 
-    protected static Integer parseResponseTime(final MantaHttpHeaders headers) {
-        final String responseTimeAsString = Objects.toString(headers.get("x-response-time"));
-
-        if (StringUtils.isBlank(responseTimeAsString)) {
-            return null;
+    /**
+     * Checks that all of the payload was sent.
+     *
+     * @param context context containing the expected size
+     * @param uploadedSize number of bytes read from the payload by the upload
+     * @throws DataValidationException thrown when the number of bytes sent
+     *                                 doesn't match the size generated
+     */
+    protected static void verifyUploadedSize(final MantaOperationContext context,
+                                             final long uploadedSize) {
+        final long expectedFileSize = context.getTestFileSize();
+
+        if (uploadedSize != expectedFileSize) {
+            String msg = "The number of bytes uploaded doesn't match the size "
+                    + "of the file generated";
+            DataValidationException dve = new DataValidationException(msg);
+            dve.setContextValue("path", context.getFilePath());
+            dve.setContextValue("expectedFileSize", expectedFileSize);
+            dve.setContextValue("uploadedFileSize", uploadedSize);
+            throw dve;
         }
-
-        return Integer.parseInt(responseTimeAsString);
     }
 }
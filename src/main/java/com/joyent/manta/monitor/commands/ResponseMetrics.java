@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the metrics taken from the headers of Manta's responses: the time
+ * that Manta reports spending on a request in the <code>x-response-time</code>
+ * header next to the time the client waited for it, so that latency added by
+ * the network path (TLS, load balancers and so on) can be told apart from
+ * latency within Manta, and the time the client waited by the server that
+ * served the request, so that one slow server can be picked out.
+ */
+final class ResponseMetrics {
+    static final String RESPONSE_TIME_HEADER = "x-response-time";
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    private ResponseMetrics() {
+    }
+
+    /**
+     * Records the metrics for a successful response.
+     *
+     * @param context context holding the metrics and chain name
+     * @param operation name of the operation performed
+     * @param headers headers of the response
+     * @param clientNanos time the client waited for the response to the request
+     */
+    static void record(final MantaOperationContext context,
+                       final String operation,
+                       final MantaHttpHeaders headers,
+                       final long clientNanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics != null) {
+            final String server = metrics.getServerLabels().labelFor(headers);
+            metrics.getServerRequestLatency()
+                    .labels(context.getChainClassNameKey(), operation, server)
+                    .observe(clientNanos / NANOS_PER_SECOND);
+        }
+
+        recordResponseTime(context, operation, headers, clientNanos);
+    }
+
+    /**
+     * Records the server's response time for a request, if it reported one.
+     */
+    private static void recordResponseTime(final MantaOperationContext context,
+                                           final String operation,
+                                           final MantaHttpHeaders headers,
+                                           final long clientNanos) {
+        final Integer responseTime = parse(headers);
+
+        if (responseTime == null) {
+            return;
+        }
+
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics == null) {
+            return;
+        }
+
+        final String chainName = context.getChainClassNameKey();
+        final double serverSeconds = responseTime / MILLIS_PER_SECOND;
+        /* The server only reports whole milliseconds, so it may appear to
+         * have taken slightly longer than the client waited. */
+        final double overheadSeconds = Math.max(0d, clientNanos / NANOS_PER_SECOND - serverSeconds);
+
+        metrics.getServerResponseTime().labels(chainName, operation).observe(serverSeconds);
+        metrics.getClientOverhead().labels(chainName, operation).observe(overheadSeconds);
+    }
+
+    /**
+     * Parses the server's response time in milliseconds from a response's
+     * headers.
+     *
+     * @param headers headers of the response
+     * @return response time in milliseconds or null if none was reported
+     */
+    @Nullable
+    static Integer parse(@Nullable final MantaHttpHeaders headers) {
+        if (headers == null) {
+            return null;
+        }
+
+        final String value = headers.getFirstHeaderStringValue(RESPONSE_TIME_HEADER);
+
+        if (StringUtils.isBlank(value) || !NumberUtils.isDigits(value.trim())) {
+            return null;
+        }
+
+        return NumberUtils.toInt(value.trim());
+    }
+}
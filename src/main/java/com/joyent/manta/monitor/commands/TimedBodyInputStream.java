@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.InputStream;
+
+/**
+ * {@link CountingInputStream} that also notes when the first byte of a
+ * response body was read and when the end of it was reached, so that the
+ * time spent waiting for the body can be told apart from the time spent
+ * transferring it.
+ */
+class TimedBodyInputStream extends CountingInputStream {
+    private static final int EOF = -1;
+
+    private long firstByteNanos;
+    private long endNanos;
+
+    TimedBodyInputStream(final InputStream in) {
+        super(in);
+    }
+
+    @Override
+    protected synchronized void afterRead(final int n) {
+        super.afterRead(n);
+
+        if (n > 0 && firstByteNanos == 0) {
+            firstByteNanos = System.nanoTime();
+        } else if (n == EOF && endNanos == 0) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return value of {@link System#nanoTime()} when the first byte was
+     *         read or 0 if none has been
+     */
+    synchronized long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * @return value of {@link System#nanoTime()} when the end of the stream
+     *         was reached or 0 if it hasn't been
+     */
+    synchronized long getEndNanos() {
+        return endNanos;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.apache.commons.chain.Context;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MantaOperationCommand} decorator that records how long each
+ * execution of the wrapped command takes in the context's
+ * {@link com.joyent.manta.monitor.latency.LatencyRecorders} and in the
+ * command duration histogram, labelled by chain, runner and command.
+ * Executions that fail are recorded as well, so that timeouts show up in the
+ * tail latencies.
+ */
+public class TimedCommand implements MantaOperationCommand {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MantaOperationCommand delegate;
+    private final String name;
+
+    public TimedCommand(final MantaOperationCommand delegate) {
+        this.delegate = delegate;
+        this.name = delegate.getClass().getSimpleName();
+    }
+
+    /**
+     * Wraps every {@link MantaOperationCommand} in a collection of commands.
+     *
+     * @param commands commands to wrap
+     * @return list of the commands in the same order
+     */
+    public static List<Object> wrapAll(final Collection<?> commands) {
+        final List<Object> wrapped = new ArrayList<>(commands.size());
+
+        for (Object command : commands) {
+            if (command instanceof TimedCommand) {
+                wrapped.add(command);
+            } else if (command instanceof MantaOperationCommand) {
+                wrapped.add(new TimedCommand((MantaOperationCommand)command));
+            } else {
+                wrapped.add(command);
+            }
+        }
+
+        return wrapped;
+    }
+
+    public MantaOperationCommand getDelegate() {
+        return delegate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean execute(final MantaOperationContext context) throws Exception {
+        final long start = System.nanoTime();
+
+        try {
+            return delegate.execute(context);
+        } catch (Exception e) {
+            context.setFailedCommand(name);
+            throw e;
+        } finally {
+            record(context, start);
+        }
+    }
+
+    private void record(final MantaOperationContext context, final long startNanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics != null) {
+            final long elapsed = System.nanoTime() - startNanos;
+            final String chainName = context.getChainClassNameKey();
+
+            metrics.getLatencyRecorders().get(chainName, name).record(elapsed);
+            metrics.getCommandDuration()
+                    .labels(chainName, Objects.toString(context.getRunnerName(), ""), name)
+                    .observe(elapsed / NANOS_PER_SECOND);
+        }
+    }
+
+    @Override
+    public boolean postprocess(final Context context, final Exception exception) {
+        return delegate.postprocess(context, exception);
+    }
+}
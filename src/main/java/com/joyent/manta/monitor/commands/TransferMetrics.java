@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.sizes.SizeClass;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the number of bytes moved by each upload or download and the rate
+ * at which they were moved, so that a large and a small transfer taking the
+ * same time can be told apart.
+ */
+final class TransferMetrics {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double BYTES_PER_MEGABYTE = 1_000_000d;
+
+    private TransferMetrics() {
+    }
+
+    /**
+     * Records the bytes sent by an upload that completed.
+     *
+     * @param context context holding the metrics and chain name
+     * @param operation name of the upload operation
+     * @param bytes number of bytes sent
+     * @param nanos time taken to send them
+     */
+    static void recordUpload(final MantaOperationContext context,
+                             final String operation,
+                             final long bytes,
+                             final long nanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics != null) {
+            metrics.getUploadedBytes().labels(context.getChainClassNameKey()).inc(bytes);
+            observeThroughput(metrics, context, operation, bytes, nanos);
+        }
+    }
+
+    /**
+     * Records the bytes read by a download that completed.
+     *
+     * @param context context holding the metrics and chain name
+     * @param operation name of the download operation
+     * @param bytes number of bytes read
+     * @param nanos time taken from sending the request until they were read
+     */
+    static void recordDownload(final MantaOperationContext context,
+                               final String operation,
+                               final long bytes,
+                               final long nanos) {
+        final MantaMonitorMetrics metrics = context.getMetrics();
+
+        if (metrics != null) {
+            metrics.getDownloadedBytes().labels(context.getChainClassNameKey()).inc(bytes);
+            observeThroughput(metrics, context, operation, bytes, nanos);
+        }
+    }
+
+    private static void observeThroughput(final MantaMonitorMetrics metrics,
+                                          final MantaOperationContext context,
+                                          final String operation,
+                                          final long bytes,
+                                          final long nanos) {
+        /* An empty object says nothing about bandwidth. */
+        if (bytes == 0 || nanos <= 0) {
+            return;
+        }
+
+        metrics.getTransferThroughput()
+                .labels(context.getChainClassNameKey(), operation, SizeClass.of(bytes).getLabel())
+                .observe(megabytesPerSecond(bytes, nanos));
+    }
+
+    /**
+     * @param bytes number of bytes moved
+     * @param nanos time taken to move them
+     * @return rate at which the bytes were moved in megabytes (10^6 bytes)
+     *         per second
+     */
+    static double megabytesPerSecond(final long bytes, final long nanos) {
+        return (bytes / BYTES_PER_MEGABYTE) / (nanos / NANOS_PER_SECOND);
+    }
+}
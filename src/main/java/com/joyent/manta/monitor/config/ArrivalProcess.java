@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enum describing how the start times of chain executions are spaced when a
+ * runner is configured with a target rate of operations.
+ */
+public enum ArrivalProcess {
+    /**
+     * Executions start at exactly evenly spaced intervals.
+     */
+    @JsonProperty("fixed")
+    FIXED {
+        @Override
+        public long nextIntervalNanos(final double opsPerSecond, final Random random) {
+            return Math.round(NANOS_PER_SECOND / opsPerSecond);
+        }
+    },
+
+    /**
+     * Executions start at exponentially distributed intervals, as do the
+     * requests from a large population of independent clients.
+     */
+    @JsonProperty("poisson")
+    POISSON {
+        @Override
+        public long nextIntervalNanos(final double opsPerSecond, final Random random) {
+            /* 1 - nextDouble() is in (0, 1], so the logarithm is finite. */
+            final double u = 1.0 - random.nextDouble();
+            return Math.round(-Math.log(u) * NANOS_PER_SECOND / opsPerSecond);
+        }
+    };
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Calculates the time between the start of one execution and the next.
+     *
+     * @param opsPerSecond mean number of executions started per second
+     * @param random source of randomness
+     * @return interval in nanoseconds
+     */
+    public abstract long nextIntervalNanos(double opsPerSecond, Random random);
+}
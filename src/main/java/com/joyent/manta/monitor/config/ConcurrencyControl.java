@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+
+/**
+ * Configuration class for a runner's adaptive concurrency controller. The
+ * controller periodically compares the chain's p99 latency and error rate
+ * against the configured objectives, and additively raises or
+ * multiplicatively lowers the number of threads allowed to run chains at
+ * once, between {@link #getMinConcurrency()} and the runner's threads.
+ */
+public class ConcurrencyControl {
+    private final long latencySloMillis;
+    private double maxErrorRate = 0.01;
+    private int minConcurrency = 1;
+    private Integer initialConcurrency;
+    private int additiveIncrease = 1;
+    private double multiplicativeDecrease = 0.75;
+    private long adjustIntervalMillis = 10_000L;
+    private int minSamples = 20;
+
+    @JsonCreator
+    public ConcurrencyControl(@JsonProperty("latencySloMillis") final long latencySloMillis) {
+        Validate.isTrue(latencySloMillis > 0, "latencySloMillis must be greater than zero");
+        this.latencySloMillis = latencySloMillis;
+    }
+
+    /**
+     * @return p99 chain latency in milliseconds above which concurrency is lowered
+     */
+    public long getLatencySloMillis() {
+        return latencySloMillis;
+    }
+
+    /**
+     * @return fraction of failed chain executions above which concurrency is lowered
+     */
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    @JsonProperty("maxErrorRate")
+    public ConcurrencyControl setMaxErrorRate(final double maxErrorRate) {
+        Validate.inclusiveBetween(0.0, 1.0, maxErrorRate, "maxErrorRate must be between 0 and 1");
+        this.maxErrorRate = maxErrorRate;
+        return this;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    @JsonProperty("minConcurrency")
+    public ConcurrencyControl setMinConcurrency(final int minConcurrency) {
+        Validate.isTrue(minConcurrency > 0, "minConcurrency must be greater than zero");
+        this.minConcurrency = minConcurrency;
+        return this;
+    }
+
+    /**
+     * @return concurrency limit when the runner starts, which defaults to
+     *         the minimum concurrency
+     */
+    public int getInitialConcurrency() {
+        return Math.max(minConcurrency, ObjectUtils.defaultIfNull(initialConcurrency, minConcurrency));
+    }
+
+    @JsonProperty("initialConcurrency")
+    public ConcurrencyControl setInitialConcurrency(final Integer initialConcurrency) {
+        this.initialConcurrency = initialConcurrency;
+        return this;
+    }
+
+    public int getAdditiveIncrease() {
+        return additiveIncrease;
+    }
+
+    @JsonProperty("additiveIncrease")
+    public ConcurrencyControl setAdditiveIncrease(final int additiveIncrease) {
+        Validate.isTrue(additiveIncrease > 0, "additiveIncrease must be greater than zero");
+        this.additiveIncrease = additiveIncrease;
+        return this;
+    }
+
+    public double getMultiplicativeDecrease() {
+        return multiplicativeDecrease;
+    }
+
+    @JsonProperty("multiplicativeDecrease")
+    public ConcurrencyControl setMultiplicativeDecrease(final double multiplicativeDecrease) {
+        Validate.exclusiveBetween(0.0, 1.0, multiplicativeDecrease,
+                "multiplicativeDecrease must be between 0 and 1");
+        this.multiplicativeDecrease = multiplicativeDecrease;
+        return this;
+    }
+
+    public long getAdjustIntervalMillis() {
+        return adjustIntervalMillis;
+    }
+
+    @JsonProperty("adjustIntervalMillis")
+    public ConcurrencyControl setAdjustIntervalMillis(final long adjustIntervalMillis) {
+        Validate.isTrue(adjustIntervalMillis > 0, "adjustIntervalMillis must be greater than zero");
+        this.adjustIntervalMillis = adjustIntervalMillis;
+        return this;
+    }
+
+    /**
+     * @return minimum number of chain executions for the controller to act
+     *         on, executions are accumulated across intervals until reached
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    @JsonProperty("minSamples")
+    public ConcurrencyControl setMinSamples(final int minSamples) {
+        Validate.isTrue(minSamples >= 0, "minSamples must not be negative");
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final ConcurrencyControl that = (ConcurrencyControl) o;
+        return latencySloMillis == that.latencySloMillis
+                && Double.compare(maxErrorRate, that.maxErrorRate) == 0
+                && minConcurrency == that.minConcurrency
+                && Objects.equals(initialConcurrency, that.initialConcurrency)
+                && additiveIncrease == that.additiveIncrease
+                && Double.compare(multiplicativeDecrease, that.multiplicativeDecrease) == 0
+                && adjustIntervalMillis == that.adjustIntervalMillis
+                && minSamples == that.minSamples;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(latencySloMillis, maxErrorRate, minConcurrency, initialConcurrency,
+                additiveIncrease, multiplicativeDecrease, adjustIntervalMillis, minSamples);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("latencySloMillis", latencySloMillis)
+                .append("maxErrorRate", maxErrorRate)
+                .append("minConcurrency", minConcurrency)
+                .append("initialConcurrency", initialConcurrency)
+                .append("additiveIncrease", additiveIncrease)
+                .append("multiplicativeDecrease", multiplicativeDecrease)
+                .append("adjustIntervalMillis", adjustIntervalMillis)
+                .append("minSamples", minSamples)
+                .toString();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.joyent.manta.monitor.digests.Crc32cMessageDigest;
+import com.joyent.manta.monitor.digests.XxHash64MessageDigest;
+import org.jetbrains.annotations.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Enum describing the algorithm used to check the integrity of test data.
+ * The algorithm name and checksum are stored in the metadata of each object
+ * so that it is always verified with the algorithm it was uploaded with.
+ */
+public enum DigestAlgorithm {
+    /**
+     * SHA-256, the original (and default) algorithm.
+     */
+    @JsonProperty("sha256")
+    SHA256("sha256"),
+
+    /**
+     * CRC32C, which is hardware accelerated on most platforms.
+     */
+    @JsonProperty("crc32c")
+    CRC32C("crc32c"),
+
+    /**
+     * 64-bit xxHash, a fast non-cryptographic hash.
+     */
+    @JsonProperty("xxhash64")
+    XXHASH64("xxhash64");
+
+    /**
+     * Name of the metadata header that the algorithm name is stored in.
+     */
+    public static final String METADATA_KEY = "m-checksum-algorithm";
+
+    private final String name;
+
+    DigestAlgorithm(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return name of the algorithm as stored in object metadata
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return name of the metadata header that the checksum is stored in
+     *         (for example <code>m-sha256-checksum</code>)
+     */
+    public String getChecksumMetadataKey() {
+        return "m-" + name + "-checksum";
+    }
+
+    /**
+     * @return a new digest instance for this algorithm
+     * @throws IllegalStateException thrown when SHA-256 isn't supported by the JVM
+     */
+    public MessageDigest newDigest() {
+        switch (this) {
+            case CRC32C:
+                return new Crc32cMessageDigest();
+            case XXHASH64:
+                return new XxHash64MessageDigest();
+            default:
+                try {
+                    return MessageDigest.getInstance("SHA256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+                }
+        }
+    }
+
+    /**
+     * Finds the algorithm recorded in an object's metadata.
+     *
+     * @param name value of the {@link #METADATA_KEY} header
+     * @return the matching algorithm, {@link #SHA256} if no algorithm was
+     *         recorded (objects written before the algorithm was configurable)
+     *         or null if the algorithm is unknown
+     */
+    @Nullable
+    public static DigestAlgorithm fromName(@Nullable final String name) {
+        if (name == null) {
+            return SHA256;
+        }
+
+        for (DigestAlgorithm algorithm : values()) {
+            if (algorithm.name.equals(name)) {
+                return algorithm;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Enum describing where the test data uploaded by a runner comes from.
+ */
+public enum PayloadMode {
+    /**
+     * Test data is written to a temporary file which is uploaded and then
+     * deleted.
+     */
+    @JsonProperty("file")
+    FILE,
+
+    /**
+     * Test data is regenerated from a seed and streamed directly to Manta
+     * without ever touching the local disk.
+     */
+    @JsonProperty("stream")
+    STREAM,
+
+    /**
+     * Test data is regenerated from a seed that is stored in the object's
+     * metadata. No checksum is calculated up front and downloads are
+     * verified by regenerating the expected data and comparing it byte by
+     * byte.
+     */
+    @JsonProperty("seed")
+    SEED,
+
+    /**
+     * Test data is taken from a pool of payloads that are generated and
+     * hashed once at startup and kept off-heap. Each upload appends a unique
+     * salt to a pooled payload, so only the salt is hashed per iteration.
+     */
+    @JsonProperty("pool")
+    POOL,
+
+    /**
+     * Test data is regenerated from a seed, one part at a time, as it is
+     * streamed to Manta. Each part is hashed as it is uploaded and the part
+     * digests are combined into the checksum that downloads are verified
+     * against, so multipart uploads of any size need neither local disk nor
+     * a separate pass over the data to hash it.
+     */
+    @JsonProperty("parts")
+    PARTS
+}
@@ -9,8 +9,13 @@ package com.joyent.manta.monitor.config;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.joyent.manta.monitor.sizes.SizeDistribution;
+import com.joyent.manta.monitor.sizes.UniformSizeDistribution;
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -20,15 +25,31 @@ public class Runner {
     private String chainClassName;
     private String name;
     private int threads;
-    private int minFileSize;
-    private int maxFileSize;
+    private long minFileSize;
+    private long maxFileSize;
+    private SizeDistribution sizeDistribution;
+    private PayloadMode payloadMode = PayloadMode.FILE;
+    private DigestAlgorithm digestAlgorithm = DigestAlgorithm.SHA256;
+    private int poolSizeClasses = 4;
+    private int poolPayloadsPerSizeClass = 4;
+    private VerificationPolicy verification = VerificationPolicy.ALWAYS;
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+    private Double targetOpsPerSecond;
+    private ArrivalProcess arrivalProcess = ArrivalProcess.FIXED;
+    private long maxStartDelayMillis = 1000L;
+    private Long expectedIntervalMillis;
+    private ConcurrencyControl concurrencyControl;
+    private int partParallelism = 1;
+    private Integer maxInFlightChains;
+    private List<Integer> partCounts;
+    private List<Long> partSizes;
 
     @JsonCreator
     public Runner(@JsonProperty("chainClassName") final String chainClassName,
                   @JsonProperty("name") final String name,
                   @JsonProperty("threads") final int threads,
-                  @JsonProperty("minFileSize") final int minFileSize,
-                  @JsonProperty("maxFileSize") final int maxFileSize) {
+                  @JsonProperty("minFileSize") final long minFileSize,
+                  @JsonProperty("maxFileSize") final long maxFileSize) {
         this.chainClassName = chainClassName;
         this.name = name;
         this.threads = threads;
@@ -63,24 +84,268 @@ public class Runner {
         return this;
     }
 
-    public int getMinFileSize() {
+    public long getMinFileSize() {
         return minFileSize;
     }
 
-    public Runner setMinFileSize(final int minFileSize) {
+    public Runner setMinFileSize(final long minFileSize) {
         this.minFileSize = minFileSize;
         return this;
     }
 
-    public int getMaxFileSize() {
+    public long getMaxFileSize() {
         return maxFileSize;
     }
 
-    public Runner setMaxFileSize(final int maxFileSize) {
+    public Runner setMaxFileSize(final long maxFileSize) {
         this.maxFileSize = maxFileSize;
         return this;
     }
 
+    /**
+     * @return the configured size distribution or a uniform distribution
+     *         between the minimum and maximum file size if none is configured
+     */
+    public SizeDistribution getSizeDistribution() {
+        if (sizeDistribution == null) {
+            return new UniformSizeDistribution(minFileSize, maxFileSize);
+        }
+
+        return sizeDistribution;
+    }
+
+    @JsonProperty("sizeDistribution")
+    public Runner setSizeDistribution(final SizeDistribution sizeDistribution) {
+        this.sizeDistribution = sizeDistribution;
+        return this;
+    }
+
+    public PayloadMode getPayloadMode() {
+        return payloadMode;
+    }
+
+    @JsonProperty("payloadMode")
+    public Runner setPayloadMode(final PayloadMode payloadMode) {
+        if (payloadMode != null) {
+            this.payloadMode = payloadMode;
+        }
+        return this;
+    }
+
+    public DigestAlgorithm getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    @JsonProperty("digestAlgorithm")
+    public Runner setDigestAlgorithm(final DigestAlgorithm digestAlgorithm) {
+        if (digestAlgorithm != null) {
+            this.digestAlgorithm = digestAlgorithm;
+        }
+        return this;
+    }
+
+    public int getPoolSizeClasses() {
+        return poolSizeClasses;
+    }
+
+    @JsonProperty("poolSizeClasses")
+    public Runner setPoolSizeClasses(final int poolSizeClasses) {
+        this.poolSizeClasses = poolSizeClasses;
+        return this;
+    }
+
+    public int getPoolPayloadsPerSizeClass() {
+        return poolPayloadsPerSizeClass;
+    }
+
+    @JsonProperty("poolPayloadsPerSizeClass")
+    public Runner setPoolPayloadsPerSizeClass(final int poolPayloadsPerSizeClass) {
+        this.poolPayloadsPerSizeClass = poolPayloadsPerSizeClass;
+        return this;
+    }
+
+    public VerificationPolicy getVerification() {
+        return verification;
+    }
+
+    @JsonProperty("verification")
+    public Runner setVerification(final VerificationPolicy verification) {
+        if (verification != null) {
+            this.verification = verification;
+        }
+
+        return this;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    @JsonProperty("threadMode")
+    public Runner setThreadMode(final ThreadMode threadMode) {
+        if (threadMode != null) {
+            this.threadMode = threadMode;
+        }
+
+        return this;
+    }
+
+    /**
+     * @return number of chain executions to start per second regardless of
+     *         how long they take, or null if each thread starts a new
+     *         execution as soon as its last one finishes
+     */
+    @Nullable
+    public Double getTargetOpsPerSecond() {
+        return targetOpsPerSecond;
+    }
+
+    @JsonProperty("targetOpsPerSecond")
+    public Runner setTargetOpsPerSecond(final Double targetOpsPerSecond) {
+        Validate.isTrue(targetOpsPerSecond == null || targetOpsPerSecond > 0,
+                "targetOpsPerSecond must be greater than zero");
+        this.targetOpsPerSecond = targetOpsPerSecond;
+        return this;
+    }
+
+    public ArrivalProcess getArrivalProcess() {
+        return arrivalProcess;
+    }
+
+    @JsonProperty("arrivalProcess")
+    public Runner setArrivalProcess(final ArrivalProcess arrivalProcess) {
+        if (arrivalProcess != null) {
+            this.arrivalProcess = arrivalProcess;
+        }
+
+        return this;
+    }
+
+    /**
+     * @return maximum time in milliseconds that a scheduled execution can wait
+     *         for a free thread before it is dropped
+     */
+    public long getMaxStartDelayMillis() {
+        return maxStartDelayMillis;
+    }
+
+    @JsonProperty("maxStartDelayMillis")
+    public Runner setMaxStartDelayMillis(final long maxStartDelayMillis) {
+        Validate.isTrue(maxStartDelayMillis > 0, "maxStartDelayMillis must be greater than zero");
+        this.maxStartDelayMillis = maxStartDelayMillis;
+        return this;
+    }
+
+    /**
+     * @return expected time in milliseconds between the starts of each
+     *         thread's chain executions, used to correct the recorded
+     *         latencies for coordinated omission, or null for no correction
+     */
+    @Nullable
+    public Long getExpectedIntervalMillis() {
+        return expectedIntervalMillis;
+    }
+
+    @JsonProperty("expectedIntervalMillis")
+    public Runner setExpectedIntervalMillis(final Long expectedIntervalMillis) {
+        Validate.isTrue(expectedIntervalMillis == null || expectedIntervalMillis > 0,
+                "expectedIntervalMillis must be greater than zero");
+        this.expectedIntervalMillis = expectedIntervalMillis;
+        return this;
+    }
+
+    /**
+     * @return configuration of the adaptive concurrency controller, or null
+     *         if all of the runner's threads always execute chains
+     */
+    @Nullable
+    public ConcurrencyControl getConcurrencyControl() {
+        return concurrencyControl;
+    }
+
+    @JsonProperty("concurrencyControl")
+    public Runner setConcurrencyControl(final ConcurrencyControl concurrencyControl) {
+        this.concurrencyControl = concurrencyControl;
+        return this;
+    }
+
+    /**
+     * @return maximum number of parts of a multipart upload that are
+     *         uploaded at once
+     */
+    public int getPartParallelism() {
+        return partParallelism;
+    }
+
+    @JsonProperty("partParallelism")
+    public Runner setPartParallelism(final int partParallelism) {
+        Validate.isTrue(partParallelism > 0, "partParallelism must be greater than zero");
+        this.partParallelism = partParallelism;
+        return this;
+    }
+
+    /**
+     * @return maximum number of chain executions that are in flight at once
+     *         when the chain is executed asynchronously, or null if each
+     *         thread executes one chain at a time
+     */
+    @Nullable
+    public Integer getMaxInFlightChains() {
+        return maxInFlightChains;
+    }
+
+    @JsonProperty("maxInFlightChains")
+    public Runner setMaxInFlightChains(final Integer maxInFlightChains) {
+        Validate.isTrue(maxInFlightChains == null || maxInFlightChains > 0,
+                "maxInFlightChains must be greater than zero");
+        this.maxInFlightChains = maxInFlightChains;
+        return this;
+    }
+
+    /**
+     * @return numbers of parts to split multipart uploads into, used in turn
+     *         by successive chain executions, or null to use the default
+     */
+    @Nullable
+    public List<Integer> getPartCounts() {
+        return partCounts;
+    }
+
+    @JsonProperty("partCounts")
+    public Runner setPartCounts(final List<Integer> partCounts) {
+        if (partCounts != null) {
+            Validate.isTrue(!partCounts.isEmpty(), "partCounts must not be empty");
+            Validate.isTrue(partCounts.stream().allMatch(count -> count != null && count > 0),
+                    "partCounts must all be greater than zero");
+            Validate.isTrue(partSizes == null, "partCounts can't be combined with partSizes");
+        }
+
+        this.partCounts = partCounts;
+        return this;
+    }
+
+    /**
+     * @return sizes in bytes of the parts of multipart uploads, used in turn
+     *         by successive chain executions, or null to use the default
+     */
+    @Nullable
+    public List<Long> getPartSizes() {
+        return partSizes;
+    }
+
+    @JsonProperty("partSizes")
+    public Runner setPartSizes(final List<Long> partSizes) {
+        if (partSizes != null) {
+            Validate.isTrue(!partSizes.isEmpty(), "partSizes must not be empty");
+            Validate.isTrue(partSizes.stream().allMatch(size -> size != null && size > 0),
+                    "partSizes must all be greater than zero");
+            Validate.isTrue(partCounts == null, "partSizes can't be combined with partCounts");
+        }
+
+        this.partSizes = partSizes;
+        return this;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -96,12 +361,32 @@ public class Runner {
                 && Objects.equals(chainClassName, runner.chainClassName)
                 && Objects.equals(name, runner.name)
                 && Objects.equals(minFileSize, runner.minFileSize)
-                && Objects.equals(maxFileSize, runner.maxFileSize);
+                && Objects.equals(maxFileSize, runner.maxFileSize)
+                && Objects.equals(sizeDistribution, runner.sizeDistribution)
+                && payloadMode == runner.payloadMode
+                && digestAlgorithm == runner.digestAlgorithm
+                && poolSizeClasses == runner.poolSizeClasses
+                && poolPayloadsPerSizeClass == runner.poolPayloadsPerSizeClass
+                && Objects.equals(verification, runner.verification)
+                && threadMode == runner.threadMode
+                && Objects.equals(targetOpsPerSecond, runner.targetOpsPerSecond)
+                && arrivalProcess == runner.arrivalProcess
+                && maxStartDelayMillis == runner.maxStartDelayMillis
+                && Objects.equals(expectedIntervalMillis, runner.expectedIntervalMillis)
+                && Objects.equals(concurrencyControl, runner.concurrencyControl)
+                && partParallelism == runner.partParallelism
+                && Objects.equals(maxInFlightChains, runner.maxInFlightChains)
+                && Objects.equals(partCounts, runner.partCounts)
+                && Objects.equals(partSizes, runner.partSizes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(chainClassName, name, threads, minFileSize, maxFileSize);
+        return Objects.hash(chainClassName, name, threads, minFileSize, maxFileSize,
+                sizeDistribution, payloadMode, digestAlgorithm, poolSizeClasses, poolPayloadsPerSizeClass,
+                verification, threadMode, targetOpsPerSecond, arrivalProcess, maxStartDelayMillis,
+                expectedIntervalMillis, concurrencyControl, partParallelism, maxInFlightChains, partCounts,
+                partSizes);
     }
 
     @Override
@@ -112,6 +397,22 @@ public class Runner {
                 .append("threads", threads)
                 .append("minFileSize", minFileSize)
                 .append("maxFileSize", maxFileSize)
+                .append("sizeDistribution", sizeDistribution)
+                .append("payloadMode", payloadMode)
+                .append("digestAlgorithm", digestAlgorithm)
+                .append("poolSizeClasses", poolSizeClasses)
+                .append("poolPayloadsPerSizeClass", poolPayloadsPerSizeClass)
+                .append("verification", verification)
+                .append("threadMode", threadMode)
+                .append("targetOpsPerSecond", targetOpsPerSecond)
+                .append("arrivalProcess", arrivalProcess)
+                .append("maxStartDelayMillis", maxStartDelayMillis)
+                .append("expectedIntervalMillis", expectedIntervalMillis)
+                .append("concurrencyControl", concurrencyControl)
+                .append("partParallelism", partParallelism)
+                .append("maxInFlightChains", maxInFlightChains)
+                .append("partCounts", partCounts)
+                .append("partSizes", partSizes)
                 .toString();
     }
 }
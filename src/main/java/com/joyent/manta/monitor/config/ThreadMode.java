@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Enum describing the kind of threads that a runner executes its chains on.
+ */
+public enum ThreadMode {
+    /**
+     * Each chain loop runs on its own platform (operating system) thread.
+     */
+    @JsonProperty("platform")
+    PLATFORM,
+
+    /**
+     * Each chain loop runs on a virtual thread, so that thousands of chains
+     * can block on I/O concurrently without as many operating system
+     * threads. Requires JDK 21 or later.
+     */
+    @JsonProperty("virtual")
+    VIRTUAL
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Configuration class describing how thoroughly a runner verifies the
+ * objects that it uploads. Downloading every object in full doubles the
+ * bandwidth used by the monitor, so runners can choose to verify only some
+ * objects in full and to verify a few randomly sampled ranges of the rest.
+ */
+public class VerificationPolicy {
+    /**
+     * Policy that downloads and verifies every object in full.
+     */
+    public static final VerificationPolicy ALWAYS = new VerificationPolicy(Mode.ALWAYS,
+            null, null, null, null);
+
+    /**
+     * Enum describing which objects are downloaded and verified in full.
+     */
+    public enum Mode {
+        /**
+         * Every object is verified in full.
+         */
+        @JsonProperty("always")
+        ALWAYS,
+
+        /**
+         * Every Nth object uploaded by the runner is verified in full.
+         */
+        @JsonProperty("everyNth")
+        EVERY_NTH,
+
+        /**
+         * A random percentage of objects is verified in full.
+         */
+        @JsonProperty("percentage")
+        PERCENTAGE,
+
+        /**
+         * No object is downloaded in full and only its metadata is verified.
+         */
+        @JsonProperty("headOnly")
+        HEAD_ONLY
+    }
+
+    private final Mode mode;
+    private final int everyNth;
+    private final double percentage;
+    private final int rangeSamples;
+    private final long rangeSampleSize;
+
+    @JsonCreator
+    public VerificationPolicy(@JsonProperty("mode") final Mode mode,
+                              @JsonProperty("everyNth") final Integer everyNth,
+                              @JsonProperty("percentage") final Double percentage,
+                              @JsonProperty("rangeSamples") final Integer rangeSamples,
+                              @JsonProperty("rangeSampleSize") final Long rangeSampleSize) {
+        this.mode = ObjectUtils.defaultIfNull(mode, Mode.ALWAYS);
+        this.everyNth = ObjectUtils.defaultIfNull(everyNth, 1);
+        this.percentage = ObjectUtils.defaultIfNull(percentage, 100.0);
+        this.rangeSamples = ObjectUtils.defaultIfNull(rangeSamples, 0);
+        this.rangeSampleSize = ObjectUtils.defaultIfNull(rangeSampleSize, 65_536L);
+
+        Validate.isTrue(this.everyNth > 0, "everyNth must be greater than zero");
+        Validate.inclusiveBetween(0.0, 100.0, this.percentage,
+                "percentage must be between 0 and 100");
+        Validate.isTrue(this.rangeSamples >= 0, "rangeSamples must not be negative");
+        Validate.isTrue(this.rangeSampleSize > 0, "rangeSampleSize must be greater than zero");
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getEveryNth() {
+        return everyNth;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+
+    /**
+     * @return number of random ranges verified for each object that isn't
+     *         verified in full
+     */
+    public int getRangeSamples() {
+        return rangeSamples;
+    }
+
+    /**
+     * @return size in bytes of each verified range
+     */
+    public long getRangeSampleSize() {
+        return rangeSampleSize;
+    }
+
+    /**
+     * Determines whether an object should be downloaded and verified in full.
+     *
+     * @param iteration sequence number of the object within its runner
+     * @param random source of randomness for percentage based sampling
+     * @return true if the object should be verified in full
+     */
+    public boolean isFullVerification(final long iteration, final Random random) {
+        switch (mode) {
+            case EVERY_NTH:
+                return iteration % everyNth == 0;
+            case PERCENTAGE:
+                return random.nextDouble() * 100.0 < percentage;
+            case HEAD_ONLY:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final VerificationPolicy that = (VerificationPolicy) o;
+        return mode == that.mode
+                && everyNth == that.everyNth
+                && Double.compare(percentage, that.percentage) == 0
+                && rangeSamples == that.rangeSamples
+                && rangeSampleSize == that.rangeSampleSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, everyNth, percentage, rangeSamples, rangeSampleSize);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("mode", mode)
+                .append("everyNth", everyNth)
+                .append("percentage", percentage)
+                .append("rangeSamples", rangeSamples)
+                .append("rangeSampleSize", rangeSampleSize)
+                .toString();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.digests;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+
+/**
+ * Utility class for the checksums of objects that are uploaded in parts. The
+ * composite checksum of an object is the digest of its parts' digests joined
+ * in part order. Unlike a digest of the whole object, it can be calculated
+ * while the parts are uploaded out of order or in parallel, and it can be
+ * checked against a download by digesting the download at the same part
+ * boundaries.
+ */
+public final class CompositeChecksum {
+    private CompositeChecksum() {
+    }
+
+    /**
+     * Combines the digests of each part into the object's checksum.
+     *
+     * @param digestSupplier supplier of the digest to combine the part digests with
+     * @param partDigests digest of each part, in part order
+     * @return the composite checksum
+     */
+    public static byte[] combine(final Supplier<MessageDigest> digestSupplier,
+                                 final byte[][] partDigests) {
+        final MessageDigest composite = digestSupplier.get();
+
+        for (byte[] partDigest : partDigests) {
+            composite.update(partDigest);
+        }
+
+        return composite.digest();
+    }
+
+    /**
+     * Reads a stream of a whole object and calculates its composite checksum.
+     *
+     * @param digestSupplier supplier of the digests of each part and of the composite
+     * @param in stream of the object, which is read up to the end of the last
+     *           part but not closed
+     * @param partSizes size of each part, in part order
+     * @return the composite checksum
+     * @throws IOException thrown when the stream can't be read
+     */
+    public static byte[] calculate(final Supplier<MessageDigest> digestSupplier,
+                                   final InputStream in,
+                                   final long[] partSizes) throws IOException {
+        final byte[][] partDigests = new byte[partSizes.length][];
+
+        for (int i = 0; i < partSizes.length; i++) {
+            final MessageDigest partDigest = digestSupplier.get();
+
+            try (InputStream part = new DigestInputStream(new BoundedInputStream(
+                    new CloseShieldInputStream(in), partSizes[i]), partDigest)) {
+                IOUtils.copyLarge(part, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+
+            partDigests[i] = partDigest.digest();
+        }
+
+        return combine(digestSupplier, partDigests);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.digests;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link MessageDigest} implementation that calculates a CRC32C checksum
+ * using {@link CRC32C}, which is hardware accelerated on most platforms.
+ *
+ * <p>{@link CRC32C} can't be cloned or resumed from a previous value, so
+ * this digest keeps the checksum of the data digested before it was last
+ * cloned and combines it with the checksum of the data digested since. This
+ * allows the digest state of a shared prefix to be reused.</p>
+ */
+public class Crc32cMessageDigest extends MessageDigest implements Cloneable {
+    /**
+     * Length of a CRC32C checksum in bytes.
+     */
+    public static final int DIGEST_LENGTH = 4;
+
+    /**
+     * CRC32C (Castagnoli) polynomial in reversed bit order.
+     */
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    /**
+     * Checksum of the data digested before the current {@link #crc}.
+     */
+    private long prefixValue;
+
+    /**
+     * Number of bytes digested by the current {@link #crc}.
+     */
+    private long length;
+
+    private CRC32C crc = new CRC32C();
+
+    public Crc32cMessageDigest() {
+        super("CRC32C");
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineUpdate(final byte input) {
+        crc.update(input);
+        length++;
+    }
+
+    @Override
+    protected void engineUpdate(final byte[] input, final int offset, final int len) {
+        crc.update(input, offset, len);
+        length += len;
+    }
+
+    @Override
+    protected void engineUpdate(final ByteBuffer input) {
+        length += input.remaining();
+        crc.update(input);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        final int value = (int)currentValue();
+        engineReset();
+
+        return new byte[] {
+                (byte)(value >>> 24), (byte)(value >>> 16), (byte)(value >>> 8), (byte)value
+        };
+    }
+
+    @Override
+    protected void engineReset() {
+        prefixValue = 0;
+        length = 0;
+        crc = new CRC32C();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final Crc32cMessageDigest clone = (Crc32cMessageDigest)super.clone();
+        clone.prefixValue = currentValue();
+        clone.length = 0;
+        clone.crc = new CRC32C();
+
+        return clone;
+    }
+
+    private long currentValue() {
+        return combine(prefixValue, crc.getValue(), length);
+    }
+
+    /**
+     * Calculates the CRC of two concatenated blocks of data from the CRCs of
+     * each block, using the same method as zlib's <code>crc32_combine</code>.
+     *
+     * @param crc1 CRC of the first block
+     * @param crc2 CRC of the second block
+     * @param length2 length of the second block
+     * @return CRC of the first block followed by the second block
+     */
+    static long combine(final long crc1, final long crc2, final long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        // operator for one zero bit, then for two and four zero bits
+        final int[] odd = new int[Integer.SIZE];
+        final int[] even = new int[Integer.SIZE];
+
+        odd[0] = POLYNOMIAL;
+        int row = 1;
+        for (int n = 1; n < Integer.SIZE; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        square(even, odd);
+        square(odd, even);
+
+        // apply len2 zero bytes to crc1 (the first squaring puts the operator for one zero byte in even)
+        int value = (int)crc1;
+        long remaining = length2;
+
+        do {
+            square(even, odd);
+            if ((remaining & 1) != 0) {
+                value = times(even, value);
+            }
+            remaining >>>= 1;
+
+            if (remaining == 0) {
+                break;
+            }
+
+            square(odd, even);
+            if ((remaining & 1) != 0) {
+                value = times(odd, value);
+            }
+            remaining >>>= 1;
+        } while (remaining != 0);
+
+        return (value ^ (int)crc2) & 0xFFFFFFFFL;
+    }
+
+    private static int times(final int[] matrix, final int vector) {
+        int sum = 0;
+        int vec = vector;
+
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+
+        return sum;
+    }
+
+    private static void square(final int[] square, final int[] matrix) {
+        for (int n = 0; n < Integer.SIZE; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
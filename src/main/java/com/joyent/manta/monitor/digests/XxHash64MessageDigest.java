@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.digests;
+
+import java.security.MessageDigest;
+
+/**
+ * {@link MessageDigest} implementation of the 64-bit xxHash algorithm (with
+ * a seed of zero). xxHash is a non-cryptographic hash that is several times
+ * faster than SHA-256 while still detecting accidental corruption.
+ */
+public class XxHash64MessageDigest extends MessageDigest implements Cloneable {
+    /**
+     * Length of an xxHash64 digest in bytes.
+     */
+    public static final int DIGEST_LENGTH = 8;
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Number of bytes consumed by each round of the four accumulators.
+     */
+    private static final int STRIPE_LENGTH = 32;
+
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+
+    /**
+     * Input that hasn't yet filled a complete stripe.
+     */
+    private byte[] buffer = new byte[STRIPE_LENGTH];
+    private int bufferLength;
+
+    public XxHash64MessageDigest() {
+        super("XXHASH64");
+        engineReset();
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineUpdate(final byte input) {
+        buffer[bufferLength++] = input;
+        totalLength++;
+
+        if (bufferLength == STRIPE_LENGTH) {
+            processStripe(buffer, 0);
+            bufferLength = 0;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(final byte[] input, final int offset, final int len) {
+        int position = offset;
+        final int end = offset + len;
+        totalLength += len;
+
+        if (bufferLength > 0) {
+            final int fill = Math.min(STRIPE_LENGTH - bufferLength, len);
+            System.arraycopy(input, position, buffer, bufferLength, fill);
+            bufferLength += fill;
+            position += fill;
+
+            if (bufferLength < STRIPE_LENGTH) {
+                return;
+            }
+
+            processStripe(buffer, 0);
+            bufferLength = 0;
+        }
+
+        for (; position <= end - STRIPE_LENGTH; position += STRIPE_LENGTH) {
+            processStripe(input, position);
+        }
+
+        bufferLength = end - position;
+        System.arraycopy(input, position, buffer, 0, bufferLength);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        long hash;
+
+        if (totalLength >= STRIPE_LENGTH) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                    + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = v3 + PRIME64_5;
+        }
+
+        hash += totalLength;
+
+        int position = 0;
+
+        for (; position + Long.BYTES <= bufferLength; position += Long.BYTES) {
+            hash ^= round(0, readLong(buffer, position));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        }
+
+        if (position + Integer.BYTES <= bufferLength) {
+            hash ^= (readInt(buffer, position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            position += Integer.BYTES;
+        }
+
+        for (; position < bufferLength; position++) {
+            hash ^= (buffer[position] & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        engineReset();
+
+        final byte[] digest = new byte[DIGEST_LENGTH];
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            digest[i] = (byte)(hash >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        v1 = PRIME64_1 + PRIME64_2;
+        v2 = PRIME64_2;
+        v3 = 0;
+        v4 = -PRIME64_1;
+        totalLength = 0;
+        bufferLength = 0;
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final XxHash64MessageDigest clone = (XxHash64MessageDigest)super.clone();
+        clone.buffer = buffer.clone();
+
+        return clone;
+    }
+
+    private void processStripe(final byte[] input, final int offset) {
+        v1 = round(v1, readLong(input, offset));
+        v2 = round(v2, readLong(input, offset + 8));
+        v3 = round(v3, readLong(input, offset + 16));
+        v4 = round(v4, readLong(input, offset + 24));
+    }
+
+    private static long round(final long accumulator, final long input) {
+        return Long.rotateLeft(accumulator + input * PRIME64_2, 31) * PRIME64_1;
+    }
+
+    private static long mergeRound(final long accumulator, final long value) {
+        return (accumulator ^ round(0, value)) * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLong(final byte[] input, final int offset) {
+        return (input[offset] & 0xFFL)
+                | (input[offset + 1] & 0xFFL) << 8
+                | (input[offset + 2] & 0xFFL) << 16
+                | (input[offset + 3] & 0xFFL) << 24
+                | (input[offset + 4] & 0xFFL) << 32
+                | (input[offset + 5] & 0xFFL) << 40
+                | (input[offset + 6] & 0xFFL) << 48
+                | (input[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static int readInt(final byte[] input, final int offset) {
+        return (input[offset] & 0xFF)
+                | (input[offset + 1] & 0xFF) << 8
+                | (input[offset + 2] & 0xFF) << 16
+                | (input[offset + 3] & 0xFF) << 24;
+    }
+}
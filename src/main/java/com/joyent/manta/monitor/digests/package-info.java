@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+/**
+ * Package containing non-cryptographic {@link java.security.MessageDigest}
+ * implementations and the composite checksums of multipart objects, used to
+ * check the integrity of test objects.
+ */
+package com.joyent.manta.monitor.digests;
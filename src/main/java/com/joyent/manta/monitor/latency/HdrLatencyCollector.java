@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.latency;
+
+import com.google.common.collect.ImmutableList;
+import io.prometheus.client.Collector;
+import io.prometheus.client.GaugeMetricFamily;
+import io.prometheus.client.SummaryMetricFamily;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collector that exports the latencies held by {@link LatencyRecorders} as
+ * Prometheus summaries. The quantiles are exact to three significant digits
+ * and cover the latencies recorded during the previous snapshot interval,
+ * while the count and sum cover everything recorded since startup.
+ *
+ * <p>Taking a snapshot empties the recorders' interval histograms, so
+ * snapshots are taken at most once per snapshot interval and the same
+ * snapshot is returned to every scrape within the interval. Several
+ * Prometheus servers scraping the monitor therefore all see the same
+ * quantiles rather than each seeing only the latencies recorded since
+ * whichever of them scraped last.</p>
+ */
+public class HdrLatencyCollector extends Collector {
+    static final String CHAIN_METRIC = "manta_monitor_hdr_chain_latency_seconds";
+    static final String COMMAND_METRIC = "manta_monitor_hdr_command_latency_seconds";
+
+    private static final List<Double> QUANTILES = ImmutableList.of(0.5, 0.9, 0.99, 0.999, 0.9999);
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    /**
+     * Default time in milliseconds between snapshots of the recorded
+     * latencies.
+     */
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 15_000L;
+
+    private final LatencyRecorders recorders;
+    private final long snapshotIntervalNanos;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public HdrLatencyCollector(final LatencyRecorders recorders) {
+        this(recorders, DEFAULT_SNAPSHOT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param recorders recorders to export
+     * @param snapshotIntervalMillis time in milliseconds that each snapshot of
+     *                               the recorded latencies is served for
+     */
+    public HdrLatencyCollector(final LatencyRecorders recorders, final long snapshotIntervalMillis) {
+        Validate.isTrue(snapshotIntervalMillis >= 0, "Snapshot interval must not be negative");
+        this.recorders = recorders;
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMillis);
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        Snapshot current = snapshot;
+
+        if (current != null && current.isFresh(snapshotIntervalNanos)) {
+            return current.families;
+        }
+
+        /* Only one scrape takes the snapshot; scrapes that arrive while it
+         * does wait for it rather than taking another. */
+        snapshotLock.lock();
+        try {
+            current = snapshot;
+
+            if (current == null || !current.isFresh(snapshotIntervalNanos)) {
+                current = new Snapshot(System.nanoTime(), buildFamilies());
+                snapshot = current;
+            }
+
+            return current.families;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private List<MetricFamilySamples> buildFamilies() {
+        final SummaryMetricFamily chains = new SummaryMetricFamily(CHAIN_METRIC,
+                "Latency of chain executions in seconds, with quantiles over the last snapshot interval",
+                Collections.singletonList("chain"), QUANTILES);
+        final SummaryMetricFamily commands = new SummaryMetricFamily(COMMAND_METRIC,
+                "Latency of command executions in seconds, with quantiles over the last snapshot interval",
+                List.of("chain", "command"), QUANTILES);
+        final GaugeMetricFamily chainMax = new GaugeMetricFamily(CHAIN_METRIC + "_max",
+                "Longest chain execution in seconds over the last snapshot interval",
+                Collections.singletonList("chain"));
+        final GaugeMetricFamily commandMax = new GaugeMetricFamily(COMMAND_METRIC + "_max",
+                "Longest command execution in seconds over the last snapshot interval",
+                List.of("chain", "command"));
+
+        for (Map.Entry<Pair<String, String>, LatencyRecorder> entry : recorders.asMap().entrySet()) {
+            final String chain = entry.getKey().getLeft();
+            final String command = entry.getKey().getRight();
+            final LatencyRecorder.Snapshot recorded = entry.getValue().snapshot();
+            final Histogram interval = recorded.getInterval();
+            final List<Double> values = quantileValues(interval);
+            final double max = interval.getTotalCount() == 0
+                    ? Double.NaN : interval.getMaxValue() / MICROS_PER_SECOND;
+            final double sum = recorded.getTotalMicros() / MICROS_PER_SECOND;
+
+            if (LatencyRecorders.CHAIN.equals(command)) {
+                final List<String> labels = Collections.singletonList(chain);
+                chains.addMetric(labels, recorded.getTotalCount(), sum, values);
+                chainMax.addMetric(labels, max);
+            } else {
+                final List<String> labels = List.of(chain, command);
+                commands.addMetric(labels, recorded.getTotalCount(), sum, values);
+                commandMax.addMetric(labels, max);
+            }
+        }
+
+        return List.of(chains, chainMax, commands, commandMax);
+    }
+
+    private static List<Double> quantileValues(final Histogram interval) {
+        final List<Double> values = new ArrayList<>(QUANTILES.size());
+
+        for (double quantile : QUANTILES) {
+            if (interval.getTotalCount() == 0) {
+                values.add(Double.NaN);
+            } else {
+                values.add(interval.getValueAtPercentile(quantile * 100.0) / MICROS_PER_SECOND);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Families built from one snapshot of the recorders and when it was
+     * taken.
+     */
+    private static final class Snapshot {
+        private final long takenNanos;
+        private final List<MetricFamilySamples> families;
+
+        private Snapshot(final long takenNanos, final List<MetricFamilySamples> families) {
+            this.takenNanos = takenNanos;
+            this.families = families;
+        }
+
+        private boolean isFresh(final long intervalNanos) {
+            return System.nanoTime() - takenNanos < intervalNanos;
+        }
+    }
+}
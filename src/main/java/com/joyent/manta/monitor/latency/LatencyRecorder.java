@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.latency;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that records latencies into an HdrHistogram {@link Recorder}.
+ * Recording is wait-free so it can be done by every worker thread without
+ * contention, and the recorded values are read as interval histograms that
+ * contain everything recorded since the previous snapshot.
+ *
+ * <p>When an expected interval is configured, a recorded latency that is
+ * longer than the interval is backfilled with the latencies that the requests
+ * which would have been sent in the meantime would have seen. This corrects
+ * for coordinated omission in chains that loop without a fixed schedule.</p>
+ */
+public class LatencyRecorder {
+    /**
+     * Highest latency that can be recorded, in microseconds. Longer latencies
+     * are recorded as this value.
+     */
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    /**
+     * Number of significant decimal digits kept for each recorded value.
+     */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final long expectedIntervalMicros;
+    private Histogram interval;
+
+    /*
+     * Running totals of the interval snapshots, which are all that is kept
+     * of the values recorded before the current interval.
+     */
+    private long totalCount;
+    private double totalMicros;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param expectedIntervalNanos expected time between recorded values in
+     *                              nanoseconds, or zero to record values as is
+     */
+    public LatencyRecorder(final long expectedIntervalNanos) {
+        this.expectedIntervalMicros = TimeUnit.NANOSECONDS.toMicros(expectedIntervalNanos);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latencyNanos latency in nanoseconds
+     */
+    public void record(final long latencyNanos) {
+        final long micros = Math.max(0, Math.min(HIGHEST_TRACKABLE_MICROS,
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+
+        if (expectedIntervalMicros > 0) {
+            recorder.recordValueWithExpectedInterval(micros, expectedIntervalMicros);
+        } else {
+            recorder.recordValue(micros);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the values recorded since the last snapshot and
+     * adds their count and sum to the running totals. Taking a snapshot empties the interval
+     * histogram, so {@link HdrLatencyCollector} takes them once per snapshot
+     * interval and shares each one between scrapes. Snapshots are serialized
+     * here rather than on the recording path.
+     *
+     * @return snapshot of the recorded latencies
+     */
+    public synchronized Snapshot snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        totalCount += interval.getTotalCount();
+        totalMicros += interval.getMean() * interval.getTotalCount();
+
+        return new Snapshot(interval.copy(), totalCount, totalMicros);
+    }
+
+    /**
+     * Immutable view of a recorder's latencies at the time of a snapshot.
+     */
+    public static final class Snapshot {
+        private final Histogram interval;
+        private final long totalCount;
+        private final double totalMicros;
+
+        private Snapshot(final Histogram interval, final long totalCount, final double totalMicros) {
+            this.interval = interval;
+            this.totalCount = totalCount;
+            this.totalMicros = totalMicros;
+        }
+
+        /**
+         * @return histogram of the latencies in microseconds recorded since
+         *         the previous snapshot
+         */
+        public Histogram getInterval() {
+            return interval;
+        }
+
+        /**
+         * @return number of latencies recorded since the recorder was created
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return approximate sum of the latencies in microseconds recorded
+         *         since the recorder was created
+         */
+        public double getTotalMicros() {
+            return totalMicros;
+        }
+    }
+}
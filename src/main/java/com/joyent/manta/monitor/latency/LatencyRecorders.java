@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.latency;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class holding a {@link LatencyRecorder} for each chain and for each command
+ * within a chain. Recorders are created on first use.
+ */
+public class LatencyRecorders {
+    /**
+     * Name used in place of a command name for the recorder of whole chain
+     * executions.
+     */
+    public static final String CHAIN = "";
+
+    private final Map<Pair<String, String>, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, Long> expectedIntervals = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the expected interval between executions of a chain that is used
+     * to correct the chain's and its commands' latencies for coordinated
+     * omission. It must be set before the chain's first latency is recorded.
+     *
+     * @param chain name of the chain
+     * @param expectedIntervalNanos expected interval in nanoseconds, or zero
+     *                              for no correction
+     */
+    public void setExpectedInterval(final String chain, final long expectedIntervalNanos) {
+        expectedIntervals.put(chain, expectedIntervalNanos);
+    }
+
+    /**
+     * @param chain name of the chain
+     * @param command name of the command, or {@link #CHAIN} for the whole chain
+     * @return recorder for the command's latencies
+     */
+    public LatencyRecorder get(final String chain, final String command) {
+        return recorders.computeIfAbsent(Pair.of(chain, command),
+                key -> new LatencyRecorder(expectedIntervals.getOrDefault(chain, 0L)));
+    }
+
+    /**
+     * @return snapshot of all of the recorders keyed by chain and command name
+     */
+    public Map<Pair<String, String>, LatencyRecorder> asMap() {
+        return ImmutableMap.copyOf(recorders);
+    }
+}
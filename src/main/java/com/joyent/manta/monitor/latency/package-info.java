@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+/**
+ * Package containing the high resolution latency recorders for chains and
+ * commands, and the collector that exports them to Prometheus.
+ */
+package com.joyent.manta.monitor.latency;
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import com.joyent.manta.monitor.RandomAlphabeticInputStream;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link Payload} implementation that regenerates its contents from a seed
+ * every time it is read, so that no copy of the data is ever stored.
+ */
+public class GeneratedPayload implements Payload {
+    /**
+     * Name of the metadata header that the seed is stored in.
+     */
+    public static final String SEED_METADATA_KEY = "m-payload-seed";
+
+    private final long seed;
+    private final long size;
+
+    public GeneratedPayload(final long seed, final long size) {
+        this.seed = seed;
+        this.size = size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new RandomAlphabeticInputStream(size, seed);
+    }
+
+    @Override
+    public InputStream openStream(final long offset, final long length) {
+        final RandomAlphabeticInputStream in = new RandomAlphabeticInputStream(size, seed);
+        in.skip(offset);
+        return new BoundedInputStream(in, length);
+    }
+
+    /**
+     * Reads the passed stream to its end while comparing it to the data that
+     * this payload generates.
+     *
+     * @param actual stream of data to verify, it is not closed
+     * @return offset of the first byte that differs from the generated data
+     *         (or the offset at which either stream ended early), or -1 if
+     *         the stream is identical to the generated data
+     * @throws IOException thrown when the passed stream can't be read
+     */
+    public long findFirstMismatch(final InputStream actual) throws IOException {
+        return findFirstMismatch(actual, 0, size);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release - the data only ever exists in flight
+    }
+}
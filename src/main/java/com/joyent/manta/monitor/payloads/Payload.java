@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Interface describing a known-length source of test data that can be read
+ * more than once. Closing a payload releases any resources (such as temporary
+ * files) that back it.
+ */
+public interface Payload extends Closeable {
+    /**
+     * Size of the blocks that are compared when verifying data.
+     */
+    int VERIFY_BLOCK_SIZE = 8192;
+
+    /**
+     * @return the number of bytes in the payload
+     */
+    long getSize();
+
+    /**
+     * Opens a new stream positioned at the start of the payload. Every call
+     * returns a stream that produces exactly the same bytes.
+     *
+     * @return a new stream of the payload's contents
+     * @throws IOException thrown when the underlying data can't be read
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Opens a new stream of part of the payload.
+     *
+     * @param offset position of the first byte to read
+     * @param length number of bytes to read
+     * @return a new stream of the payload's contents from the offset
+     * @throws IOException thrown when the underlying data can't be read
+     */
+    InputStream openStream(long offset, long length) throws IOException;
+
+    /**
+     * Reads the passed stream to its end while comparing it to part of the
+     * payload.
+     *
+     * @param actual stream of data to verify, it is not closed
+     * @param offset position in the payload that the stream starts at
+     * @param length number of bytes expected in the stream
+     * @return position in the payload of the first byte that differs (or the
+     *         position at which either stream ended early), or -1 if the
+     *         stream is identical to the part of the payload
+     * @throws IOException thrown when either stream can't be read
+     */
+    default long findFirstMismatch(final InputStream actual,
+                                   final long offset,
+                                   final long length) throws IOException {
+        final byte[] actualBlock = new byte[VERIFY_BLOCK_SIZE];
+        final byte[] expectedBlock = new byte[VERIFY_BLOCK_SIZE];
+        long position = 0;
+        long mismatch = -1;
+
+        try (InputStream expected = openStream(offset, length)) {
+            int read;
+
+            while ((read = actual.read(actualBlock)) > -1) {
+                /* We keep consuming the stream after a mismatch so that the
+                 * download is read the same way whether or not it is valid. */
+                if (mismatch < 0) {
+                    final int expectedRead = IOUtils.read(expected, expectedBlock, 0, read);
+                    final int index = Arrays.mismatch(actualBlock, 0, expectedRead,
+                            expectedBlock, 0, expectedRead);
+
+                    if (index > -1) {
+                        mismatch = position + index;
+                    } else if (expectedRead < read) {
+                        mismatch = position + expectedRead;
+                    }
+                }
+
+                position += read;
+            }
+        }
+
+        if (mismatch < 0 && position < length) {
+            mismatch = position;
+        }
+
+        return mismatch < 0 ? mismatch : offset + mismatch;
+    }
+}
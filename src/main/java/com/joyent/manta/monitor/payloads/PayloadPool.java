@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import com.joyent.manta.monitor.RandomAlphabeticInputStream;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.sizes.SizeDistribution;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pool of random payloads that are generated and hashed once at startup and
+ * then reused for every upload. The pool holds a number of payload bodies for
+ * each of a set of size classes drawn from the runner's size distribution.
+ * The bodies are stored off-heap in direct buffers.
+ *
+ * <p>Every payload handed out by the pool ends with a short random salt so
+ * that each uploaded object (and therefore its path) is unique. The salt is
+ * placed at the end of the payload because digests process their input in
+ * order: the digest state after hashing a body is kept, and only the salt
+ * needs to be hashed for every new payload.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class PayloadPool {
+    /**
+     * Number of random bytes at the end of every pooled payload.
+     */
+    public static final int SALT_LENGTH = 16;
+
+    private final ByteBuffer[] bodies;
+    private final MessageDigest[] bodyDigests;
+
+    /**
+     * Creates a new pool and generates all of its payload bodies.
+     *
+     * @param sizeDistribution distribution that the size classes are drawn from
+     * @param sizeClasses number of payload sizes to draw
+     * @param payloadsPerSizeClass number of payload bodies generated per size
+     * @param digestAlgorithm algorithm used to calculate payload checksums
+     */
+    public PayloadPool(final SizeDistribution sizeDistribution,
+                       final int sizeClasses, final int payloadsPerSizeClass,
+                       final DigestAlgorithm digestAlgorithm) {
+        Validate.isTrue(sizeClasses > 0, "Size classes must be greater than zero");
+        Validate.isTrue(payloadsPerSizeClass > 0, "Payloads per size class must be greater than zero");
+
+        final int total = sizeClasses * payloadsPerSizeClass;
+        this.bodies = new ByteBuffer[total];
+        this.bodyDigests = new MessageDigest[total];
+
+        final Random random = ThreadLocalRandom.current();
+        long size = 0;
+
+        for (int i = 0; i < total; i++) {
+            if (i % payloadsPerSizeClass == 0) {
+                size = sizeDistribution.nextSize(random);
+                Validate.isTrue(size >= SALT_LENGTH,
+                        "File sizes must be at least %d bytes for pooled payloads", SALT_LENGTH);
+                Validate.isTrue(size - SALT_LENGTH <= Integer.MAX_VALUE,
+                        "File size %d is too large for pooled payloads", size);
+            }
+
+            final ByteBuffer body = generateBody((int)(size - SALT_LENGTH));
+            final MessageDigest digest = digestAlgorithm.newDigest();
+            digest.update(body.duplicate());
+
+            bodies[i] = body.asReadOnlyBuffer();
+            bodyDigests[i] = digest;
+        }
+    }
+
+    /**
+     * @return a payload built from a random pooled body and a new salt
+     */
+    public PooledPayload next() {
+        final int index = ThreadLocalRandom.current().nextInt(bodies.length);
+        final byte[] salt = new byte[SALT_LENGTH];
+
+        try (InputStream in = new RandomAlphabeticInputStream(SALT_LENGTH)) {
+            in.read(salt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final MessageDigest digest = cloneDigest(bodyDigests[index]);
+        digest.update(salt);
+
+        return new PooledPayload(bodies[index], salt, digest.digest());
+    }
+
+    /**
+     * @return total number of bytes held by the pool
+     */
+    public long getPooledBytes() {
+        long total = 0;
+
+        for (ByteBuffer body : bodies) {
+            total += body.capacity();
+        }
+
+        return total;
+    }
+
+    private static ByteBuffer generateBody(final int size) {
+        final ByteBuffer body = ByteBuffer.allocateDirect(size);
+        final byte[] buf = new byte[8192];
+
+        try (InputStream in = new RandomAlphabeticInputStream(size)) {
+            int read;
+            while ((read = in.read(buf)) > -1) {
+                body.put(buf, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        body.flip();
+        return body;
+    }
+
+    private static MessageDigest cloneDigest(final MessageDigest digest) {
+        /* Cloning only reads the original digest's state, so concurrent
+         * callers can safely clone the same pooled digest. */
+        try {
+            return (MessageDigest)digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Digest state can't be copied", e);
+        }
+    }
+}
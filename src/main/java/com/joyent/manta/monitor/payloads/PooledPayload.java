@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Payload} implementation that is made up of a body shared with other
+ * payloads from a {@link PayloadPool} followed by a salt unique to this
+ * payload.
+ */
+public class PooledPayload implements Payload {
+    private final ByteBuffer body;
+    private final byte[] salt;
+    private final byte[] checksum;
+
+    PooledPayload(final ByteBuffer body, final byte[] salt, final byte[] checksum) {
+        this.body = body;
+        this.salt = salt;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return checksum of the body and the salt
+     */
+    public byte[] getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public long getSize() {
+        return body.capacity() + salt.length;
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new SequenceInputStream(new ByteBufferInputStream(body),
+                new ByteArrayInputStream(salt));
+    }
+
+    @Override
+    public InputStream openStream(final long offset, final long length) {
+        final int bodyLength = body.capacity();
+        final ByteBuffer bodyPart = body.duplicate();
+        bodyPart.position((int)Math.min(offset, bodyLength));
+        bodyPart.limit((int)Math.min(offset + length, bodyLength));
+
+        final int saltStart = (int)Math.max(0, Math.min(offset - bodyLength, salt.length));
+        final int saltEnd = (int)Math.max(saltStart, Math.min(offset + length - bodyLength, salt.length));
+
+        return new SequenceInputStream(new ByteBufferInputStream(bodyPart),
+                new ByteArrayInputStream(salt, saltStart, saltEnd - saltStart));
+    }
+
+    @Override
+    public void close() {
+        // the body is owned by the pool and is reused by other payloads
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Payload} implementation backed by a temporary file that is deleted
+ * when the payload is closed.
+ */
+public class TempFilePayload implements Payload {
+    private final Path path;
+    private final long size;
+
+    public TempFilePayload(final Path path, final long size) {
+        this.path = requireNonNull(path);
+        this.size = size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public InputStream openStream(final long offset, final long length) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            channel.position(offset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        /* Delete the temp file so that we don't have junk cluttering
+         * up our filesystem. */
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation where every object is the same size.
+ */
+public class FixedSizeDistribution implements SizeDistribution {
+    private final long size;
+
+    @JsonCreator
+    public FixedSizeDistribution(@JsonProperty("size") final long size) {
+        Validate.isTrue(size >= 0, "Size must not be negative");
+        this.size = size;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        return size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final FixedSizeDistribution that = (FixedSizeDistribution) o;
+        return size == that.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("size", size)
+                .toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.joyent.manta.monitor.config.ConfigurationLoadException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation that reproduces an empirical
+ * distribution of object sizes, such as one taken from production access
+ * logs. The histogram is loaded from a local text file with one bucket per
+ * line in one of the following forms:
+ *
+ * <pre>
+ * # size,count
+ * 4096,1200
+ * # minSize,maxSize,count
+ * 1048576,104857600,15
+ * </pre>
+ *
+ * <p>Blank lines and lines starting with <code>#</code> are ignored. Buckets
+ * are chosen in proportion to their count and sizes are uniformly distributed
+ * within a bucket.</p>
+ */
+public class HistogramSizeDistribution implements SizeDistribution {
+    private final String file;
+    private final WeightedSizeDistribution buckets;
+
+    @JsonCreator
+    public HistogramSizeDistribution(@JsonProperty("file") final String file) {
+        if (StringUtils.isBlank(file)) {
+            throw new ConfigurationLoadException("A file must be specified for a histogram size distribution");
+        }
+
+        this.file = file;
+        this.buckets = new WeightedSizeDistribution(readBuckets(Paths.get(file)));
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        return buckets.nextSize(random);
+    }
+
+    private static List<WeightedSizeDistribution.SizeClass> readBuckets(final Path path) {
+        final List<WeightedSizeDistribution.SizeClass> classes = new ArrayList<>();
+        int lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final String trimmed = line.trim();
+
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+
+                classes.add(parseBucket(trimmed));
+            }
+        } catch (IOException e) {
+            String msg = "Unable to read size histogram file";
+            ConfigurationLoadException cle = new ConfigurationLoadException(msg, e);
+            cle.setContextValue("file", path);
+            throw cle;
+        } catch (RuntimeException e) {
+            String msg = "Invalid bucket in size histogram file";
+            ConfigurationLoadException cle = new ConfigurationLoadException(msg, e);
+            cle.setContextValue("file", path);
+            cle.setContextValue("line", lineNumber);
+            throw cle;
+        }
+
+        if (classes.isEmpty()) {
+            String msg = "Size histogram file doesn't contain any buckets";
+            ConfigurationLoadException cle = new ConfigurationLoadException(msg);
+            cle.setContextValue("file", path);
+            throw cle;
+        }
+
+        return classes;
+    }
+
+    private static WeightedSizeDistribution.SizeClass parseBucket(final String line) {
+        final String[] fields = StringUtils.split(line, ", \t");
+
+        if (fields.length == 2) {
+            final long size = Long.parseLong(fields[0]);
+            return new WeightedSizeDistribution.SizeClass(size, size, Double.parseDouble(fields[1]));
+        } else if (fields.length == 3) {
+            return new WeightedSizeDistribution.SizeClass(Long.parseLong(fields[0]),
+                    Long.parseLong(fields[1]), Double.parseDouble(fields[2]));
+        }
+
+        throw new IllegalArgumentException("Expected 2 or 3 fields but found " + fields.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final HistogramSizeDistribution that = (HistogramSizeDistribution) o;
+        return file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+        return file.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("file", file)
+                .toString();
+    }
+}
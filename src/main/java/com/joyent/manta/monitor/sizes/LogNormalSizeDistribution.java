@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation where the logarithm of the size is
+ * normally distributed. This produces mostly small objects with a long tail
+ * of large objects. Sizes are clamped to the optional minimum and maximum.
+ */
+public class LogNormalSizeDistribution implements SizeDistribution {
+    private final long median;
+    private final double sigma;
+    private final long minSize;
+    private final long maxSize;
+
+    /**
+     * Mean of the logarithm of the size.
+     */
+    private final double mu;
+
+    @JsonCreator
+    public LogNormalSizeDistribution(@JsonProperty("median") final long median,
+                                     @JsonProperty("sigma") final double sigma,
+                                     @JsonProperty("minSize") final Long minSize,
+                                     @JsonProperty("maxSize") final Long maxSize) {
+        Validate.isTrue(median > 0, "Median must be greater than zero");
+        Validate.isTrue(sigma >= 0, "Sigma must not be negative");
+        this.median = median;
+        this.sigma = sigma;
+        this.minSize = ObjectUtils.defaultIfNull(minSize, 0L);
+        this.maxSize = ObjectUtils.defaultIfNull(maxSize, Long.MAX_VALUE);
+        this.mu = Math.log(median);
+        Validate.isTrue(this.minSize >= 0, "Minimum size must not be negative");
+        Validate.isTrue(this.maxSize >= this.minSize,
+                "Maximum size must be greater than or equal to the minimum size");
+    }
+
+    public long getMedian() {
+        return median;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    public long getMinSize() {
+        return minSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        final double size = Math.exp(mu + sigma * random.nextGaussian());
+        return Math.max(minSize, Math.min(maxSize, Math.round(size)));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final LogNormalSizeDistribution that = (LogNormalSizeDistribution) o;
+        return median == that.median
+                && Double.compare(sigma, that.sigma) == 0
+                && minSize == that.minSize
+                && maxSize == that.maxSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(median, sigma, minSize, maxSize);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("median", median)
+                .append("sigma", sigma)
+                .append("minSize", minSize)
+                .append("maxSize", maxSize)
+                .toString();
+    }
+}
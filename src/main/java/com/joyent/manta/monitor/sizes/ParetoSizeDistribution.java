@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation that follows a Pareto distribution
+ * truncated to the maximum size. The minimum size is the scale of the
+ * distribution and the shape controls how heavy its tail is: the lower the
+ * shape, the more likely large objects are.
+ */
+public class ParetoSizeDistribution implements SizeDistribution {
+    private final long minSize;
+    private final long maxSize;
+    private final double shape;
+
+    /**
+     * Probability mass that is cut off by truncating at the maximum size,
+     * subtracted from one.
+     */
+    private final double truncation;
+
+    @JsonCreator
+    public ParetoSizeDistribution(@JsonProperty("minSize") final long minSize,
+                                  @JsonProperty("maxSize") final long maxSize,
+                                  @JsonProperty("shape") final double shape) {
+        Validate.isTrue(minSize > 0, "Minimum size must be greater than zero");
+        Validate.isTrue(maxSize >= minSize,
+                "Maximum size must be greater than or equal to the minimum size");
+        Validate.isTrue(shape > 0, "Shape must be greater than zero");
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.shape = shape;
+        this.truncation = 1.0 - Math.pow((double)minSize / maxSize, shape);
+    }
+
+    public long getMinSize() {
+        return minSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public double getShape() {
+        return shape;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        // inverse of the cumulative distribution function of the truncated distribution
+        final double u = random.nextDouble();
+        final double size = minSize / Math.pow(1.0 - u * truncation, 1.0 / shape);
+        return Math.max(minSize, Math.min(maxSize, (long)size));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final ParetoSizeDistribution that = (ParetoSizeDistribution) o;
+        return minSize == that.minSize
+                && maxSize == that.maxSize
+                && Double.compare(shape, that.shape) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minSize, maxSize, shape);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("minSize", minSize)
+                .append("maxSize", maxSize)
+                .append("shape", shape)
+                .toString();
+    }
+}
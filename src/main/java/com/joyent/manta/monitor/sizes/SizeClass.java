@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Enum of the ranges that transfer sizes are grouped into when they are used
+ * as metric labels, so that throughput can be compared between transfers of
+ * a similar size without a label value per distinct size.
+ */
+public enum SizeClass {
+    /**
+     * Up to and including 1 KiB.
+     */
+    UP_TO_1KIB("<=1KiB", 1L << 10),
+
+    /**
+     * Over 1 KiB and up to and including 64 KiB.
+     */
+    UP_TO_64KIB("<=64KiB", 64L << 10),
+
+    /**
+     * Over 64 KiB and up to and including 1 MiB.
+     */
+    UP_TO_1MIB("<=1MiB", 1L << 20),
+
+    /**
+     * Over 1 MiB and up to and including 16 MiB.
+     */
+    UP_TO_16MIB("<=16MiB", 16L << 20),
+
+    /**
+     * Over 16 MiB and up to and including 256 MiB.
+     */
+    UP_TO_256MIB("<=256MiB", 256L << 20),
+
+    /**
+     * Over 256 MiB.
+     */
+    OVER_256MIB(">256MiB", Long.MAX_VALUE);
+
+    private final String label;
+    private final long upperBound;
+
+    SizeClass(final String label, final long upperBound) {
+        this.label = label;
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * @return value used for the size class in metric labels
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return largest size in bytes within the class
+     */
+    public long getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Finds the class that a size falls into.
+     *
+     * @param bytes size in bytes
+     * @return size class containing the size
+     */
+    public static SizeClass of(final long bytes) {
+        Validate.isTrue(bytes >= 0, "Size must not be negative");
+
+        for (SizeClass sizeClass : values()) {
+            if (bytes <= sizeClass.upperBound) {
+                return sizeClass;
+            }
+        }
+
+        return OVER_256MIB;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.util.Random;
+
+/**
+ * Distribution from which the size of each test object is drawn. Instances
+ * are created from the <code>sizeDistribution</code> block of a runner's
+ * configuration, where the <code>type</code> property selects the
+ * implementation.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = FixedSizeDistribution.class, name = "fixed"),
+        @JsonSubTypes.Type(value = UniformSizeDistribution.class, name = "uniform"),
+        @JsonSubTypes.Type(value = LogNormalSizeDistribution.class, name = "logNormal"),
+        @JsonSubTypes.Type(value = ParetoSizeDistribution.class, name = "pareto"),
+        @JsonSubTypes.Type(value = WeightedSizeDistribution.class, name = "weighted"),
+        @JsonSubTypes.Type(value = HistogramSizeDistribution.class, name = "histogram")
+})
+public interface SizeDistribution {
+    /**
+     * Draws the size of the next test object. Implementations must be
+     * thread-safe.
+     *
+     * @param random source of randomness to draw the size with
+     * @return size in bytes
+     */
+    long nextSize(Random random);
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation where sizes are uniformly
+ * distributed from the minimum size (inclusive) to the maximum size
+ * (exclusive). This is the distribution used when a runner only specifies
+ * <code>minFileSize</code> and <code>maxFileSize</code>.
+ */
+public class UniformSizeDistribution implements SizeDistribution {
+    private final long minSize;
+    private final long maxSize;
+
+    @JsonCreator
+    public UniformSizeDistribution(@JsonProperty("minSize") final long minSize,
+                                   @JsonProperty("maxSize") final long maxSize) {
+        Validate.isTrue(minSize >= 0, "Minimum size must not be negative");
+        Validate.isTrue(maxSize >= minSize,
+                "Maximum size must be greater than or equal to the minimum size");
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    public long getMinSize() {
+        return minSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        return nextSize(random, minSize, maxSize);
+    }
+
+    /**
+     * Draws a size uniformly from the minimum size (inclusive) to the maximum
+     * size (exclusive).
+     */
+    static long nextSize(final Random random, final long minSize, final long maxSize) {
+        if (maxSize <= minSize) {
+            return minSize;
+        }
+
+        return minSize + (long)(random.nextDouble() * (maxSize - minSize));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final UniformSizeDistribution that = (UniformSizeDistribution) o;
+        return minSize == that.minSize
+                && maxSize == that.maxSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minSize, maxSize);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("minSize", minSize)
+                .append("maxSize", maxSize)
+                .toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * {@link SizeDistribution} implementation that picks one of a set of size
+ * classes in proportion to its weight and then draws a size uniformly from
+ * within that class.
+ */
+public class WeightedSizeDistribution implements SizeDistribution {
+    private final List<SizeClass> classes;
+
+    /**
+     * Running total of the class weights, used to look up the class for a
+     * random number between zero and the total weight.
+     */
+    private final double[] cumulativeWeights;
+
+    @JsonCreator
+    public WeightedSizeDistribution(@JsonProperty("classes") final List<SizeClass> classes) {
+        Validate.notEmpty(classes, "At least one size class must be specified");
+        this.classes = ImmutableList.copyOf(classes);
+        this.cumulativeWeights = new double[classes.size()];
+
+        double total = 0.0;
+
+        for (int i = 0; i < classes.size(); i++) {
+            total += classes.get(i).getWeight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public List<SizeClass> getClasses() {
+        return classes;
+    }
+
+    @Override
+    public long nextSize(final Random random) {
+        final double totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        final double point = random.nextDouble() * totalWeight;
+        final int found = Arrays.binarySearch(cumulativeWeights, point);
+        final int index = Math.min(found >= 0 ? found + 1 : -found - 1, classes.size() - 1);
+        final SizeClass sizeClass = classes.get(index);
+
+        return UniformSizeDistribution.nextSize(random, sizeClass.getMinSize(), sizeClass.getMaxSize());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final WeightedSizeDistribution that = (WeightedSizeDistribution) o;
+        return classes.equals(that.classes);
+    }
+
+    @Override
+    public int hashCode() {
+        return classes.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("classes", classes)
+                .toString();
+    }
+
+    /**
+     * A range of object sizes and the relative frequency with which it is
+     * chosen. A class with only a size configured contains that exact size.
+     */
+    public static class SizeClass {
+        private final long minSize;
+        private final long maxSize;
+        private final double weight;
+
+        @JsonCreator
+        public SizeClass(@JsonProperty("size") final Long size,
+                         @JsonProperty("minSize") final Long minSize,
+                         @JsonProperty("maxSize") final Long maxSize,
+                         @JsonProperty("weight") final double weight) {
+            if (size != null) {
+                this.minSize = size;
+                this.maxSize = size;
+            } else {
+                Validate.isTrue(minSize != null && maxSize != null,
+                        "Either size or both minSize and maxSize must be specified for a size class");
+                this.minSize = minSize;
+                this.maxSize = maxSize;
+            }
+
+            Validate.isTrue(this.minSize >= 0, "Minimum size must not be negative");
+            Validate.isTrue(this.maxSize >= this.minSize,
+                    "Maximum size must be greater than or equal to the minimum size");
+            Validate.isTrue(weight > 0, "Weight must be greater than zero");
+            this.weight = weight;
+        }
+
+        public SizeClass(final long minSize, final long maxSize, final double weight) {
+            this(null, minSize, maxSize, weight);
+        }
+
+        public long getMinSize() {
+            return minSize;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final SizeClass sizeClass = (SizeClass) o;
+            return minSize == sizeClass.minSize
+                    && maxSize == sizeClass.maxSize
+                    && Double.compare(weight, sizeClass.weight) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minSize, maxSize, weight);
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this)
+                    .append("minSize", minSize)
+                    .append("maxSize", maxSize)
+                    .append("weight", weight)
+                    .toString();
+        }
+    }
+}
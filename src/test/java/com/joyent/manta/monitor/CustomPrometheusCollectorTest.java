@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Test
+public class CustomPrometheusCollectorTest {
+    private MBeanServer mBeanServer;
+    private JMXMetricsCollector jmxMetricsCollector;
+
+    public interface TimerMBean {
+        long getCount();
+
+        double getMean();
+
+        double get50thPercentile();
+
+        double get99thPercentile();
+
+        double getOneMinuteRate();
+
+        String getDurationUnit();
+    }
+
+    public static class Timer implements TimerMBean {
+        @Override
+        public long getCount() {
+            return 4L;
+        }
+
+        @Override
+        public double getMean() {
+            return 300d;
+        }
+
+        @Override
+        public double get50thPercentile() {
+            return 250d;
+        }
+
+        @Override
+        public double get99thPercentile() {
+            return 900d;
+        }
+
+        @Override
+        public double getOneMinuteRate() {
+            return 0.1d;
+        }
+
+        @Override
+        public String getDurationUnit() {
+            return "milliseconds";
+        }
+    }
+
+    public interface MeterMBean {
+        long getCount();
+
+        double getMeanRate();
+    }
+
+    public static class Meter implements MeterMBean {
+        @Override
+        public long getCount() {
+            return 2L;
+        }
+
+        @Override
+        public double getMeanRate() {
+            return 0.01d;
+        }
+    }
+
+    @BeforeMethod
+    public void setup() {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        final PlatformMbeanServerProvider provider = mock(PlatformMbeanServerProvider.class);
+        when(provider.getPlatformMBeanServer()).thenReturn(mBeanServer);
+        jmxMetricsCollector = new JMXMetricsCollector(provider);
+    }
+
+    public void exportsEveryClientMBeanAsTypedFamilies() throws Exception {
+        register(new Timer(), "requests-put");
+        register(new Meter(), "exceptions-SSLException");
+
+        final List<MetricFamilySamples> families = new CustomPrometheusCollector(
+                jmxMetricsCollector, 0L, "dir").collect();
+
+        final MetricFamilySamples requests = find(families, "manta_monitor_dir_client_requests_seconds");
+        Assert.assertEquals(requests.type, Collector.Type.SUMMARY);
+        Assert.assertEquals(sampleValue(requests, "manta_monitor_dir_client_requests_seconds", "put", "0.5"), 0.25d);
+        Assert.assertEquals(sampleValue(requests, "manta_monitor_dir_client_requests_seconds_count", "put"), 4d);
+
+        final MetricFamilySamples exceptions = find(families, "manta_monitor_dir_client_exceptions_total");
+        Assert.assertEquals(exceptions.type, Collector.Type.COUNTER);
+        Assert.assertEquals(sampleValue(exceptions, "manta_monitor_dir_client_exceptions_total", "SSLException"), 2d);
+
+        Assert.assertEquals(find(families, "manta_monitor_dir_requests_put_mean").samples.get(0).value, 300d);
+        Assert.assertEquals(find(families, "manta_monitor_dir_exceptions_socket_time_out_count").samples.get(0).value, 0d);
+    }
+
+    public void sharesSnapshotWithinInterval() throws Exception {
+        register(new Timer(), "requests-put");
+
+        final CustomPrometheusCollector collector = new CustomPrometheusCollector(
+                jmxMetricsCollector, 60_000L, "dir");
+        final List<MetricFamilySamples> first = collector.collect();
+
+        register(new Meter(), "retries");
+
+        Assert.assertSame(collector.collect(), first);
+        Assert.assertNotSame(new CustomPrometheusCollector(jmxMetricsCollector, 0L, "dir").collect(), first);
+    }
+
+    private void register(final Object mBean, final String name) throws Exception {
+        mBeanServer.registerMBean(mBean, new ObjectName("com.joyent.manta.client:00=" + name + ",01=client"));
+    }
+
+    private static MetricFamilySamples find(final List<MetricFamilySamples> families, final String name) {
+        for (MetricFamilySamples family : families) {
+            if (family.name.equals(name)) {
+                return family;
+            }
+        }
+
+        throw new AssertionError("Metric family not found: " + name);
+    }
+
+    private static double sampleValue(final MetricFamilySamples family, final String name, final String... labels) {
+        for (MetricFamilySamples.Sample sample : family.samples) {
+            if (sample.name.equals(name) && sample.labelValues.equals(Arrays.asList(labels))) {
+                return sample.value;
+            }
+        }
+
+        throw new AssertionError("Sample not found: " + name + Arrays.toString(labels));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Test
+public class JMXMetricsCollectorTest {
+    private MBeanServer mBeanServer;
+    private JMXMetricsCollector collector;
+
+    public interface ExampleMBean {
+        long getCount();
+
+        double getMean();
+    }
+
+    public static class Example implements ExampleMBean {
+        private final long count;
+
+        public Example(final long count) {
+            this.count = count;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public double getMean() {
+            return 1.5d;
+        }
+    }
+
+    @BeforeMethod
+    public void setup() {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        final PlatformMbeanServerProvider provider = mock(PlatformMbeanServerProvider.class);
+        when(provider.getPlatformMBeanServer()).thenReturn(mBeanServer);
+        collector = new JMXMetricsCollector(provider);
+    }
+
+    public void readsAllAttributesOfAnMBean() throws Exception {
+        final ObjectName objectName = new ObjectName("com.joyent.manta.client:00=requests-put,01=a");
+        mBeanServer.registerMBean(new Example(7L), objectName);
+
+        Assert.assertEquals(collector.findClientMBeans(), Collections.singleton(objectName));
+
+        final Map<String, Object> values = collector.getMBeanAttributes(objectName, "Count", "Mean");
+
+        Assert.assertEquals(values.get("Count"), 7L);
+        Assert.assertEquals(values.get("Mean"), 1.5d);
+    }
+
+    public void readsUnregisteredExceptionsAsZero() {
+        Assert.assertEquals(collector.getMBeanAttributeValue(
+                "exceptions-SocketTimeoutException", "Count", Long.class), Long.valueOf(0L));
+    }
+
+    @Test(expectedExceptions = MBeanServerOperationException.class)
+    public void rejectsMissingAttributes() throws Exception {
+        mBeanServer.registerMBean(new Example(7L), new ObjectName("com.joyent.manta.client:00=requests-put,01=a"));
+
+        collector.getMBeanAttributeValue("requests-put", "99thPercentile", Double.class);
+    }
+
+    public void findsMBeansRegisteredOrReplacedAfterTheyWereLookedUp() throws Exception {
+        Assert.assertEquals(collector.getMBeanAttributeValue(
+                "exceptions-NoHttpResponseException", "Count", Long.class), Long.valueOf(0L));
+
+        final ObjectName first = new ObjectName("com.joyent.manta.client:00=exceptions-NoHttpResponseException,01=a");
+        mBeanServer.registerMBean(new Example(3L), first);
+
+        Assert.assertEquals(collector.getMBeanAttributeValue(
+                "exceptions-NoHttpResponseException", "Count", Long.class), Long.valueOf(3L));
+
+        mBeanServer.unregisterMBean(first);
+        mBeanServer.registerMBean(new Example(5L),
+                new ObjectName("com.joyent.manta.client:00=exceptions-NoHttpResponseException,01=b"));
+
+        Assert.assertEquals(collector.getMBeanAttributeValue(
+                "exceptions-NoHttpResponseException", "Count", Long.class), Long.valueOf(5L));
+        Assert.assertTrue(collector.validateMbeanObject("exceptions-NoHttpResponseException"));
+    }
+}
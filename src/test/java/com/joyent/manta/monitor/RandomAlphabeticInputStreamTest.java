@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+@Test
+public class RandomAlphabeticInputStreamTest {
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Chi-square critical value for 51 degrees of freedom at p = 0.001.
+     */
+    private static final double CHI_SQUARE_CRITICAL_VALUE = 87.97;
+
+    public void generatesUniformAlphabeticDistribution() throws Exception {
+        final int size = 5_200_000;
+        final long[] counts = new long[128];
+
+        try (InputStream in = new RandomAlphabeticInputStream(size, 0xC0FFEEL)) {
+            final byte[] buf = new byte[8191];
+            int read;
+            long total = 0;
+            while ((read = in.read(buf)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    counts[buf[i]]++;
+                }
+                total += read;
+            }
+            Assert.assertEquals(total, size);
+        }
+
+        final double expected = (double) size / ALPHABET.length();
+        double chiSquare = 0.0;
+
+        for (int c = 0; c < counts.length; c++) {
+            if (ALPHABET.indexOf(c) < 0) {
+                Assert.assertEquals(counts[c], 0L, "Unexpected character: " + c);
+                continue;
+            }
+
+            final double diff = counts[c] - expected;
+            chiSquare += diff * diff / expected;
+        }
+
+        Assert.assertTrue(chiSquare < CHI_SQUARE_CRITICAL_VALUE,
+                "Distribution isn't uniform, chi-square: " + chiSquare);
+    }
+
+    public void usesSameAlphabetAsRandomStringUtils() throws Exception {
+        final byte[] expected = RandomStringUtils.randomAlphabetic(100_000)
+                .getBytes(StandardCharsets.US_ASCII);
+        final byte[] actual;
+
+        try (InputStream in = new RandomAlphabeticInputStream(100_000, 7L)) {
+            actual = IOUtils.toByteArray(in);
+        }
+
+        Assert.assertEquals(distinctChars(actual), distinctChars(expected));
+    }
+
+    public void singleByteReadsMatchBulkReads() throws Exception {
+        final byte[] bulk;
+        final byte[] single = new byte[1001];
+
+        try (InputStream in = new RandomAlphabeticInputStream(single.length, 99L)) {
+            bulk = IOUtils.toByteArray(in);
+        }
+
+        try (InputStream in = new RandomAlphabeticInputStream(single.length, 99L)) {
+            for (int i = 0; i < single.length; i++) {
+                single[i] = (byte) in.read();
+            }
+            Assert.assertEquals(in.read(), -1);
+        }
+
+        Assert.assertEquals(single, bulk);
+    }
+
+    public void skipMatchesReadingThrough() throws Exception {
+        final byte[] all;
+
+        try (InputStream in = new RandomAlphabeticInputStream(10_000, 5L)) {
+            all = IOUtils.toByteArray(in);
+        }
+
+        try (InputStream in = new RandomAlphabeticInputStream(10_000, 5L)) {
+            Assert.assertEquals(in.skip(4_001), 4_001L);
+            final byte[] rest = IOUtils.toByteArray(in);
+            Assert.assertEquals(rest, Arrays.copyOfRange(all, 4_001, all.length));
+            Assert.assertEquals(in.skip(1), 0L);
+        }
+    }
+
+    private static String distinctChars(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder();
+        new String(bytes, StandardCharsets.US_ASCII).chars().distinct().sorted()
+                .forEach(builder::appendCodePoint);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor;
+
+import com.joyent.manta.http.MantaHttpHeaders;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+@Test
+public class ServerLabelsTest {
+    public void labelsServersUntilLimitIsReached() {
+        final ServerLabels labels = new ServerLabels(2);
+
+        Assert.assertEquals(labels.labelFor("muskie-a"), "muskie-a");
+        Assert.assertEquals(labels.labelFor("muskie-b"), "muskie-b");
+        Assert.assertEquals(labels.labelFor("muskie-c"), ServerLabels.OTHER);
+        Assert.assertEquals(labels.labelFor("muskie-a"), "muskie-a");
+    }
+
+    public void labelsResponsesWithoutServerAsUnknown() {
+        final ServerLabels labels = new ServerLabels(2);
+
+        Assert.assertEquals(labels.labelFor((MantaHttpHeaders)null), ServerLabels.UNKNOWN);
+        Assert.assertEquals(labels.labelFor(new MantaHttpHeaders()), ServerLabels.UNKNOWN);
+        Assert.assertEquals(labels.labelFor(" "), ServerLabels.UNKNOWN);
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.put(ServerLabels.SERVER_NAME_HEADER, "muskie-a");
+        Assert.assertEquals(labels.labelFor(headers), "muskie-a");
+    }
+
+    public void mostFrequentServersReplaceLabelledServersOnRefresh() {
+        final ServerLabels labels = new ServerLabels(1);
+
+        Assert.assertEquals(labels.labelFor("rare"), "rare");
+
+        for (long i = 1; i < ServerLabels.REFRESH_INTERVAL - 1; i++) {
+            Assert.assertEquals(labels.labelFor("busy"), ServerLabels.OTHER);
+        }
+
+        Assert.assertEquals(labels.labelFor("busy"), "busy");
+        Assert.assertEquals(labels.labelFor("rare"), ServerLabels.OTHER);
+    }
+
+    public void forgetsServersNotSeenForAWindow() {
+        final ServerLabels labels = new ServerLabels(1);
+
+        Assert.assertEquals(labels.labelFor("gone"), "gone");
+
+        for (long i = 1; i < ServerLabels.REFRESH_INTERVAL; i++) {
+            labels.labelFor("gone");
+        }
+
+        for (long i = 0; i < ServerLabels.REFRESH_INTERVAL; i++) {
+            labels.labelFor("new");
+        }
+
+        /* Only the new server was seen in the last window, so the old one
+         * is forgotten even though it served as many responses. */
+        Assert.assertEquals(labels.getLabelledServers(), Collections.singleton("new"));
+    }
+
+    public void establishedServerIsDisplacedOnceItsCountsDecay() {
+        final ServerLabels labels = new ServerLabels(1);
+
+        for (long i = 0; i < 10 * ServerLabels.REFRESH_INTERVAL; i++) {
+            labels.labelFor("established");
+        }
+
+        int windows = 0;
+
+        while (!labels.getLabelledServers().contains("replacement")) {
+            Assert.assertTrue(windows++ < 3, "Established server was never displaced");
+
+            labels.labelFor("established");
+
+            for (long i = 1; i < ServerLabels.REFRESH_INTERVAL; i++) {
+                labels.labelFor("replacement");
+            }
+        }
+    }
+
+    public void tracksNewServersOnceOldOnesAreForgotten() {
+        final ServerLabels labels = new ServerLabels(1);
+
+        /* Fill every tracked slot with names that are never seen again. */
+        for (int i = 0; i < ServerLabels.REFRESH_INTERVAL; i++) {
+            labels.labelFor("transient-" + i);
+        }
+
+        /* The new server can't be tracked until the names that weren't seen
+         * again are forgotten at the end of its first window. */
+        for (long i = 0; i < ServerLabels.REFRESH_INTERVAL; i++) {
+            Assert.assertEquals(labels.labelFor("frontend"), ServerLabels.OTHER);
+        }
+
+        Assert.assertEquals(labels.labelFor("frontend"), "frontend");
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.admin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joyent.manta.monitor.chains.ChainRunner;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Test
+public class RunnersResourceTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ChainRunner runner;
+    private RunnersResource resource;
+
+    @BeforeMethod
+    public void setUp() {
+        runner = mock(ChainRunner.class);
+        when(runner.getName()).thenReturn("test-runner");
+        when(runner.getChainName()).thenReturn("TestChain");
+        when(runner.getThreads()).thenReturn(2);
+
+        final ChainRunnerRegistry registry = new ChainRunnerRegistry();
+        registry.register(runner);
+        resource = new RunnersResource(registry);
+    }
+
+    public void unknownRunnerIsNotFound() {
+        assertStatus(() -> resource.get("missing"), NotFoundException.class, Response.Status.NOT_FOUND);
+        assertStatus(() -> resource.resize("missing", 2), NotFoundException.class, Response.Status.NOT_FOUND);
+        assertStatus(() -> resource.drain("missing", 100L), NotFoundException.class, Response.Status.NOT_FOUND);
+    }
+
+    public void rejectsInvalidThreads() {
+        assertStatus(() -> resource.resize("test-runner", null), BadRequestException.class, Response.Status.BAD_REQUEST);
+        assertStatus(() -> resource.resize("test-runner", 0), BadRequestException.class, Response.Status.BAD_REQUEST);
+        verify(runner, never()).resize(0);
+    }
+
+    public void rejectsNegativeDrainTimeout() throws Exception {
+        assertStatus(() -> resource.drain("test-runner", -1L), BadRequestException.class, Response.Status.BAD_REQUEST);
+        verify(runner, never()).drain(-1L);
+    }
+
+    public void resizeReturnsRunnerStatus() throws Exception {
+        final JsonNode status = MAPPER.readTree(resource.resize("test-runner", 2));
+
+        verify(runner).resize(2);
+        Assert.assertEquals(status.get("name").asText(), "test-runner");
+        Assert.assertEquals(status.get("threads").asInt(), 2);
+        Assert.assertFalse(status.has("drained"));
+    }
+
+    public void drainReportsWhetherRunnerDrained() throws Exception {
+        when(runner.drain(100L)).thenReturn(true);
+        when(runner.drain(50L)).thenReturn(false);
+
+        Assert.assertTrue(MAPPER.readTree(resource.drain("test-runner", 100L)).get("drained").asBoolean());
+        Assert.assertFalse(MAPPER.readTree(resource.drain("test-runner", 50L)).get("drained").asBoolean());
+    }
+
+    private interface Call {
+        Object call() throws Exception;
+    }
+
+    private static void assertStatus(final Call call,
+                                     final Class<? extends WebApplicationException> expected,
+                                     final Response.Status status) {
+        try {
+            call.call();
+            Assert.fail("Expected " + expected.getSimpleName());
+        } catch (WebApplicationException e) {
+            Assert.assertTrue(expected.isInstance(e), e.toString());
+            Assert.assertEquals(e.getResponse().getStatus(), status.getStatusCode());
+        } catch (Exception e) {
+            Assert.fail("Unexpected exception", e);
+        }
+    }
+}
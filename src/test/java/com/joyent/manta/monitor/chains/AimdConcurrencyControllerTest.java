@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.config.ConcurrencyControl;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class AimdConcurrencyControllerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    public void increasesAdditivelyWhileWithinObjectives() throws Exception {
+        final MantaMonitorMetrics metrics = new MantaMonitorMetrics();
+        final AimdConcurrencyController controller = buildController(metrics, 4, 10);
+
+        record(controller, 20, FAST, 0);
+        Assert.assertEquals(controller.adjust(), AimdConcurrencyController.INCREASE);
+        Assert.assertEquals(controller.getLimit(), 5);
+
+        record(controller, 20, FAST, 0);
+        controller.adjust();
+        Assert.assertEquals(controller.getLimit(), 6);
+        Assert.assertEquals(metrics.getConcurrencyLimit().labels("TestChain").get(), 6.0);
+    }
+
+    public void decreasesMultiplicativelyWhenLatencyExceedsSlo() throws Exception {
+        final AimdConcurrencyController controller = buildController(new MantaMonitorMetrics(), 8, 10);
+
+        record(controller, 18, FAST, 0);
+        record(controller, 2, SLOW, 0);
+        Assert.assertEquals(controller.adjust(), AimdConcurrencyController.DECREASE);
+        Assert.assertEquals(controller.getLimit(), 4);
+    }
+
+    public void decreasesWhenErrorRateIsTooHigh() throws Exception {
+        final AimdConcurrencyController controller = buildController(new MantaMonitorMetrics(), 8, 10);
+
+        record(controller, 20, FAST, 5);
+        Assert.assertEquals(controller.adjust(), AimdConcurrencyController.DECREASE);
+    }
+
+    public void limitStaysWithinBounds() throws Exception {
+        final AimdConcurrencyController controller = buildController(new MantaMonitorMetrics(), 2, 3);
+
+        for (int i = 0; i < 5; i++) {
+            record(controller, 20, SLOW, 0);
+            controller.adjust();
+        }
+        Assert.assertEquals(controller.getLimit(), 1);
+
+        for (int i = 0; i < 5; i++) {
+            record(controller, 20, FAST, 0);
+            controller.adjust();
+        }
+        Assert.assertEquals(controller.getLimit(), 3);
+    }
+
+    public void holdsUntilEnoughSamplesAccumulate() throws Exception {
+        final AimdConcurrencyController controller = buildController(new MantaMonitorMetrics(), 4, 10);
+
+        record(controller, 10, FAST, 0);
+        Assert.assertEquals(controller.adjust(), AimdConcurrencyController.HOLD);
+        Assert.assertEquals(controller.getLimit(), 4);
+
+        record(controller, 10, FAST, 0);
+        Assert.assertEquals(controller.adjust(), AimdConcurrencyController.INCREASE);
+    }
+
+    public void acquireBlocksAtLimit() throws Exception {
+        final AimdConcurrencyController controller = buildController(new MantaMonitorMetrics(), 2, 10);
+
+        Assert.assertTrue(controller.acquire(10));
+        Assert.assertTrue(controller.acquire(10));
+        Assert.assertFalse(controller.acquire(10));
+
+        controller.release(FAST, true);
+        Assert.assertTrue(controller.acquire(10));
+    }
+
+    private static AimdConcurrencyController buildController(final MantaMonitorMetrics metrics,
+                                                             final int initial,
+                                                             final int max) {
+        final ConcurrencyControl config = new ConcurrencyControl(100L)
+                .setMaxErrorRate(0.1)
+                .setInitialConcurrency(initial)
+                .setMultiplicativeDecrease(0.5);
+        return new AimdConcurrencyController("TestChain", config, max, metrics);
+    }
+
+    private static void record(final AimdConcurrencyController controller,
+                               final int count,
+                               final long latency,
+                               final int failures) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(controller.acquire(1000));
+            controller.release(latency, i >= failures);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.monitor.config.ArrivalProcess;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Test
+public class ArrivalSchedulerTest {
+    public void fixedIntervalsAreEven() {
+        final Random random = new Random(1L);
+
+        Assert.assertEquals(ArrivalProcess.FIXED.nextIntervalNanos(200.0, random), 5_000_000L);
+        Assert.assertEquals(ArrivalProcess.FIXED.nextIntervalNanos(0.5, random), 2_000_000_000L);
+    }
+
+    public void poissonIntervalsHaveExpectedMean() {
+        final Random random = new Random(42L);
+        final int samples = 100_000;
+        long total = 0;
+
+        for (int i = 0; i < samples; i++) {
+            final long interval = ArrivalProcess.POISSON.nextIntervalNanos(100.0, random);
+            Assert.assertTrue(interval >= 0);
+            total += interval;
+        }
+
+        final double mean = (double)total / samples;
+        Assert.assertEquals(mean, 10_000_000.0, 200_000.0);
+    }
+
+    public void slowDispatchDoesNotDelayIntendedStarts() {
+        final int expected = 100;
+        final long interval = TimeUnit.MILLISECONDS.toNanos(1);
+        final List<Long> intendedStarts = new ArrayList<>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        new ArrivalScheduler(1000.0, ArrivalProcess.FIXED, running::get, intendedStart -> {
+            intendedStarts.add(intendedStart);
+
+            /* A dispatch that takes far longer than the interval must not
+             * shift the start times of the executions that follow it. */
+            if (intendedStarts.size() == 1) {
+                sleep(20);
+            }
+
+            if (intendedStarts.size() == expected) {
+                running.set(false);
+            }
+        }).run();
+
+        Assert.assertEquals(intendedStarts.size(), expected);
+
+        for (int i = 1; i < expected; i++) {
+            Assert.assertEquals(intendedStarts.get(i) - intendedStarts.get(i - 1), interval);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
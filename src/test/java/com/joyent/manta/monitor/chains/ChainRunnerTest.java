@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.monitor.HoneyBadgerRequestFactory;
+import com.joyent.manta.monitor.InstanceMetadata;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.commands.MantaOperationCommand;
+import com.joyent.manta.monitor.config.Runner;
+import io.honeybadger.reporter.NoticeReporter;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Test
+public class ChainRunnerTest {
+    private static final long WAIT_MILLIS = 5_000L;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicLong executions = new AtomicLong();
+    private volatile boolean blocked;
+    private ChainRunner runner;
+    private MantaMonitorMetrics metrics;
+
+    /**
+     * Command that counts the executions running at once and, while the
+     * test blocks it, doesn't finish.
+     */
+    private final MantaOperationCommand command = context -> {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            do {
+                Thread.sleep(1);
+            } while (blocked);
+        } finally {
+            active.decrementAndGet();
+            executions.incrementAndGet();
+        }
+        return MantaOperationCommand.CONTINUE_PROCESSING;
+    };
+
+    @BeforeMethod
+    public void reset() {
+        active.set(0);
+        maxActive.set(0);
+        executions.set(0);
+        blocked = false;
+        runner = null;
+        metrics = new MantaMonitorMetrics();
+    }
+
+    @AfterMethod
+    public void stopRunner() throws InterruptedException {
+        blocked = false;
+
+        if (runner == null) {
+            return;
+        }
+
+        /* Let executions in flight finish so that they don't update the
+         * counters after the next test has reset them. */
+        runner.drain(WAIT_MILLIS);
+        runner.stop();
+        runner.getExecutorService().shutdown();
+    }
+
+    public void resizeChangesNumberOfConcurrentExecutions() throws Exception {
+        blocked = true;
+        runner = startRunner(1);
+        awaitCondition(() -> active.get() == 1);
+
+        runner.resize(3);
+        awaitCondition(() -> active.get() == 3);
+        Assert.assertEquals(runner.getThreads(), 3);
+
+        runner.resize(1);
+        blocked = false;
+        Assert.assertTrue(runner.drain(WAIT_MILLIS));
+
+        maxActive.set(0);
+        executions.set(0);
+        runner.resume();
+        awaitCondition(() -> executions.get() > 50);
+        Assert.assertEquals(maxActive.get(), 1);
+    }
+
+    public void pauseStopsNewExecutionsUntilResumed() throws Exception {
+        runner = startRunner(2);
+        awaitCondition(() -> executions.get() > 0);
+
+        runner.pause();
+        Assert.assertTrue(runner.isPaused());
+        awaitCondition(() -> runner.getInFlight() == 0);
+
+        final long pausedAt = executions.get();
+        Thread.sleep(100);
+        Assert.assertEquals(executions.get(), pausedAt);
+
+        runner.resume();
+        awaitCondition(() -> executions.get() > pausedAt);
+    }
+
+    public void drainWaitsForExecutionsInFlight() throws Exception {
+        blocked = true;
+        runner = startRunner(2);
+        awaitCondition(() -> active.get() == 2);
+
+        Assert.assertFalse(runner.drain(50));
+        Assert.assertEquals(runner.getInFlight(), 2);
+
+        blocked = false;
+        Assert.assertTrue(runner.drain(WAIT_MILLIS));
+        Assert.assertEquals(runner.getInFlight(), 0);
+        Assert.assertTrue(runner.isPaused());
+    }
+
+    public void asyncModeBoundsChainsInFlight() throws Exception {
+        blocked = true;
+        /* One configured thread doesn't stop the executions in flight from
+         * running at once. */
+        runner = startRunner(new Runner(MantaOperationsChain.class.getName(), "test-runner", 1, 1L, 1L)
+                .setMaxInFlightChains(3));
+        awaitCondition(() -> active.get() == 3);
+
+        Thread.sleep(50);
+        Assert.assertEquals(maxActive.get(), 3);
+        Assert.assertEquals(runner.getInFlight(), 3);
+
+        runner.resize(4);
+        awaitCondition(() -> active.get() == 4);
+        Assert.assertEquals(runner.getInFlight(), 4);
+
+        blocked = false;
+        Assert.assertTrue(runner.drain(WAIT_MILLIS));
+        Assert.assertTrue(executions.get() >= 3);
+    }
+
+    public void recordsChainLatencyByRunner() throws Exception {
+        runner = startRunner(1);
+        awaitCondition(() -> {
+            final double[] buckets = metrics.getChainLatency()
+                    .labels(MantaOperationsChain.class.getSimpleName(), "test-runner").get().buckets;
+            return buckets[buckets.length - 1] > 0;
+        });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsAsyncModeWithTargetRate() {
+        startRunner(new Runner(MantaOperationsChain.class.getName(), "test-runner", 1, 1L, 1L)
+                .setMaxInFlightChains(3)
+                .setTargetOpsPerSecond(10d));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsExpectedIntervalWithTargetRate() {
+        startRunner(new Runner(MantaOperationsChain.class.getName(), "test-runner", 1, 1L, 1L)
+                .setExpectedIntervalMillis(100L)
+                .setTargetOpsPerSecond(10d));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsResizeToZeroThreads() {
+        runner = startRunner(1);
+        runner.resize(0);
+    }
+
+    private ChainRunner startRunner(final int threads) {
+        return startRunner(new Runner(MantaOperationsChain.class.getName(), "test-runner", threads, 1L, 1L));
+    }
+
+    private ChainRunner startRunner(final Runner config) {
+        final MantaOperationsChain chain = new MantaOperationsChain(
+                Collections.singletonList(command), mock(NoticeReporter.class),
+                mock(HoneyBadgerRequestFactory.class), new InstanceMetadata());
+
+        final ConfigContext configContext = mock(ConfigContext.class);
+        when(configContext.getMantaHomeDirectory()).thenReturn("/user");
+        final MantaClient client = mock(MantaClient.class);
+        when(client.getContext()).thenReturn(configContext);
+
+        final ChainRunner chainRunner = new ChainRunner(chain, config, client,
+                (thread, throwable) -> { }, new ConcurrentHashMap<>(), "dir", metrics);
+        chainRunner.start();
+
+        return chainRunner;
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(5);
+        }
+    }
+}
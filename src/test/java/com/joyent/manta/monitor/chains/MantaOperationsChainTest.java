@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.chains;
+
+import com.joyent.manta.monitor.HoneyBadgerRequestFactory;
+import com.joyent.manta.monitor.InstanceMetadata;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.ThrowableProcessor;
+import com.joyent.manta.monitor.commands.DataValidationException;
+import com.joyent.manta.monitor.commands.MantaOperationCommand;
+import io.honeybadger.reporter.NoticeReporter;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+@Test
+public class MantaOperationsChainTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    public void executesCommandsAsynchronouslyInOrder() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final MantaOperationsChain chain = buildChain(
+                recording(executed, "first", MantaOperationCommand.CONTINUE_PROCESSING),
+                recording(executed, "second", MantaOperationCommand.CONTINUE_PROCESSING));
+
+        final boolean success = chain.executeAsync(new MantaOperationContext(), executor)
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertTrue(success);
+        Assert.assertEquals(executed, Arrays.asList("first", "second"));
+    }
+
+    public void stopsWhenCommandCompletesProcessing() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final MantaOperationsChain chain = buildChain(
+                recording(executed, "first", MantaOperationCommand.PROCESSING_COMPLETE),
+                recording(executed, "second", MantaOperationCommand.CONTINUE_PROCESSING));
+
+        Assert.assertTrue(chain.executeAsync(new MantaOperationContext(), executor)
+                .get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(executed, Arrays.asList("first"));
+    }
+
+    public void failedCommandStopsChainAndIsRecordedInContext() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final IOException failure = new IOException("expected failure");
+        final MantaOperationsChain chain = buildChain(
+                recording(executed, "first", MantaOperationCommand.CONTINUE_PROCESSING),
+                context -> {
+                    throw failure;
+                },
+                recording(executed, "third", MantaOperationCommand.CONTINUE_PROCESSING));
+        final MantaOperationContext context = new MantaOperationContext();
+
+        Assert.assertFalse(chain.executeAsync(context, executor).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(executed, Arrays.asList("first"));
+        Assert.assertSame(context.getException(), failure);
+    }
+
+    public void recordsCommandDurations() {
+        final MantaMonitorMetrics metrics = new MantaMonitorMetrics();
+        final MantaOperationContext context = new MantaOperationContext()
+                .setMetrics(metrics)
+                .setChainClassNameKey("TestChain")
+                .setRunnerName("test-runner");
+
+        Assert.assertTrue(buildChain(new NoopCommand(), new NoopCommand()).execute(context));
+
+        final double[] commandBuckets = metrics.getCommandDuration()
+                .labels("TestChain", "test-runner", "NoopCommand").get().buckets;
+
+        Assert.assertEquals(commandBuckets[commandBuckets.length - 1], 2d);
+    }
+
+    public void countsErrorsByCommandStatusAndKind() {
+        final MantaMonitorMetrics metrics = new MantaMonitorMetrics();
+        final MantaOperationContext context = new MantaOperationContext()
+                .setMetrics(metrics)
+                .setChainClassNameKey("TestChain");
+
+        Assert.assertFalse(buildChain(new NoopCommand(), new CorruptDataCommand()).execute(context));
+        Assert.assertFalse(buildChain(new FailingReadCommand()).execute(context));
+
+        Assert.assertEquals(metrics.getErrors()
+                .labels("TestChain", "CorruptDataCommand", "none", "data-validation").get(), 1d);
+        Assert.assertEquals(metrics.getErrors()
+                .labels("TestChain", "FailingReadCommand", "none", "io").get(), 1d);
+        Assert.assertEquals(metrics.getErrors()
+                .labels("TestChain", "NoopCommand", "none", "data-validation").get(), 0d);
+    }
+
+    public void tagsNoticesWithTheKindOfError() {
+        final ThrowableProcessor processor = new ThrowableProcessor(mock(HoneyBadgerRequestFactory.class));
+        final Set<String> tags = new LinkedHashSet<>();
+
+        final String message = MantaOperationsChain.extractMessageAndAddTags(processor.process(
+                new IOException("request failed", new SocketTimeoutException("Read timed out"))), tags);
+
+        Assert.assertEquals(message, "Read timed out");
+        Assert.assertEquals(tags, Collections.singleton(ErrorClassifier.KIND_SOCKET_TIMEOUT));
+
+        tags.clear();
+        MantaOperationsChain.extractMessageAndAddTags(processor.process(
+                new DataValidationException("corrupt", new IOException("cause"))), tags);
+
+        Assert.assertEquals(tags, Collections.singleton(ErrorClassifier.KIND_DATA_VALIDATION));
+    }
+
+    private static final class FailingReadCommand implements MantaOperationCommand {
+        @Override
+        public boolean execute(final MantaOperationContext context) throws IOException {
+            throw new IOException("expected failure");
+        }
+    }
+
+    private static final class CorruptDataCommand implements MantaOperationCommand {
+        @Override
+        public boolean execute(final MantaOperationContext context) {
+            throw new DataValidationException("expected failure");
+        }
+    }
+
+    private static final class NoopCommand implements MantaOperationCommand {
+        @Override
+        public boolean execute(final MantaOperationContext context) {
+            return CONTINUE_PROCESSING;
+        }
+    }
+
+    private static MantaOperationCommand recording(final List<String> executed,
+                                                   final String name,
+                                                   final boolean result) {
+        return context -> {
+            executed.add(name);
+            return result;
+        };
+    }
+
+    private static MantaOperationsChain buildChain(final MantaOperationCommand... commands) {
+        return new MantaOperationsChain(Arrays.asList(commands), mock(NoticeReporter.class),
+                mock(HoneyBadgerRequestFactory.class), new InstanceMetadata());
+    }
+}
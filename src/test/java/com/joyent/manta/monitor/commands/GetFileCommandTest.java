@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import org.apache.http.HttpStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class GetFileCommandTest {
+    private static final String PATH = "/user/stor/object";
+
+    public void acceptsPartialResponseForRequestedRange() {
+        GetFileCommand.verifyRangeResponse(PATH, HttpStatus.SC_PARTIAL_CONTENT,
+                "bytes 100-199/1000", 100, 199, 1000);
+    }
+
+    public void rejectsResponseThatIgnoredTheRange() {
+        try {
+            GetFileCommand.verifyRangeResponse(PATH, HttpStatus.SC_OK, null, 100, 199, 1000);
+            Assert.fail("Expected a full response to be rejected");
+        } catch (DataValidationException e) {
+            Assert.assertEquals(e.getFirstContextValue("statusCode"), HttpStatus.SC_OK);
+        }
+    }
+
+    public void rejectsPartialResponseForAnotherRange() {
+        try {
+            GetFileCommand.verifyRangeResponse(PATH, HttpStatus.SC_PARTIAL_CONTENT,
+                    "bytes 0-99/1000", 100, 199, 1000);
+            Assert.fail("Expected a different range to be rejected");
+        } catch (DataValidationException e) {
+            Assert.assertEquals(e.getFirstContextValue("actualContentRange"), "bytes 0-99/1000");
+        }
+    }
+}
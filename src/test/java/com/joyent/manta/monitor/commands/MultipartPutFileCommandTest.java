@@ -49,4 +49,34 @@ public class MultipartPutFileCommandTest {
 
         Assert.assertEquals(totalSize, fileSize);
     }
+
+    public void canCalculateChunkSizesForPartSize() {
+        final long fileSize = 3L * MINIMUM_PART_SIZE + 100;
+        final long[] chunkSizes = MultipartPutFileCommand.calculateChunkSizesForPartSize(
+                fileSize, MINIMUM_PART_SIZE, MINIMUM_PART_SIZE, 800);
+
+        Assert.assertEquals(chunkSizes, new long[] {MINIMUM_PART_SIZE, MINIMUM_PART_SIZE,
+                MINIMUM_PART_SIZE, 100});
+    }
+
+    public void increasesPartSizeToStayWithinMaximumParts() {
+        final long fileSize = 10L * MINIMUM_PART_SIZE;
+        final long[] chunkSizes = MultipartPutFileCommand.calculateChunkSizesForPartSize(
+                fileSize, MINIMUM_PART_SIZE, MINIMUM_PART_SIZE, 4);
+
+        Assert.assertEquals(chunkSizes.length, 4);
+
+        long totalSize = 0;
+        for (final long chunkSize : chunkSizes) {
+            totalSize += chunkSize;
+        }
+
+        Assert.assertEquals(totalSize, fileSize);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsPartSizeBelowMinimum() {
+        MultipartPutFileCommand.calculateChunkSizesForPartSize(
+                10L * MINIMUM_PART_SIZE, MINIMUM_PART_SIZE - 1, MINIMUM_PART_SIZE, 800);
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.client.multipart.MantaMultipartUploadPart;
+import com.joyent.manta.client.multipart.ServerSideMultipartManager;
+import com.joyent.manta.client.multipart.ServerSideMultipartUpload;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.digests.CompositeChecksum;
+import com.joyent.manta.monitor.payloads.GeneratedPayload;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Test
+public class ParallelPartUploadTest {
+    private static final long[] CHUNK_SIZES = {3_000L, 2_000L, 2_000L, 2_000L, 2_000L, 2_000L};
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    public void uploadsEveryPartFromItsPositionInThePayload() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(11L, 13_000L);
+        final MantaOperationContext context = buildContext(payload);
+        final ServerSideMultipartUpload upload = mock(ServerSideMultipartUpload.class);
+        final ServerSideMultipartManager manager = mock(ServerSideMultipartManager.class);
+        final Map<Integer, byte[]> received = new TreeMap<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        when(manager.uploadPart(any(ServerSideMultipartUpload.class), anyInt(), any(InputStream.class)))
+                .thenAnswer(invocation -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        final int partNumber = invocation.getArgument(1);
+                        final byte[] data = IOUtils.toByteArray((InputStream)invocation.getArgument(2));
+                        Thread.sleep(20);
+
+                        synchronized (received) {
+                            received.put(partNumber, data);
+                        }
+
+                        return new MantaMultipartUploadPart(partNumber, "/path", "etag-" + partNumber);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+
+        final MessageDigest[] partDigests = new MessageDigest[CHUNK_SIZES.length];
+        final Iterable<MantaMultipartUploadPart> parts = MultipartPutFileCommand.uploadPartsInParallel(
+                upload, context, CHUNK_SIZES, manager, executor, 3, partDigests);
+
+        final byte[] expected;
+        try (InputStream in = payload.openStream()) {
+            expected = IOUtils.toByteArray(in);
+        }
+
+        int offset = 0;
+        int partNumber = 1;
+        for (MantaMultipartUploadPart part : parts) {
+            Assert.assertEquals(part.getPartNumber(), partNumber);
+            final byte[] data = received.get(partNumber);
+            Assert.assertEquals(data, Arrays.copyOfRange(expected, offset, offset + data.length));
+            offset += data.length;
+            partNumber++;
+        }
+
+        Assert.assertEquals(offset, expected.length);
+
+        final byte[][] digests = new byte[partDigests.length][];
+        for (int i = 0; i < partDigests.length; i++) {
+            digests[i] = partDigests[i].digest();
+        }
+
+        /* The parts were hashed out of order, so the combined checksum only
+         * matches a download of the object if each part was hashed whole. */
+        Assert.assertEquals(CompositeChecksum.combine(DigestAlgorithm.XXHASH64::newDigest, digests),
+                CompositeChecksum.calculate(DigestAlgorithm.XXHASH64::newDigest,
+                        new ByteArrayInputStream(expected), CHUNK_SIZES));
+        Assert.assertTrue(maxActive.get() > 1, "Parts weren't uploaded concurrently");
+        Assert.assertTrue(maxActive.get() <= 3, "More parts were uploaded at once than allowed");
+        verify(manager, never()).abort(upload);
+    }
+
+    public void abortsOnFirstFailedPart() throws Exception {
+        final MantaOperationContext context = buildContext(new GeneratedPayload(11L, 13_000L));
+        final ServerSideMultipartUpload upload = mock(ServerSideMultipartUpload.class);
+        final ServerSideMultipartManager manager = mock(ServerSideMultipartManager.class);
+        final AtomicInteger attempted = new AtomicInteger();
+
+        when(manager.uploadPart(any(ServerSideMultipartUpload.class), anyInt(), any(InputStream.class)))
+                .thenAnswer(invocation -> {
+                    attempted.incrementAndGet();
+                    final int partNumber = invocation.getArgument(1);
+                    IOUtils.toByteArray((InputStream)invocation.getArgument(2));
+
+                    if (partNumber == 2) {
+                        throw new IOException("expected failure");
+                    }
+
+                    /* The other parts are slower than the failure, so that
+                     * whether more parts are started doesn't depend on
+                     * scheduling. */
+                    Thread.sleep(100);
+
+                    return new MantaMultipartUploadPart(partNumber, "/path", "etag-" + partNumber);
+                });
+
+        try {
+            MultipartPutFileCommand.uploadPartsInParallel(upload, context, CHUNK_SIZES, manager, executor, 2, null);
+            Assert.fail("Expected the part failure to be thrown");
+        } catch (IOException e) {
+            Assert.assertEquals(e.getMessage(), "expected failure");
+        }
+
+        verify(manager).abort(upload);
+        Assert.assertTrue(attempted.get() < CHUNK_SIZES.length,
+                "Parts kept being uploaded after a failure");
+
+        final double[] partBuckets = context.getMetrics().getMpuPhaseLatency()
+                .labels("TestChain", "part").get().buckets;
+        Assert.assertEquals(partBuckets[partBuckets.length - 1], (double)attempted.get(),
+                "Failed parts weren't observed in the part latency");
+    }
+
+    private static MantaOperationContext buildContext(final GeneratedPayload payload) {
+        return new MantaOperationContext()
+                .setPayload(payload)
+                .setTestFileSize(payload.getSize())
+                .setDigestAlgorithm(DigestAlgorithm.XXHASH64)
+                .setFilePath("/user/stor/object")
+                .setChainClassNameKey("TestChain")
+                .setMetrics(new MantaMonitorMetrics());
+    }
+}
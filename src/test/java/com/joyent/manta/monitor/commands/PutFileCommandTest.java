@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class PutFileCommandTest {
+    private static final long FILE_SIZE = 19L;
+
+    public void acceptsAllOfThePayload() {
+        PutFileCommand.verifyUploadedSize(buildContext(), FILE_SIZE);
+    }
+
+    public void rejectsPartiallySentPayload() {
+        try {
+            PutFileCommand.verifyUploadedSize(buildContext(), 4L);
+            Assert.fail("Expected a partial upload to be rejected");
+        } catch (DataValidationException e) {
+            Assert.assertEquals(e.getFirstContextValue("uploadedFileSize"), 4L);
+        }
+    }
+
+    @Test(expectedExceptions = DataValidationException.class)
+    public void rejectsOversizedPayload() {
+        PutFileCommand.verifyUploadedSize(buildContext(), FILE_SIZE + 1);
+    }
+
+    private static MantaOperationContext buildContext() {
+        return new MantaOperationContext()
+                .setTestFileSize(FILE_SIZE)
+                .setFilePath("/user/stor/test.txt");
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.http.MantaHttpHeaders;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class ResponseMetricsTest {
+    public void ignoresMissingAndMalformedResponseTimes() {
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        Assert.assertNull(ResponseMetrics.parse(null));
+        Assert.assertNull(ResponseMetrics.parse(headers));
+
+        headers.put(ResponseMetrics.RESPONSE_TIME_HEADER, "fast");
+        Assert.assertNull(ResponseMetrics.parse(headers));
+
+        headers.put(ResponseMetrics.RESPONSE_TIME_HEADER, "42");
+        Assert.assertEquals(ResponseMetrics.parse(headers), Integer.valueOf(42));
+    }
+
+    public void recordsServerTimeAndClientOverhead() {
+        final MantaMonitorMetrics metrics = new MantaMonitorMetrics();
+        final MantaOperationContext context = new MantaOperationContext()
+                .setMetrics(metrics)
+                .setChainClassNameKey("TestChain");
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.put(ResponseMetrics.RESPONSE_TIME_HEADER, "250");
+
+        ResponseMetrics.record(context, Operations.HEAD, headers, TimeUnit.MILLISECONDS.toNanos(400));
+
+        Assert.assertEquals(metrics.getServerResponseTime().labels("TestChain", "head").get().sum, 0.25, 1e-9);
+        Assert.assertEquals(metrics.getClientOverhead().labels("TestChain", "head").get().sum, 0.15, 1e-9);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+
+@Test
+public class TimedBodyInputStreamTest {
+    public void notesFirstByteAndEndOfBody() throws Exception {
+        final long start = System.nanoTime();
+
+        try (TimedBodyInputStream in = new TimedBodyInputStream(new ByteArrayInputStream(new byte[100]))) {
+            Assert.assertEquals(in.getFirstByteNanos(), 0L);
+
+            Assert.assertEquals(in.read(new byte[10]), 10);
+            final long firstByte = in.getFirstByteNanos();
+            Assert.assertTrue(firstByte >= start);
+            Assert.assertEquals(in.getEndNanos(), 0L);
+
+            while (in.read(new byte[10]) > -1);
+
+            Assert.assertEquals(in.getFirstByteNanos(), firstByte);
+            Assert.assertTrue(in.getEndNanos() >= firstByte);
+            Assert.assertEquals(in.getByteCount(), 100L);
+        }
+    }
+
+    public void emptyBodyHasNoFirstByte() throws Exception {
+        try (TimedBodyInputStream in = new TimedBodyInputStream(new ByteArrayInputStream(new byte[0]))) {
+            Assert.assertEquals(in.read(), -1);
+            Assert.assertEquals(in.getFirstByteNanos(), 0L);
+            Assert.assertNotEquals(in.getEndNanos(), 0L);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.commands;
+
+import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.config.ChainedConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.config.StandardConfigContext;
+import com.joyent.manta.monitor.MantaMonitorMetrics;
+import com.joyent.manta.monitor.MantaOperationContext;
+import com.joyent.manta.monitor.chains.VirtualThreads;
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.config.PayloadMode;
+import com.joyent.manta.monitor.sizes.UniformSizeDistribution;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import io.prometheus.client.Histogram;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the real upload and download commands on virtual threads, through the
+ * Manta client and its HTTP client over TLS to a local stub of Manta, and
+ * checks that JFR doesn't record any virtual thread pinning its carrier
+ * thread.
+ *
+ * <p>The tests are skipped on JDKs without virtual threads, unless the
+ * <code>virtualThreads.required</code> system property is set, as it is by
+ * the <code>jdk21</code> build profile, in which case they fail.</p>
+ */
+@Test
+public class VirtualThreadPinningTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String CHAIN = "VirtualThreadPinningTest";
+    private static final String STORE_PASSWORD = "pinning";
+
+    /**
+     * Methods outside of this project that are known to pin a virtual thread
+     * while it blocks, and that can't be avoided short of replacing the
+     * library. HttpClient 4.5's pooling connection manager synchronizes on
+     * each connection while connecting and releasing it, and HttpCore 4.4
+     * synchronizes on a lease while it waits for the pool's lock. Pinning
+     * anywhere else, including anywhere in this project, fails the test.
+     */
+    private static final Set<String> KNOWN_PINNING_METHODS = Set.of(
+            "org.apache.http.pool.AbstractConnPool$2.get",
+            "org.apache.http.impl.execchain.ConnectionHolder.releaseConnection",
+            "org.apache.http.impl.execchain.ConnectionHolder.abortConnection",
+            "org.apache.http.impl.conn.PoolingHttpClientConnectionManager.connect",
+            "org.apache.http.impl.conn.PoolingHttpClientConnectionManager.upgrade",
+            "org.apache.http.impl.conn.PoolingHttpClientConnectionManager.routeComplete",
+            "org.apache.http.impl.conn.PoolingHttpClientConnectionManager.releaseConnection");
+
+    /**
+     * Pinned threads can deadlock when there are few carrier threads, so we
+     * don't wait for them forever.
+     */
+    private static final long JOIN_TIMEOUT_MILLIS = 60_000L;
+
+    /**
+     * Size of each write of a response body. The stub pauses between writes
+     * so that the commands block reading the body, as they would from Manta.
+     */
+    private static final int CHUNK_SIZE = 16_384;
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private HttpsServer server;
+    private ExecutorService serverExecutor;
+    private MantaClient client;
+    private Path keyStore;
+
+    @BeforeClass
+    public void startStub() throws Exception {
+        skipUnlessSupported();
+
+        keyStore = generateKeyStore();
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(buildSslContext(keyStore)));
+        server.createContext("/", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        final StandardConfigContext config = new StandardConfigContext();
+        config.setMantaURL(String.format("https://%s:%d",
+                server.getAddress().getHostString(), server.getAddress().getPort()));
+        config.setMantaUser("test");
+        config.setNoAuth(true);
+        config.setTlsInsecure(true);
+        config.setVerifyUploads(false);
+        config.setRetries(0);
+
+        client = new MantaClient(new ChainedConfigContext(new DefaultsConfigContext(), config));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+
+        if (keyStore != null) {
+            Files.deleteIfExists(keyStore);
+        }
+    }
+
+    public void virtualThreadFactoryKeepsNamingAndExceptionHandler() throws Exception {
+        skipUnlessSupported();
+
+        final Thread.UncaughtExceptionHandler handler = (t, e) -> { };
+        final ThreadFactory factory = VirtualThreads.newThreadFactory("runner", handler);
+        final Thread first = factory.newThread(() -> { });
+        final Thread second = factory.newThread(() -> { });
+
+        Assert.assertEquals(first.getName(), "runner-1");
+        Assert.assertEquals(second.getName(), "runner-2");
+        Assert.assertSame(first.getUncaughtExceptionHandler(), handler);
+        Assert.assertTrue(first.isDaemon());
+    }
+
+    public void commandPathDoesNotPinCarrierThreads() throws Exception {
+        skipUnlessSupported();
+
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final ThreadFactory factory = VirtualThreads.newThreadFactory("pinning",
+                (t, e) -> failures.add(e));
+        final Histogram putHistogram = Histogram.build()
+                .name("pinning_test_put_seconds").help("PUT latency").create();
+        final MantaMonitorMetrics metrics = new MantaMonitorMetrics();
+        final Path dump = Files.createTempFile("pinning-", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            final List<Thread> threads = List.of(PayloadMode.FILE, PayloadMode.STREAM, PayloadMode.SEED,
+                    PayloadMode.PARTS)
+                    .stream()
+                    .map(mode -> factory.newThread(() -> runCommands(mode, putHistogram, metrics)))
+                    .collect(Collectors.toList());
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join(JOIN_TIMEOUT_MILLIS);
+                Assert.assertFalse(thread.isAlive(), "Timed out waiting for " + thread.getName());
+            }
+
+            recording.stop();
+            recording.dump(dump);
+
+            Assert.assertTrue(failures.isEmpty(), "Command path failed: " + failures);
+            Assert.assertEquals(objects.size(), threads.size());
+
+            final List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump).stream()
+                    .filter(e -> PINNED_EVENT.equals(e.getEventType().getName()))
+                    .filter(e -> !isKnownPinning(e))
+                    .collect(Collectors.toList());
+
+            Assert.assertTrue(pinned.isEmpty(), "Virtual threads were pinned: "
+                    + pinned.stream().map(VirtualThreadPinningTest::describe).collect(Collectors.joining()));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private void runCommands(final PayloadMode mode,
+                             final Histogram putHistogram,
+                             final MantaMonitorMetrics metrics) {
+        final MantaOperationContext context = new MantaOperationContext()
+                .setMantaClient(client)
+                .setFilePathGenerationFunction(objectId -> "/test/stor/pinning/")
+                .setSizeDistribution(new UniformSizeDistribution(100_000, 200_000))
+                .setPayloadMode(mode)
+                .setDigestAlgorithm(DigestAlgorithm.SHA256)
+                .setMetrics(metrics)
+                .setChainClassNameKey(CHAIN)
+                .setRequestPutHistograms(Collections.singletonMap(CHAIN, putHistogram))
+                .setTestType("dir");
+
+        try {
+            GenerateFileCommand.INSTANCE.execute(context);
+            PutFileCommand.INSTANCE.execute(context);
+            GetFileCommand.INSTANCE.execute(context);
+            context.getPayload().close();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static boolean isKnownPinning(final RecordedEvent event) {
+        return event.getStackTrace().getFrames().stream()
+                .map(frame -> frame.getMethod().getType().getName() + '.' + frame.getMethod().getName())
+                .anyMatch(KNOWN_PINNING_METHODS::contains);
+    }
+
+    /* The events' own descriptions only show the top few frames, which are
+     * all inside the JDK, so the whole stack is listed. */
+    private static String describe(final RecordedEvent event) {
+        final StringBuilder description = new StringBuilder(System.lineSeparator())
+                .append(event.getThread().getJavaName()).append(" pinned for ").append(event.getDuration());
+
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            description.append(System.lineSeparator()).append("    at ")
+                    .append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+
+        return description.toString();
+    }
+
+    private static void skipUnlessSupported() {
+        if (VirtualThreads.isSupported()) {
+            return;
+        }
+
+        final String msg = "Virtual threads are not supported by " + Runtime.version();
+
+        if (Boolean.getBoolean("virtualThreads.required")) {
+            throw new AssertionError(msg);
+        }
+
+        throw new SkipException(msg);
+    }
+
+    /* Stores the body and metadata of each PUT and serves them back to GETs,
+     * which is all that the upload and download commands need from Manta. */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final String path = exchange.getRequestURI().getPath();
+            final Headers responseHeaders = exchange.getResponseHeaders();
+            responseHeaders.set("x-server-name", "pinning-stub");
+            responseHeaders.set("x-response-time", "1");
+
+            switch (exchange.getRequestMethod()) {
+                case "PUT":
+                    objects.put(path, new StoredObject(exchange.getRequestHeaders(),
+                            IOUtils.toByteArray(exchange.getRequestBody())));
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                case "GET":
+                    final StoredObject object = objects.get(path);
+
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        break;
+                    }
+
+                    responseHeaders.putAll(object.headers);
+                    exchange.sendResponseHeaders(200, object.data.length);
+                    writeSlowly(exchange.getResponseBody(), object.data);
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void writeSlowly(final OutputStream out, final byte[] data) throws IOException {
+        try {
+            for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+                out.write(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+                out.flush();
+                Thread.sleep(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static Path generateKeyStore() throws IOException, InterruptedException {
+        final Path path = Files.createTempFile("pinning-", ".p12");
+        Files.delete(path);
+
+        final Process keytool = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=localhost", "-validity", "1", "-storetype", "PKCS12",
+                "-keystore", path.toString(), "-storepass", STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+
+        try (InputStream output = keytool.getInputStream()) {
+            final String message = IOUtils.toString(output, StandardCharsets.UTF_8);
+
+            if (!keytool.waitFor(JOIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) || keytool.exitValue() != 0) {
+                throw new IOException("Unable to generate stub certificate: " + message);
+            }
+        }
+
+        return path;
+    }
+
+    private static SSLContext buildSslContext(final Path keyStorePath) throws Exception {
+        final KeyStore store = KeyStore.getInstance("PKCS12");
+
+        try (InputStream in = Files.newInputStream(keyStorePath)) {
+            store.load(in, STORE_PASSWORD.toCharArray());
+        }
+
+        final KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(
+                KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(store, STORE_PASSWORD.toCharArray());
+
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+
+        return context;
+    }
+
+    private static final class StoredObject {
+        private final Headers headers = new Headers();
+        private final byte[] data;
+
+        private StoredObject(final Headers requestHeaders, final byte[] data) {
+            this.data = data;
+
+            for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+                final String name = header.getKey().toLowerCase(Locale.ROOT);
+
+                if (name.startsWith("m-") || name.equals("content-type")) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+        }
+    }
+}
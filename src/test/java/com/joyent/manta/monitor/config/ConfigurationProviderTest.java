@@ -8,6 +8,7 @@
 package com.joyent.manta.monitor.config;
 
 import com.google.common.collect.ImmutableSet;
+import com.joyent.manta.monitor.sizes.LogNormalSizeDistribution;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -32,4 +33,15 @@ public class ConfigurationProviderTest {
         Assert.assertNotNull(config);
         Assert.assertEquals(config.getTestRunners(), expected);
     }
+
+    public void canReadSizeDistributionFromConfigFile() throws URISyntaxException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        URI configUri = classLoader.getResource("test-configuration-size-distribution.json").toURI();
+        Provider<Configuration> instance = new ConfigurationProvider(null, configUri);
+
+        Runner runner = instance.get().getTestRunners().iterator().next();
+
+        Assert.assertEquals(runner.getSizeDistribution(),
+                new LogNormalSizeDistribution(65536, 2.0, 1024L, 4294967296L));
+    }
 }
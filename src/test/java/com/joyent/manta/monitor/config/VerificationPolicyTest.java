@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.config;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+@Test
+public class VerificationPolicyTest {
+    public void alwaysVerifiesEveryObject() {
+        final Random random = new Random(1L);
+
+        for (long i = 0; i < 100; i++) {
+            Assert.assertTrue(VerificationPolicy.ALWAYS.isFullVerification(i, random));
+        }
+    }
+
+    public void everyNthVerifiesOneInN() {
+        final VerificationPolicy policy = new VerificationPolicy(
+                VerificationPolicy.Mode.EVERY_NTH, 10, null, 2, null);
+        final Random random = new Random(1L);
+        int verified = 0;
+
+        for (long i = 0; i < 100; i++) {
+            if (policy.isFullVerification(i, random)) {
+                verified++;
+            }
+        }
+
+        Assert.assertEquals(verified, 10);
+        Assert.assertTrue(policy.isFullVerification(20L, random));
+        Assert.assertFalse(policy.isFullVerification(21L, random));
+    }
+
+    public void percentageVerifiesRoughlyThatShare() {
+        final VerificationPolicy policy = new VerificationPolicy(
+                VerificationPolicy.Mode.PERCENTAGE, null, 25.0, null, null);
+        final Random random = new Random(42L);
+        int verified = 0;
+
+        for (long i = 0; i < 10_000; i++) {
+            if (policy.isFullVerification(i, random)) {
+                verified++;
+            }
+        }
+
+        Assert.assertTrue(verified > 2_300 && verified < 2_700,
+                "Unexpected number of verified objects: " + verified);
+    }
+
+    public void headOnlyNeverVerifiesInFull() {
+        final VerificationPolicy policy = new VerificationPolicy(
+                VerificationPolicy.Mode.HEAD_ONLY, null, null, 1, 4096L);
+
+        Assert.assertFalse(policy.isFullVerification(0L, new Random(1L)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsPercentageOutOfRange() {
+        new VerificationPolicy(VerificationPolicy.Mode.PERCENTAGE, null, 150.0, null, null);
+    }
+}
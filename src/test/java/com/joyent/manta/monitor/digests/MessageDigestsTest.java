@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.digests;
+
+import org.apache.commons.codec.binary.Hex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+@Test
+public class MessageDigestsTest {
+    public void xxHash64MatchesReferenceValues() {
+        Assert.assertEquals(hex(new XxHash64MessageDigest(), ""), "ef46db3751d8e999");
+        Assert.assertEquals(hex(new XxHash64MessageDigest(), "abc"), "44bc2cf5ad770999");
+    }
+
+    public void crc32cMatchesReferenceValue() {
+        Assert.assertEquals(hex(new Crc32cMessageDigest(), "123456789"), "e3069283");
+    }
+
+    public void xxHash64IsIndependentOfUpdateSizes() {
+        final byte[] data = randomBytes(10_007);
+        final MessageDigest whole = new XxHash64MessageDigest();
+        final MessageDigest pieces = new XxHash64MessageDigest();
+        final Random random = new Random(5L);
+
+        for (int position = 0; position < data.length;) {
+            final int length = Math.min(data.length - position, random.nextInt(70));
+
+            if (length == 1) {
+                pieces.update(data[position]);
+            } else {
+                pieces.update(data, position, length);
+            }
+
+            position += length;
+        }
+
+        Assert.assertEquals(pieces.digest(), whole.digest(data));
+    }
+
+    public void crc32cMatchesJdkImplementation() {
+        final byte[] data = randomBytes(10_007);
+        final CRC32C crc = new CRC32C();
+        crc.update(data);
+
+        final long actual = Long.parseLong(Hex.encodeHexString(new Crc32cMessageDigest().digest(data)), 16);
+        Assert.assertEquals(actual, crc.getValue());
+    }
+
+    public void clonedDigestsContinueFromSharedPrefix() throws Exception {
+        final byte[] data = randomBytes(5_000);
+
+        for (MessageDigest digest : new MessageDigest[] {new Crc32cMessageDigest(), new XxHash64MessageDigest()}) {
+            final byte[] expected = ((MessageDigest)digest.clone()).digest(data);
+
+            digest.update(data, 0, 3_333);
+            final MessageDigest first = (MessageDigest)digest.clone();
+            final MessageDigest second = (MessageDigest)digest.clone();
+            first.update(data, 3_333, data.length - 3_333);
+            second.update(data, 3_333, data.length - 3_333);
+
+            Assert.assertEquals(first.digest(), expected, digest.getAlgorithm());
+            Assert.assertEquals(second.digest(), expected, digest.getAlgorithm());
+        }
+    }
+
+    private static String hex(final MessageDigest digest, final String input) {
+        return Hex.encodeHexString(digest.digest(input.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] data = new byte[length];
+        new Random(42L).nextBytes(data);
+        return data;
+    }
+}
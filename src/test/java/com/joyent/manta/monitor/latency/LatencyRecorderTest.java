@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.latency;
+
+import io.prometheus.client.Collector;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class LatencyRecorderTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public void snapshotsOnlyContainValuesSinceLastSnapshot() {
+        final LatencyRecorder recorder = new LatencyRecorder(0L);
+
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(i * MILLIS);
+        }
+
+        final LatencyRecorder.Snapshot first = recorder.snapshot();
+        Assert.assertEquals(first.getInterval().getTotalCount(), 1000L);
+        Assert.assertEquals(first.getInterval().getValueAtPercentile(99.0), 990_000.0, 990.0);
+
+        recorder.record(5 * MILLIS);
+
+        final LatencyRecorder.Snapshot second = recorder.snapshot();
+        Assert.assertEquals(second.getInterval().getTotalCount(), 1L);
+        Assert.assertEquals(second.getTotalCount(), 1001L);
+        /* The values are only kept to three significant digits. */
+        Assert.assertEquals(second.getTotalMicros(), 500_505_000.0, 500_505.0);
+    }
+
+    public void correctsForCoordinatedOmission() {
+        final LatencyRecorder recorder = new LatencyRecorder(10 * MILLIS);
+
+        /* A single 100ms stall with a 10ms expected interval hides nine more
+         * requests that would have waited 90ms, 80ms ... 10ms. */
+        recorder.record(100 * MILLIS);
+
+        final LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        Assert.assertEquals(snapshot.getInterval().getTotalCount(), 10L);
+        Assert.assertEquals(snapshot.getInterval().getMinValue(), 10_000L, 10L);
+    }
+
+    public void clampsValuesAboveHighestTrackable() {
+        final LatencyRecorder recorder = new LatencyRecorder(0L);
+        recorder.record(TimeUnit.DAYS.toNanos(1));
+
+        Assert.assertEquals(recorder.snapshot().getInterval().getMaxValue(),
+                LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.HIGHEST_TRACKABLE_MICROS / 1000.0);
+    }
+
+    public void collectorExportsChainAndCommandQuantiles() {
+        final LatencyRecorders recorders = new LatencyRecorders();
+        recorders.get("TestChain", LatencyRecorders.CHAIN).record(250 * MILLIS);
+        recorders.get("TestChain", "PutFileCommand").record(200 * MILLIS);
+
+        final List<Collector.MetricFamilySamples> families = new HdrLatencyCollector(recorders).collect();
+        final Collector.MetricFamilySamples commands = families.stream()
+                .filter(f -> f.name.equals(HdrLatencyCollector.COMMAND_METRIC))
+                .findFirst().orElseThrow();
+
+        final Collector.MetricFamilySamples.Sample p9999 = commands.samples.stream()
+                .filter(s -> s.labelValues.contains("0.9999"))
+                .findFirst().orElseThrow();
+
+        Assert.assertEquals(p9999.labelNames, List.of("chain", "command", "quantile"));
+        Assert.assertEquals(p9999.labelValues.subList(0, 2), List.of("TestChain", "PutFileCommand"));
+        Assert.assertEquals(p9999.value, 0.2, 0.001);
+    }
+
+    public void scrapesWithinIntervalShareOneSnapshot() {
+        final LatencyRecorders recorders = new LatencyRecorders();
+        final HdrLatencyCollector collector = new HdrLatencyCollector(recorders, TimeUnit.HOURS.toMillis(1));
+        recorders.get("TestChain", LatencyRecorders.CHAIN).record(250 * MILLIS);
+
+        final double first = chainP50(collector.collect());
+        recorders.get("TestChain", LatencyRecorders.CHAIN).record(5 * MILLIS);
+        final double second = chainP50(collector.collect());
+
+        Assert.assertEquals(first, 0.25, 0.001);
+        Assert.assertEquals(second, first);
+    }
+
+    public void takesNewSnapshotOnceIntervalHasPassed() {
+        final LatencyRecorders recorders = new LatencyRecorders();
+        final HdrLatencyCollector collector = new HdrLatencyCollector(recorders, 0L);
+        recorders.get("TestChain", LatencyRecorders.CHAIN).record(250 * MILLIS);
+
+        Assert.assertEquals(chainP50(collector.collect()), 0.25, 0.001);
+        recorders.get("TestChain", LatencyRecorders.CHAIN).record(5 * MILLIS);
+        Assert.assertEquals(chainP50(collector.collect()), 0.005, 0.001);
+    }
+
+    private static double chainP50(final List<Collector.MetricFamilySamples> families) {
+        return families.stream()
+                .filter(f -> f.name.equals(HdrLatencyCollector.CHAIN_METRIC))
+                .flatMap(f -> f.samples.stream())
+                .filter(s -> s.labelValues.contains("0.5"))
+                .findFirst().orElseThrow().value;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+@Test
+public class GeneratedPayloadTest {
+    public void canRegenerateIdenticalBytes() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(42L, 100_003L);
+        final byte[] first;
+        final byte[] second;
+
+        try (InputStream in = payload.openStream()) {
+            first = IOUtils.toByteArray(in);
+        }
+
+        /* Read in odd sized chunks so that we know the output doesn't depend
+         * on how the stream is consumed. */
+        try (InputStream in = payload.openStream()) {
+            final byte[] buf = new byte[100_003];
+            int offset = 0;
+            int read;
+            while ((read = in.read(buf, offset, Math.min(777, buf.length - offset))) > 0) {
+                offset += read;
+            }
+            second = buf;
+            Assert.assertEquals(offset, buf.length);
+        }
+
+        Assert.assertEquals(first.length, payload.getSize());
+        Assert.assertEquals(second, first);
+    }
+
+    public void differentSeedsGenerateDifferentBytes() throws Exception {
+        try (InputStream a = new GeneratedPayload(1L, 1024L).openStream();
+             InputStream b = new GeneratedPayload(2L, 1024L).openStream()) {
+            Assert.assertNotEquals(IOUtils.toByteArray(a), IOUtils.toByteArray(b));
+        }
+    }
+
+    public void findsNoMismatchInIdenticalData() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(3L, 20_000L);
+
+        try (InputStream in = payload.openStream()) {
+            Assert.assertEquals(payload.findFirstMismatch(in), -1L);
+        }
+    }
+
+    public void findsOffsetOfCorruptedByte() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(3L, 20_000L);
+        final byte[] data;
+
+        try (InputStream in = payload.openStream()) {
+            data = IOUtils.toByteArray(in);
+        }
+
+        data[12_345] = '!';
+
+        Assert.assertEquals(payload.findFirstMismatch(new ByteArrayInputStream(data)), 12_345L);
+    }
+
+    public void findsOffsetOfTruncatedOrExtendedData() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(3L, 20_000L);
+        final byte[] data;
+
+        try (InputStream in = payload.openStream()) {
+            data = IOUtils.toByteArray(in);
+        }
+
+        final byte[] truncated = Arrays.copyOf(data, 15_000);
+        final byte[] extended = Arrays.copyOf(data, 25_000);
+
+        Assert.assertEquals(payload.findFirstMismatch(new ByteArrayInputStream(truncated)), 15_000L);
+        Assert.assertEquals(payload.findFirstMismatch(new ByteArrayInputStream(extended)), 20_000L);
+    }
+
+    public void canOpenStreamAtOffset() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(5L, 30_000L);
+        final byte[] data;
+        final byte[] range;
+
+        try (InputStream in = payload.openStream()) {
+            data = IOUtils.toByteArray(in);
+        }
+
+        try (InputStream in = payload.openStream(10_001L, 4_000L)) {
+            range = IOUtils.toByteArray(in);
+        }
+
+        Assert.assertEquals(range, Arrays.copyOfRange(data, 10_001, 14_001));
+    }
+
+    public void findsOffsetOfCorruptedByteInRange() throws Exception {
+        final GeneratedPayload payload = new GeneratedPayload(5L, 30_000L);
+        final byte[] range;
+
+        try (InputStream in = payload.openStream(10_000L, 9_000L)) {
+            range = IOUtils.toByteArray(in);
+        }
+
+        Assert.assertEquals(payload.findFirstMismatch(
+                new ByteArrayInputStream(range), 10_000L, 9_000L), -1L);
+
+        range[8_500] = '!';
+
+        Assert.assertEquals(payload.findFirstMismatch(
+                new ByteArrayInputStream(range), 10_000L, 9_000L), 18_500L);
+    }
+}
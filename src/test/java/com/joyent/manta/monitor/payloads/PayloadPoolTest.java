@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.payloads;
+
+import com.joyent.manta.monitor.config.DigestAlgorithm;
+import com.joyent.manta.monitor.sizes.FixedSizeDistribution;
+import com.joyent.manta.monitor.sizes.SizeDistribution;
+import com.joyent.manta.monitor.sizes.UniformSizeDistribution;
+import com.joyent.manta.monitor.sizes.WeightedSizeDistribution;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Test
+public class PayloadPoolTest {
+    public void pooledChecksumMatchesPayloadContents() throws Exception {
+        final PayloadPool pool = new PayloadPool(new UniformSizeDistribution(1_000, 5_000), 3, 2,
+                DigestAlgorithm.SHA256);
+
+        for (int i = 0; i < 20; i++) {
+            final PooledPayload payload = pool.next();
+            final byte[] data;
+
+            try (InputStream in = payload.openStream()) {
+                data = IOUtils.toByteArray(in);
+            }
+
+            Assert.assertEquals(data.length, payload.getSize());
+            Assert.assertEquals(payload.getChecksum(), DigestUtils.sha256(data));
+        }
+    }
+
+    public void pooledChecksumMatchesForFastDigests() throws Exception {
+        for (DigestAlgorithm algorithm : List.of(DigestAlgorithm.CRC32C, DigestAlgorithm.XXHASH64)) {
+            final PayloadPool pool = new PayloadPool(new UniformSizeDistribution(1_000, 5_000), 2, 2, algorithm);
+            final PooledPayload payload = pool.next();
+
+            try (InputStream in = payload.openStream()) {
+                Assert.assertEquals(payload.getChecksum(), algorithm.newDigest().digest(IOUtils.toByteArray(in)),
+                        algorithm.getName());
+            }
+        }
+    }
+
+    public void payloadsUseSizeClassesFromDistribution() {
+        final SizeDistribution distribution = new WeightedSizeDistribution(List.of(
+                new WeightedSizeDistribution.SizeClass(1_000, 1_000, 1.0),
+                new WeightedSizeDistribution.SizeClass(3_000, 3_000, 1.0)));
+        final PayloadPool pool = new PayloadPool(distribution, 4, 2, DigestAlgorithm.SHA256);
+        final Set<Long> sizes = new HashSet<>();
+
+        for (int i = 0; i < 200; i++) {
+            sizes.add(pool.next().getSize());
+        }
+
+        Assert.assertTrue(Set.of(1_000L, 3_000L).containsAll(sizes));
+        Assert.assertTrue(pool.getPooledBytes() >= 8 * (1_000 - PayloadPool.SALT_LENGTH));
+        Assert.assertTrue(pool.getPooledBytes() <= 8 * (3_000 - PayloadPool.SALT_LENGTH));
+    }
+
+    public void everyPayloadIsUnique() {
+        final PayloadPool pool = new PayloadPool(new FixedSizeDistribution(100), 1, 1, DigestAlgorithm.SHA256);
+        final Set<String> checksums = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            checksums.add(Hex.encodeHexString(pool.next().getChecksum()));
+        }
+
+        Assert.assertEquals(checksums.size(), 1_000);
+    }
+
+    public void rangeStreamsSpanBodyAndSalt() throws Exception {
+        final PayloadPool pool = new PayloadPool(new FixedSizeDistribution(1_000), 1, 1, DigestAlgorithm.SHA256);
+        final PooledPayload payload = pool.next();
+        final byte[] data;
+
+        try (InputStream in = payload.openStream()) {
+            data = IOUtils.toByteArray(in);
+        }
+
+        for (long offset : new long[] {0L, 500L, 980L, 990L}) {
+            try (InputStream in = payload.openStream(offset, 10L)) {
+                Assert.assertEquals(IOUtils.toByteArray(in),
+                        Arrays.copyOfRange(data, (int)offset, (int)offset + 10));
+            }
+        }
+    }
+}
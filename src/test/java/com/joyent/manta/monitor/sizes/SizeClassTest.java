@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class SizeClassTest {
+    public void classifiesSizesByInclusiveUpperBound() {
+        Assert.assertEquals(SizeClass.of(0L), SizeClass.UP_TO_1KIB);
+        Assert.assertEquals(SizeClass.of(1024L), SizeClass.UP_TO_1KIB);
+        Assert.assertEquals(SizeClass.of(1025L), SizeClass.UP_TO_64KIB);
+        Assert.assertEquals(SizeClass.of(1L << 20), SizeClass.UP_TO_1MIB);
+        Assert.assertEquals(SizeClass.of(10_000_000L), SizeClass.UP_TO_16MIB);
+        Assert.assertEquals(SizeClass.of((256L << 20) + 1), SizeClass.OVER_256MIB);
+        Assert.assertEquals(SizeClass.of(Long.MAX_VALUE), SizeClass.OVER_256MIB);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsNegativeSizes() {
+        SizeClass.of(-1L);
+    }
+}
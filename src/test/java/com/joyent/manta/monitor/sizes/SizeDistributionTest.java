@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, Joyent, Inc. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.joyent.manta.monitor.sizes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joyent.manta.monitor.config.ConfigurationLoadException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@Test
+public class SizeDistributionTest {
+    private static final int SAMPLES = 100_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public void uniformSizesStayWithinBounds() {
+        final long[] sizes = sample(new UniformSizeDistribution(3_000_000_000L, 3_000_001_000L));
+
+        Assert.assertTrue(sizes[0] >= 3_000_000_000L);
+        Assert.assertTrue(sizes[sizes.length - 1] < 3_000_001_000L);
+    }
+
+    public void logNormalMedianMatchesConfiguration() {
+        final long[] sizes = sample(new LogNormalSizeDistribution(65_536, 1.5, 1_024L, null));
+        final long median = sizes[sizes.length / 2];
+
+        Assert.assertTrue(sizes[0] >= 1_024L);
+        Assert.assertTrue(median > 60_000 && median < 71_000, "Unexpected median: " + median);
+    }
+
+    public void paretoSizesHaveHeavyTail() {
+        final long[] sizes = sample(new ParetoSizeDistribution(1_024, 1_073_741_824, 1.0));
+        final long median = sizes[sizes.length / 2];
+
+        Assert.assertTrue(sizes[0] >= 1_024L);
+        Assert.assertTrue(sizes[sizes.length - 1] <= 1_073_741_824L);
+        // the median of a Pareto distribution with a shape of 1 is twice its scale
+        Assert.assertTrue(median > 1_900 && median < 2_200, "Unexpected median: " + median);
+        Assert.assertTrue(sizes[sizes.length - 1] > 100 * median);
+    }
+
+    public void weightedClassesAreChosenInProportion() {
+        final long[] sizes = sample(new WeightedSizeDistribution(List.of(
+                new WeightedSizeDistribution.SizeClass(1_000, 1_000, 9.0),
+                new WeightedSizeDistribution.SizeClass(5_000, 6_000, 1.0))));
+        final long small = Arrays.stream(sizes).filter(s -> s == 1_000).count();
+        final long large = Arrays.stream(sizes).filter(s -> s >= 5_000 && s < 6_000).count();
+
+        Assert.assertEquals(small + large, SAMPLES);
+        Assert.assertEquals((double) small / SAMPLES, 0.9, 0.01);
+    }
+
+    public void canLoadHistogramFromFile() throws Exception {
+        final Path file = Files.createTempFile("sizes-", ".csv");
+
+        try {
+            Files.write(file, List.of("# size,count", "4096,3", "", "1000000,2000000,1"),
+                    StandardCharsets.UTF_8);
+            final String json = String.format("{\"type\":\"histogram\",\"file\":\"%s\"}", file);
+            final SizeDistribution distribution = mapper.readValue(json, SizeDistribution.class);
+            final long[] sizes = sample(distribution);
+            final long small = Arrays.stream(sizes).filter(s -> s == 4_096).count();
+
+            Assert.assertEquals((double) small / SAMPLES, 0.75, 0.01);
+            Assert.assertTrue(sizes[sizes.length - 1] < 2_000_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expectedExceptions = ConfigurationLoadException.class)
+    public void invalidHistogramFileIsRejected() throws Exception {
+        final Path file = Files.createTempFile("sizes-", ".csv");
+
+        try {
+            Files.write(file, List.of("4096"), StandardCharsets.UTF_8);
+            new HistogramSizeDistribution(file.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void canReadDistributionsFromJson() throws Exception {
+        final String json = "{\"type\":\"weighted\",\"classes\":["
+                + "{\"size\":4096,\"weight\":80},"
+                + "{\"minSize\":1048576,\"maxSize\":5368709120,\"weight\":1}]}";
+
+        final SizeDistribution expected = new WeightedSizeDistribution(List.of(
+                new WeightedSizeDistribution.SizeClass(4_096, 4_096, 80),
+                new WeightedSizeDistribution.SizeClass(1_048_576, 5_368_709_120L, 1)));
+
+        Assert.assertEquals(mapper.readValue(json, SizeDistribution.class), expected);
+        Assert.assertEquals(mapper.readValue("{\"type\":\"fixed\",\"size\":10}", SizeDistribution.class),
+                new FixedSizeDistribution(10));
+    }
+
+    private static long[] sample(final SizeDistribution distribution) {
+        final Random random = new Random(42L);
+        final long[] sizes = new long[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            sizes[i] = distribution.nextSize(random);
+        }
+
+        Arrays.sort(sizes);
+        return sizes;
+    }
+}